@@ -12,4 +12,8 @@ import com.alibaba.fastjson2.JSONObject;
 public interface ClientManagerService {
 
      JSONObject getDetails();
+
+     JSONObject getStatistics();
+
+     JSONObject getSessionTimeline();
 }
@@ -20,6 +20,13 @@ public interface InstanceService extends IService<Instance> {
 
     Map runInstance(String id) throws InterruptedException;
 
+    /**
+     * 启动实例进程后立即返回，不等待实例连接信令服务器
+     */
+    Map<String, Object> launchInstance(String id);
+
+    List<Instance> getInstancesByProject(String projectId);
+
     Map killInstance(String id) throws InterruptedException;
 
     List<Instance>  getAllInstance();
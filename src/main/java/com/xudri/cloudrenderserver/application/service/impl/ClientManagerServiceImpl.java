@@ -3,7 +3,18 @@ package com.xudri.cloudrenderserver.application.service.impl;
 import com.alibaba.fastjson2.JSONObject;
 import com.xudri.cloudrenderserver.application.service.ClientManagerService;
 import com.xudri.cloudrenderserver.core.client.ClientManager;
-import jakarta.annotation.Resource;
+import com.xudri.cloudrenderserver.core.client.PlayerAdmissionQueue;
+import com.xudri.cloudrenderserver.core.client.PlayerIdPool;
+import com.xudri.cloudrenderserver.core.client.PlayerSessionRegistry;
+import com.xudri.cloudrenderserver.core.signaling.EventLoopAffinity;
+import com.xudri.cloudrenderserver.core.signaling.HeartbeatManager;
+import com.xudri.cloudrenderserver.core.signaling.SessionTimelineRecorder;
+import com.xudri.cloudrenderserver.core.signaling.SignallingCompression;
+import com.xudri.cloudrenderserver.core.signaling.SignallingEventLoops;
+import com.xudri.cloudrenderserver.core.signaling.SignallingLoadShedder;
+import com.xudri.cloudrenderserver.core.signaling.SignallingRateLimiter;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
+import com.xudri.cloudrenderserver.infrastructure.monitor.WarmPoolJob;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 
@@ -21,8 +32,54 @@ public class ClientManagerServiceImpl implements ClientManagerService {
 
     private final ClientManager clientManager;
 
+    private final SignallingStats signallingStats;
+
+    private final SignallingCompression signallingCompression;
+
+    private final PlayerAdmissionQueue playerAdmissionQueue;
+
+    private final WarmPoolJob warmPoolJob;
+
+    private final PlayerSessionRegistry playerSessionRegistry;
+
+    private final PlayerIdPool playerIdPool;
+
+    private final HeartbeatManager heartbeatManager;
+
+    private final SessionTimelineRecorder sessionTimelineRecorder;
+
+    private final SignallingRateLimiter signallingRateLimiter;
+
+    private final SignallingLoadShedder signallingLoadShedder;
+
+    private final EventLoopAffinity eventLoopAffinity;
+
+    private final SignallingEventLoops signallingEventLoops;
+
     @Override
     public JSONObject getDetails() {
         return  clientManager.getDetails();
     }
+
+    @Override
+    public JSONObject getStatistics() {
+        JSONObject result = clientManager.getStatistics();
+        result.put("signalling", signallingStats.toJson());
+        result.put("compression", signallingCompression.toJson());
+        result.put("admission", playerAdmissionQueue.getStatistics());
+        result.put("warmPool", warmPoolJob.getStatistics());
+        result.put("sessions", playerSessionRegistry.getStatistics());
+        result.put("playerIds", playerIdPool.getStatistics());
+        result.put("heartbeat", heartbeatManager.getStatistics());
+        result.put("rateLimit", signallingRateLimiter.getStatistics());
+        result.put("loadShedding", signallingLoadShedder.getStatistics());
+        result.put("affinity", eventLoopAffinity.getStatistics());
+        result.put("eventLoops", signallingEventLoops.getStatistics());
+        return result;
+    }
+
+    @Override
+    public JSONObject getSessionTimeline() {
+        return sessionTimelineRecorder.getStatistics();
+    }
 }
@@ -11,6 +11,7 @@ import com.xudri.cloudrenderserver.application.service.ProjectService;
 import com.xudri.cloudrenderserver.application.service.SystemConfigService;
 import com.xudri.cloudrenderserver.config.PixelStreamingConfig;
 import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.signaling.SignallingAuthenticator;
 import com.xudri.cloudrenderserver.core.streaming.PixelStreamingLauncherManager;
 import com.xudri.cloudrenderserver.domain.entity.Instance;
 import com.xudri.cloudrenderserver.domain.entity.Project;
@@ -18,6 +19,7 @@ import com.xudri.cloudrenderserver.domain.entity.SystemConfig;
 import com.xudri.cloudrenderserver.infrastructure.monitor.ProcessManagerByPowerShell;
 import com.xudri.cloudrenderserver.infrastructure.network.SignallingServer;
 import com.xudri.cloudrenderserver.infrastructure.repository.InstanceDao;
+import com.xudri.cloudrenderserver.infrastructure.security.JwtUtil;
 import io.netty.channel.Channel;
 import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
@@ -44,6 +46,7 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
     private static final String RESULT_KEY = "result";
     private static final String RESULT_MSG_KEY = "resultMsg";
     private static final String PROJECT_ID_FIELD = "project_id";
+    private static final String INSTANCE_PROJECT_ID_FIELD = "ProjectID";
     private static final int MAX_CHECK_ATTEMPTS = 5;
     private static final int CHECK_INTERVAL_MS = 1000;
     private static final int DEFAULT_SYSTEM_CONFIG_ID = 1;
@@ -59,6 +62,10 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
 
     private final PixelStreamingLauncherManager pixelStreamingLauncherManager;
 
+    private final SignallingAuthenticator signallingAuthenticator;
+
+    private final JwtUtil jwtUtil;
+
     @Override
     public boolean addOrUpdateInstance(JSONObject instance) {
         String instanceId = ObjectId.next();
@@ -94,8 +101,19 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
 
     @Override
     public Map<String, Object> runInstance(String id) throws InterruptedException {
+        Map<String, Object> launched = launchInstance(id);
+        if (!Boolean.TRUE.equals(launched.get(RESULT_KEY))) {
+            return launched;
+        }
+
+        boolean isRunning = checkInstanceStatus(id, true);
+        return createResultMap(isRunning, isRunning ? "启动成功!" : "启动失败!");
+    }
 
-        if (isInstanceAlreadyRunning(id)) {
+    @Override
+    public Map<String, Object> launchInstance(String id) {
+
+        if (isInstanceAlreadyRunning(id) || pixelStreamingLauncherManager.isRunning(id)) {
             return createResultMap(false, "重复启动!");
         }
 
@@ -105,6 +123,9 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
         }
 
         Instance instance = this.getById(id);
+        if (instance == null) {
+            return createResultMap(false, "实例不存在!");
+        }
         PixelStreamingConfig pixelStreamingConfig = parsePixelStreamingConfig(instance);
         if (pixelStreamingConfig == null) {
             return createResultMap(false, "实例配置错误!");
@@ -118,15 +139,18 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
         String signallingServerURL = createSignallingServerURL(id, instance.getProjectid());
         pixelStreamingConfig.setPixelStreamingURL(signallingServerURL);
 
-        pixelStreamingLauncherManager.launch(
+        boolean launched = pixelStreamingLauncherManager.launch(
                 id,
                 instance.getProjectid(),
                 systemConfig.getRenderclientpath(),
                 pixelStreamingConfig
         );
+        return createResultMap(launched, launched ? "已启动!" : "启动失败!");
+    }
 
-        boolean isRunning = checkInstanceStatus(id, true);
-        return createResultMap(isRunning, isRunning ? "启动成功!" : "启动失败!");
+    @Override
+    public List<Instance> getInstancesByProject(String projectId) {
+        return this.list(new QueryWrapper<Instance>().eq(INSTANCE_PROJECT_ID_FIELD, projectId));
     }
 
     @Override
@@ -171,8 +195,12 @@ public class InstanceServiceImpl extends ServiceImpl<InstanceDao, Instance> impl
     }
 
     private String createSignallingServerURL(String instanceId, String projectId) {
-        return "\"ws://127.0.0.1:" + signallingServer.getServicePort() +
-                "/type=streamer&insid=" + instanceId + "&projectid=" + projectId + "\"";
+        String url = "ws://127.0.0.1:" + signallingServer.getServicePort() +
+                "/type=streamer&insid=" + instanceId + "&projectid=" + projectId;
+        if (signallingAuthenticator.isEnabled()) {
+            url += "&token=" + jwtUtil.generateStreamerToken(instanceId);
+        }
+        return "\"" + url + "\"";
     }
 
     private void killProcessesByInstanceId(String id) {
@@ -0,0 +1,61 @@
+package com.xudri.cloudrenderserver.common.util;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 按类别的日志采样器
+ * 高频事件（如ICE候选转发）每N次只记录一次，N向上取整为2的幂
+ *
+ * @author MaxYun
+ * @version 1.0
+ * @since 2025-09-24
+ */
+public final class LogSampler {
+
+    private static final Map<String, LogSampler> SAMPLERS = new ConcurrentHashMap<>();
+
+    private final String category;
+    private final long mask;
+    private final AtomicLong counter = new AtomicLong();
+
+    private LogSampler(String category, int rate) {
+        this.category = category;
+        int normalized = rate <= 1 ? 1 : Integer.highestOneBit(rate - 1) << 1;
+        this.mask = normalized - 1L;
+    }
+
+    /**
+     * 获取指定类别的采样器，同一类别共享计数
+     *
+     * @param category 类别名称
+     * @param rate 采样间隔，每rate次事件记录一次
+     * @return 采样器
+     */
+    public static LogSampler of(String category, int rate) {
+        return SAMPLERS.computeIfAbsent(category, key -> new LogSampler(key, rate));
+    }
+
+    /**
+     * 判断本次事件是否需要记录，调用方应先判断日志级别是否开启
+     */
+    public boolean sample() {
+        return (counter.getAndIncrement() & mask) == 0;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getRate() {
+        return mask + 1;
+    }
+
+    /**
+     * 调用sample()判断过的事件总数，包括未被采样记录的事件
+     */
+    public long getEvents() {
+        return counter.get();
+    }
+}
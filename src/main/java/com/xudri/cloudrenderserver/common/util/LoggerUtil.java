@@ -2,10 +2,12 @@ package com.xudri.cloudrenderserver.common.util;
 
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Supplier;
 
 /**
  * 统一日志工具类
  * 提供中文日志记录方法，统一日志格式和输出
+ * 所有方法使用参数化消息，日志级别关闭时不做字符串拼接
  * 
  * @author MaxYun
  * @version 1.0
@@ -29,11 +31,14 @@ public class LoggerUtil {
      * 记录业务操作日志（带参数）
      * 
      * @param operation 操作名称
-     * @param message 详细信息模板
+     * @param message 详细信息模板，使用String.format占位符，日志开启时才格式化
      * @param args 参数
      */
     public static void logBusiness(String operation, String message, Object... args) {
-        BUSINESS_LOGGER.info("[{}] {}", operation, String.format(message, args));
+        // 先判断级别再格式化，日志关闭时不创建Supplier
+        if (BUSINESS_LOGGER.isInfoEnabled()) {
+            BUSINESS_LOGGER.info("[{}] {}", operation, String.format(message, args));
+        }
     }
     
     /**
@@ -45,7 +50,21 @@ public class LoggerUtil {
      * @param details 详细信息
      */
     public static void logConnection(String clientType, String clientId, String action, String details) {
-        logBusiness("客户端连接", "%s客户端[%s] %s - %s", clientType, clientId, action, details);
+        BUSINESS_LOGGER.info("[客户端连接] {}客户端[{}] {} - {}", clientType, clientId, action, details);
+    }
+    
+    /**
+     * 记录用户连接相关日志，详细信息只在日志开启时才生成
+     * 
+     * @param clientType 客户端类型
+     * @param clientId 客户端ID
+     * @param action 操作类型
+     * @param details 详细信息提供者
+     */
+    public static void logConnection(String clientType, String clientId, String action, Supplier<?> details) {
+        if (BUSINESS_LOGGER.isInfoEnabled()) {
+            BUSINESS_LOGGER.info("[客户端连接] {}客户端[{}] {} - {}", clientType, clientId, action, details.get());
+        }
     }
     
     /**
@@ -56,7 +75,7 @@ public class LoggerUtil {
      * @param details 详细信息
      */
     public static void logInstance(String instanceId, String action, String details) {
-        logBusiness("像素流实例", "实例[%s] %s - %s", instanceId, action, details);
+        BUSINESS_LOGGER.info("[像素流实例] 实例[{}] {} - {}", instanceId, action, details);
     }
     
     /**
@@ -67,7 +86,7 @@ public class LoggerUtil {
      * @param details 详细信息
      */
     public static void logSystem(String component, String status, String details) {
-        logBusiness("系统监控", "%s %s - %s", component, status, details);
+        BUSINESS_LOGGER.info("[系统监控] {} {} - {}", component, status, details);
     }
     
     /**
@@ -78,7 +97,7 @@ public class LoggerUtil {
      * @param details 详细信息
      */
     public static void logNetwork(String protocol, String action, String details) {
-        logBusiness("网络通信", "%s %s - %s", protocol, action, details);
+        BUSINESS_LOGGER.info("[网络通信] {} {} - {}", protocol, action, details);
     }
     
     /**
@@ -89,7 +108,7 @@ public class LoggerUtil {
      * @param config 配置信息
      */
     public static void logServiceStartup(String serviceName, String status, String config) {
-        logBusiness("服务启动", "%s %s - 配置：%s", serviceName, status, config);
+        BUSINESS_LOGGER.info("[服务启动] {} {} - 配置：{}", serviceName, status, config);
     }
     
     /**
@@ -0,0 +1,105 @@
+package com.xudri.cloudrenderserver.common.util;
+
+import com.alibaba.fastjson2.JSONObject;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 对数线性分桶直方图
+ * 每个2的幂区间划分为32个子桶，相对误差约3%，记录无锁且不分配对象，可在事件循环线程上调用
+ *
+ * @author MaxYun
+ * @version 1.0
+ * @since 2025-09-25
+ */
+public final class ValueHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+    private static final int BUCKET_COUNT = (63 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final LongAdder totalCount = new LongAdder();
+    private final LongAdder totalSum = new LongAdder();
+    private final LongAccumulator maxValue = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * 记录一个值，负数按0记录
+     */
+    public void record(long value) {
+        long v = Math.max(0L, value);
+        counts.incrementAndGet(indexOf(v));
+        totalCount.increment();
+        totalSum.add(v);
+        maxValue.accumulate(v);
+    }
+
+    public long getCount() {
+        return totalCount.sum();
+    }
+
+    public long getMax() {
+        return maxValue.get();
+    }
+
+    public double getMean() {
+        long count = getCount();
+        return count == 0 ? 0d : (double) totalSum.sum() / count;
+    }
+
+    /**
+     * 获取百分位数值，返回所在子桶的上界
+     *
+     * @param percentile 百分位，0-100
+     */
+    public long getValueAtPercentile(double percentile) {
+        long count = getCount();
+        if (count == 0) {
+            return 0L;
+        }
+        long target = Math.max(1L, (long) Math.ceil(count * Math.min(100d, percentile) / 100d));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts.get(i);
+            if (seen >= target) {
+                return Math.min(highestValueAt(i), getMax());
+            }
+        }
+        return getMax();
+    }
+
+    /**
+     * 获取统计快照
+     */
+    public JSONObject toJson() {
+        JSONObject json = new JSONObject();
+        json.put("count", getCount());
+        json.put("mean", Math.round(getMean() * 100d) / 100d);
+        json.put("max", getMax());
+        json.put("p50", getValueAtPercentile(50));
+        json.put("p90", getValueAtPercentile(90));
+        json.put("p99", getValueAtPercentile(99));
+        json.put("p999", getValueAtPercentile(99.9));
+        return json;
+    }
+
+    private static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+    }
+
+    private static long highestValueAt(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+        int shift = index / SUB_BUCKET_COUNT - 1;
+        long sub = index % SUB_BUCKET_COUNT + SUB_BUCKET_COUNT;
+        return ((sub + 1) << shift) - 1;
+    }
+}
@@ -2,20 +2,27 @@ package com.xudri.cloudrenderserver.core.client;
 
 import cn.hutool.core.convert.Convert;
 import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.signaling.HeartbeatManager;
 import com.xudri.cloudrenderserver.domain.enums.ClientType;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelId;
 import io.netty.channel.group.ChannelGroup;
 import io.netty.channel.group.DefaultChannelGroup;
 import io.netty.util.concurrent.GlobalEventExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import io.netty.util.AttributeKey;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 
@@ -40,6 +47,20 @@ public class ClientManager {
     public static final AttributeKey<String> INS_ID = AttributeKey.valueOf("InsId");
     public static final AttributeKey<String> PROJECT_ID = AttributeKey.valueOf("ProjectId");
     public static final AttributeKey<String> IP = AttributeKey.valueOf("IP");
+    public static final AttributeKey<Boolean> JSONB = AttributeKey.valueOf("Jsonb");
+    public static final AttributeKey<Integer> GPU_INDEX = AttributeKey.valueOf("GpuIndex");
+    public static final AttributeKey<PlayerSeat> SEAT = AttributeKey.valueOf("Seat");
+
+    @Value("${signalling.selection.strategy:lru}")
+    private String selectionStrategyName;
+
+    @Resource
+    private GpuLoadSource gpuLoadSource;
+
+    @Resource
+    private SeatPolicy seatPolicy;
+
+    private StreamerSelectionStrategy selectionStrategy;
 
     // 订阅关系映射：玩家ID -> 像素流实例ID
     private final Map<ChannelId, ChannelId> subscriptionRelations = new ConcurrentHashMap<>();
@@ -47,6 +68,39 @@ public class ClientManager {
     // 所有连接的通道组
     private final ChannelGroup channels = new DefaultChannelGroup(GlobalEventExecutor.INSTANCE);
 
+    // 索引：客户端类型 -> 通道集合
+    private final Map<String, Set<Channel>> channelsByType = new ConcurrentHashMap<>();
+
+    // 索引：实例ID -> 像素流实例通道
+    private final Map<String, Channel> streamersByInsId = new ConcurrentHashMap<>();
+
+    // 索引：玩家ID -> 玩家通道
+    private final Map<String, Channel> playersByPlayerId = new ConcurrentHashMap<>();
+
+    // 索引：项目ID -> 空闲像素流实例集合（由registryLock保护）
+    private final Map<String, IdleStreamerPool> idleStreamersByProject = new ConcurrentHashMap<>();
+
+    // 索引：项目ID -> 已有玩家且仍有空余席位的像素流实例集合（由registryLock保护）
+    private final Map<String, IdleStreamerPool> openStreamersByProject = new ConcurrentHashMap<>();
+
+    // 索引：像素流实例ID -> 控制者玩家ID
+    private final Map<ChannelId, ChannelId> controllersByStreamer = new ConcurrentHashMap<>();
+
+    // 索引：像素流实例ID -> 订阅该实例的玩家集合
+    private final Map<ChannelId, Set<ChannelId>> playersByStreamer = new ConcurrentHashMap<>();
+
+    // 已被回收认领、即将关闭的像素流实例，不再放回空闲索引也不接受新玩家（由registryLock保护）
+    private final Set<ChannelId> retiringStreamers = new HashSet<>();
+
+    // 索引写入锁，保证通道增删与订阅变更对各索引的更新是原子的；读取无需加锁
+    private final Object registryLock = new Object();
+
+    @PostConstruct
+    public void init() {
+        selectionStrategy = StreamerSelectionStrategy.of(selectionStrategyName, gpuLoadSource);
+        log.info("像素流实例选择策略: {}", selectionStrategyName);
+    }
+
     /**
      * 获取指定玩家订阅的像素流实例通道
      */
@@ -63,36 +117,203 @@ public class ClientManager {
     }
 
     /**
-     * 建立订阅关系
+     * 建立订阅关系并分配席位
+     *
+     * @return 玩家在该实例上的席位类型，实例已被回收认领或席位已满时返回null且不做任何变更
      */
-    public void subscribeRelation(ChannelId playerChannelId, ChannelId streamerChannelId) {
-        subscriptionRelations.put(playerChannelId, streamerChannelId);
+    public PlayerSeat subscribeRelation(ChannelId playerChannelId, ChannelId streamerChannelId) {
+        synchronized (registryLock) {
+            if (retiringStreamers.contains(streamerChannelId)
+                    || (!streamerChannelId.equals(subscriptionRelations.get(playerChannelId))
+                    && !hasFreeSeat(streamerChannelId))) {
+                return null;
+            }
+            ChannelId previous = subscriptionRelations.put(playerChannelId, streamerChannelId);
+            if (previous != null && !previous.equals(streamerChannelId)) {
+                detachPlayer(playerChannelId, previous);
+            }
+            playersByStreamer.computeIfAbsent(streamerChannelId, k -> ConcurrentHashMap.newKeySet())
+                    .add(playerChannelId);
+
+            Channel streamer = channels.find(streamerChannelId);
+            String projectId = streamer == null ? null : getAttributeValue(streamer, PROJECT_ID);
+            PlayerSeat seat = seatPolicy.assign(projectId, controllersByStreamer.containsKey(streamerChannelId));
+            if (seat == PlayerSeat.CONTROLLER) {
+                controllersByStreamer.put(streamerChannelId, playerChannelId);
+            }
+            Channel player = channels.find(playerChannelId);
+            if (player != null) {
+                player.attr(SEAT).set(seat);
+            }
+            if (streamer != null) {
+                refreshAvailability(streamer);
+            }
+            return seat;
+        }
     }
 
     /**
      * 移除订阅关系
      */
     public void unsubscribeRelation(ChannelId playerChannelId) {
-        subscriptionRelations.remove(playerChannelId);
+        synchronized (registryLock) {
+            ChannelId streamerChannelId = subscriptionRelations.remove(playerChannelId);
+            if (streamerChannelId != null) {
+                detachPlayer(playerChannelId, streamerChannelId);
+            }
+        }
     }
 
     /**
      * 添加通道到管理器
      */
     public void addChannel(Channel channel) {
-        channels.add(channel);
+        synchronized (registryLock) {
+            channels.add(channel);
+
+            String type = getAttributeValue(channel, TYPE);
+            if (type == null) {
+                return;
+            }
+            channelsByType.computeIfAbsent(type, k -> ConcurrentHashMap.newKeySet()).add(channel);
+
+            if (isStreamer(channel)) {
+                String insId = getAttributeValue(channel, INS_ID);
+                if (insId != null) {
+                    streamersByInsId.put(insId, channel);
+                }
+                refreshAvailability(channel);
+            } else if (isPlayer(channel)) {
+                String playerId = getAttributeValue(channel, PLAYERID);
+                if (playerId != null) {
+                    playersByPlayerId.put(playerId, channel);
+                }
+            }
+        }
     }
 
     /**
      * 移除通道从管理器
      */
     public void removeChannel(Channel channel) {
-        // 清理相关的订阅关系
-        ChannelId channelId = channel.id();
-        subscriptionRelations.remove(channelId);
-        subscriptionRelations.entrySet().removeIf(entry -> entry.getValue().equals(channelId));
+        synchronized (registryLock) {
+            // 清理相关的订阅关系
+            ChannelId channelId = channel.id();
+            ChannelId streamerChannelId = subscriptionRelations.remove(channelId);
+            if (streamerChannelId != null) {
+                detachPlayer(channelId, streamerChannelId);
+            }
+
+            Set<ChannelId> players = playersByStreamer.remove(channelId);
+            if (players != null) {
+                players.forEach(subscriptionRelations::remove);
+            }
+            controllersByStreamer.remove(channelId);
 
-        channels.remove(channel);
+            String type = getAttributeValue(channel, TYPE);
+            if (type != null) {
+                Set<Channel> typed = channelsByType.get(type);
+                if (typed != null) {
+                    typed.remove(channel);
+                }
+            }
+
+            String insId = getAttributeValue(channel, INS_ID);
+            if (insId != null) {
+                streamersByInsId.remove(insId, channel);
+            }
+
+            String playerId = getAttributeValue(channel, PLAYERID);
+            if (playerId != null) {
+                playersByPlayerId.remove(playerId, channel);
+            }
+
+            removeFromPools(channel);
+            retiringStreamers.remove(channelId);
+            channels.remove(channel);
+        }
+    }
+
+    /**
+     * 认领空闲的像素流实例以便停止：实例仍在空闲索引中且没有玩家时移出索引并标记为回收中，
+     * 之后不会再分配给玩家
+     *
+     * @return 实例已不再空闲（已分配玩家或已断开）时返回false
+     */
+    public boolean claimIdleStreamer(Channel streamer) {
+        synchronized (registryLock) {
+            String projectId = getAttributeValue(streamer, PROJECT_ID);
+            IdleStreamerPool idle = projectId == null ? null : idleStreamersByProject.get(projectId);
+            if (idle == null || !idle.contains(streamer.id()) || countPlayers(streamer.id()) > 0) {
+                return false;
+            }
+            removeFromPools(streamer);
+            retiringStreamers.add(streamer.id());
+            return true;
+        }
+    }
+
+    /**
+     * 玩家连接意外断开进入宽限期：移除通道，但保留订阅关系与席位，
+     * 供玩家重连后以原通道ID恢复
+     */
+    public void suspendPlayer(Channel player) {
+        synchronized (registryLock) {
+            Set<Channel> typed = channelsByType.get(ClientType.PLAYER.getValue());
+            if (typed != null) {
+                typed.remove(player);
+            }
+            String playerId = getAttributeValue(player, PLAYERID);
+            if (playerId != null) {
+                playersByPlayerId.remove(playerId, player);
+            }
+            channels.remove(player);
+        }
+    }
+
+    /**
+     * 将宽限期中保留的订阅关系与席位转移到重连的玩家通道，并注册该通道
+     *
+     * @param previousId 断开前的玩家通道ID
+     * @param player     重连的玩家通道，已设置玩家ID属性
+     * @return 原像素流实例，实例已断开时返回空且不注册玩家
+     */
+    public Optional<Channel> resumePlayer(ChannelId previousId, Channel player) {
+        synchronized (registryLock) {
+            ChannelId streamerId = subscriptionRelations.get(previousId);
+            Channel streamer = streamerId == null ? null : channels.find(streamerId);
+            if (streamer == null) {
+                return Optional.empty();
+            }
+
+            subscriptionRelations.remove(previousId);
+            subscriptionRelations.put(player.id(), streamerId);
+            Set<ChannelId> players = playersByStreamer.computeIfAbsent(streamerId, k -> ConcurrentHashMap.newKeySet());
+            players.remove(previousId);
+            players.add(player.id());
+            PlayerSeat seat = controllersByStreamer.replace(streamerId, previousId, player.id())
+                    ? PlayerSeat.CONTROLLER
+                    : seatPolicy.assign(getAttributeValue(streamer, PROJECT_ID), true);
+            player.attr(SEAT).set(seat);
+            addChannel(player);
+            return Optional.of(streamer);
+        }
+    }
+
+    /**
+     * 宽限期结束仍未重连：释放保留的订阅关系与席位
+     *
+     * @return 原像素流实例，实例已断开时返回空
+     */
+    public Optional<Channel> releaseSuspended(ChannelId previousId) {
+        synchronized (registryLock) {
+            ChannelId streamerId = subscriptionRelations.remove(previousId);
+            if (streamerId == null) {
+                return Optional.empty();
+            }
+            detachPlayer(previousId, streamerId);
+            return Optional.ofNullable(channels.find(streamerId));
+        }
     }
 
     /**
@@ -112,10 +333,7 @@ public class ClientManager {
             return Optional.empty();
         }
 
-        return channels.stream()
-                .filter(this::isStreamer)
-                .filter(channel -> insId.equals(getAttributeValue(channel, INS_ID)))
-                .findFirst();
+        return Optional.ofNullable(streamersByInsId.get(insId));
     }
 
     /**
@@ -135,7 +353,11 @@ public class ClientManager {
      * 根据玩家ID获取玩家通道
      */
     public Optional<Channel> getPlayerByPlayerId(String playerId) {
-        return getChannelByAttribute(PLAYERID, playerId);
+        if (playerId == null) {
+            return Optional.empty();
+        }
+
+        return Optional.ofNullable(playersByPlayerId.get(playerId));
     }
 
     /**
@@ -146,22 +368,17 @@ public class ClientManager {
             return List.of();
         }
 
-        return channels.stream()
-                .filter(this::isStreamer)
-                .filter(channel -> projectId.equals(getAttributeValue(channel, PROJECT_ID)))
-                .filter(this::isIdleStreamer)
-                .map(Channel::id)
-                .collect(Collectors.toList());
+        synchronized (registryLock) {
+            IdleStreamerPool idle = idleStreamersByProject.get(projectId);
+            return idle == null ? List.of() : idle.snapshot();
+        }
     }
 
     /**
      * 获取所有像素流实例
      */
     public List<Channel> getAllStreamers() {
-
-        return channels.stream()
-                .filter(this::isStreamer)
-                .collect(Collectors.toList());
+        return getChannelsByType(ClientType.STREAMER.getValue());
     }
 
     /**
@@ -172,19 +389,24 @@ public class ClientManager {
             return List.of();
         }
 
-        return channels.stream()
-                .filter(channel -> type.equals(getAttributeValue(channel, TYPE)))
-                .collect(Collectors.toList());
+        Set<Channel> typed = channelsByType.get(type);
+        return typed == null ? List.of() : new ArrayList<>(typed);
+    }
+
+    /**
+     * 获取订阅了指定像素流实例的玩家，玩家属于其他实例时返回空
+     */
+    public Optional<Channel> getSubscribedPlayer(ChannelId streamerId, String playerId) {
+        return getPlayerByPlayerId(playerId)
+                .filter(player -> streamerId.equals(subscriptionRelations.get(player.id())));
     }
 
     /**
      * 获取指定像素流实例的所有玩家
      */
     public List<ChannelId> getPlayers(ChannelId streamerId) {
-        return subscriptionRelations.entrySet().stream()
-                .filter(entry -> Objects.equals(entry.getValue(), streamerId))
-                .map(Map.Entry::getKey)
-                .collect(Collectors.toList());
+        Set<ChannelId> players = playersByStreamer.get(streamerId);
+        return players == null ? List.of() : new ArrayList<>(players);
     }
 
     /**
@@ -193,13 +415,11 @@ public class ClientManager {
     public JSONObject getDetails() {
         JSONObject result = new JSONObject();
 
-        List<JSONObject> players = channels.stream()
-                .filter(this::isPlayer)
+        List<JSONObject> players = getChannelsByType(ClientType.PLAYER.getValue()).stream()
                 .map(this::buildPlayerDetails)
                 .collect(Collectors.toList());
 
-        List<JSONObject> streamers = channels.stream()
-                .filter(this::isStreamer)
+        List<JSONObject> streamers = getAllStreamers().stream()
                 .map(this::buildStreamerDetails)
                 .collect(Collectors.toList());
 
@@ -208,40 +428,89 @@ public class ClientManager {
         return result;
     }
 
+    /**
+     * 指定类型的在线连接数
+     */
+    public int countByType(String type) {
+        Set<Channel> typed = channelsByType.get(type);
+        return typed == null ? 0 : typed.size();
+    }
+
     /**
      * 获取连接统计信息
      */
     public JSONObject getStatistics() {
         JSONObject stats = new JSONObject();
         stats.put("totalChannels", channels.size());
-        stats.put("playerCount", getChannelsByType(ClientType.PLAYER.getValue()).size());
-        stats.put("streamerCount", getChannelsByType(ClientType.STREAMER.getValue()).size());
+        stats.put("playerCount", countByType(ClientType.PLAYER.getValue()));
+        stats.put("streamerCount", countByType(ClientType.STREAMER.getValue()));
         stats.put("subscriptionCount", subscriptionRelations.size());
         return stats;
     }
 
+    /**
+     * 为新玩家查找像素流实例：指定insid时只分配该实例，席位已满返回null；
+     * 未指定或实例不存在时按项目分配有空余席位的实例
+     */
     public Channel findStreamerForPlayer(Map<String, String> params) {
         String insId = params.get("insid");
         if (insId != null) {
-            if (getStreamerByInsId(insId).isPresent()) {
-                return getStreamerByInsId(insId).get();
+            Channel streamer = streamersByInsId.get(insId);
+            if (streamer != null) {
+                synchronized (registryLock) {
+                    return hasFreeSeat(streamer.id()) && !retiringStreamers.contains(streamer.id()) ? streamer : null;
+                }
             }
         }
 
-        String projectId = params.get("projectid");
-        if (projectId != null) {
-            return getIdleStreamers(projectId)
-                    .stream()
-                    .findFirst()
-                    .flatMap(this::getChannel)
-                    .orElse(null);
+        return findAvailableStreamer(params.get("projectid"));
+    }
+
+    /**
+     * 获取指定项目有空余席位的像素流实例：优先加入已有玩家的实例，
+     * 没有时再按选择策略分配空闲实例
+     */
+    public Channel findAvailableStreamer(String projectId) {
+        if (projectId == null) {
+            return null;
         }
+        synchronized (registryLock) {
+            IdleStreamerPool open = openStreamersByProject.get(projectId);
+            while (open != null && !open.isEmpty()) {
+                ChannelId streamerId = open.leastRecentlyUsed();
+                Channel streamer = channels.find(streamerId);
+                if (streamer != null) {
+                    return streamer;
+                }
+                open.remove(streamerId);
+            }
 
-        return null;
+            IdleStreamerPool idle = idleStreamersByProject.get(projectId);
+            while (idle != null && !idle.isEmpty()) {
+                ChannelId streamerId = selectionStrategy.select(idle);
+                Channel streamer = channels.find(streamerId);
+                if (streamer != null) {
+                    return streamer;
+                }
+                idle.remove(streamerId);
+            }
+            return null;
+        }
     }
 
     public Channel findTargetChannel(Channel channel, JSONObject message) {
+        return findTargetChannel(channel, Convert.toStr(message.get("playerId")));
+    }
+
+    /**
+     * 查找消息的转发目标，playerId仅在来源为像素流实例时使用
+     */
+    public Channel findTargetChannel(Channel channel, String playerId) {
         String channelType = getChannelType(channel.id());
+        if (channelType == null) {
+            log.error("Unknown channel type for channel {}", channel.id());
+            return null;
+        }
 
         switch (channelType) {
             case "player":
@@ -256,13 +525,12 @@ public class ClientManager {
 
             case "streamer":
                 // 如果是Streamer Channel，从消息中获取playerId并查找对应的Player
-                String playerId = Convert.toStr(message.get("playerId"));
                 if (playerId == null || playerId.isEmpty()) {
                     log.error("No playerId specified in message from streamer {}", channel.id());
                     return null;
                 }
 
-                Optional<Channel> playerOpt = getPlayerByPlayerId(playerId);
+                Optional<Channel> playerOpt = getSubscribedPlayer(channel.id(), playerId);
                 if (playerOpt.isPresent()) {
                     return playerOpt.get();
                 } else {
@@ -284,9 +552,82 @@ public class ClientManager {
         return ClientType.STREAMER.getValue().equals(getAttributeValue(channel, TYPE));
     }
 
-    private boolean isIdleStreamer(Channel channel) {
-        // 判断像素流实例是否空闲（没有玩家连接）
-        return getPlayers(channel.id()).isEmpty();
+    /**
+     * 解除玩家与像素流实例的关联，释放席位后更新实例的可用索引（需持有registryLock）
+     */
+    private void detachPlayer(ChannelId playerChannelId, ChannelId streamerChannelId) {
+        Set<ChannelId> players = playersByStreamer.get(streamerChannelId);
+        if (players == null) {
+            return;
+        }
+        players.remove(playerChannelId);
+        controllersByStreamer.remove(streamerChannelId, playerChannelId);
+        if (players.isEmpty()) {
+            playersByStreamer.remove(streamerChannelId);
+        }
+        Channel streamer = channels.find(streamerChannelId);
+        if (streamer != null && isStreamer(streamer)) {
+            refreshAvailability(streamer);
+        }
+    }
+
+    /**
+     * 实例是否还有空余席位（需持有registryLock）
+     */
+    private boolean hasFreeSeat(ChannelId streamerId) {
+        Channel streamer = channels.find(streamerId);
+        String projectId = streamer == null ? null : getAttributeValue(streamer, PROJECT_ID);
+        return countPlayers(streamerId) < seatPolicy.getMaxPlayers(projectId);
+    }
+
+    private int countPlayers(ChannelId streamerId) {
+        Set<ChannelId> players = playersByStreamer.get(streamerId);
+        return players == null ? 0 : players.size();
+    }
+
+    /**
+     * 按席位占用将实例放入空闲或有空余席位的索引，席位已满时两者都不放（需持有registryLock）
+     */
+    private void refreshAvailability(Channel streamer) {
+        String projectId = getAttributeValue(streamer, PROJECT_ID);
+        if (projectId == null) {
+            return;
+        }
+        int players = countPlayers(streamer.id());
+        removeFromPools(streamer);
+        if (retiringStreamers.contains(streamer.id())) {
+            return;
+        }
+        if (players == 0) {
+            addToPool(idleStreamersByProject, projectId, streamer);
+        } else if (players < seatPolicy.getMaxPlayers(projectId)) {
+            addToPool(openStreamersByProject, projectId, streamer);
+        }
+    }
+
+    private void addToPool(Map<String, IdleStreamerPool> pools, String projectId, Channel streamer) {
+        Integer gpuIndex = getAttributeValue(streamer, GPU_INDEX);
+        pools.computeIfAbsent(projectId, k -> new IdleStreamerPool())
+                .add(streamer.id(), gpuIndex == null ? IdleStreamerPool.UNKNOWN_GPU : gpuIndex);
+    }
+
+    private void removeFromPools(Channel streamer) {
+        String projectId = getAttributeValue(streamer, PROJECT_ID);
+        if (projectId == null) {
+            return;
+        }
+        removeFromPool(idleStreamersByProject, projectId, streamer.id());
+        removeFromPool(openStreamersByProject, projectId, streamer.id());
+    }
+
+    private void removeFromPool(Map<String, IdleStreamerPool> pools, String projectId, ChannelId streamerId) {
+        IdleStreamerPool pool = pools.get(projectId);
+        if (pool != null) {
+            pool.remove(streamerId);
+            if (pool.isEmpty()) {
+                pools.remove(projectId, pool);
+            }
+        }
     }
 
     private <T> T getAttributeValue(Channel channel, AttributeKey<T> key) {
@@ -297,6 +638,8 @@ public class ClientManager {
         JSONObject player = new JSONObject();
         player.put(CONNECTED_TIME.name(), getAttributeValue(channel, CONNECTED_TIME));
         player.put(PLAYERID.name(), getAttributeValue(channel, PLAYERID));
+        player.put(SEAT.name(), getAttributeValue(channel, SEAT));
+        player.put("RttMs", HeartbeatManager.getRttMillis(channel));
         player.put(IP.name(), getAttributeValue(channel, IP));
         return player;
     }
@@ -308,6 +651,9 @@ public class ClientManager {
         streamer.put(ONESELF.name(), getAttributeValue(channel, ONESELF));
         streamer.put(CONNECTED_TIME.name(), getAttributeValue(channel, CONNECTED_TIME));
         streamer.put(IP.name(), getAttributeValue(channel, IP));
+        streamer.put("RttMs", HeartbeatManager.getRttMillis(channel));
+        streamer.put("players", countPlayers(channel.id()));
+        streamer.put("maxPlayers", seatPolicy.getMaxPlayers(getAttributeValue(channel, PROJECT_ID)));
         return streamer;
     }
 }
\ No newline at end of file
@@ -0,0 +1,185 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import com.alibaba.fastjson2.JSON;
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONB;
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.PooledByteBufAllocator;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * @ClassName ControlMessages
+ * @Description 预编码的控制消息：固定内容只编码一次，带参数的消息通过模板直接写入缓冲区
+ * @Author MaxYun
+ * @Since 2025/9/22 15:40
+ * @Version 1.0
+ */
+final class ControlMessages {
+
+    /**
+     * 配置消息，所有连接内容相同
+     */
+    static final ByteBuf CONFIG = preEncode(buildConfig());
+
+    /**
+     * 像素流实例身份识别消息
+     */
+    static final ByteBuf IDENTIFY = preEncode("{\"type\":\"identify\"}");
+
+    /**
+     * JSONB编码的配置与身份识别消息，供使用二进制协议的像素流实例
+     */
+    static final ByteBuf CONFIG_JSONB = preEncode(JSONB.toBytes(JSON.parseObject(buildConfig())));
+
+    static final ByteBuf IDENTIFY_JSONB = preEncode(JSONB.toBytes(JSON.parseObject("{\"type\":\"identify\"}")));
+
+    static final Template PONG = new Template("{\"type\":\"pong\",\"time\":", "}");
+
+    static final Template PLAYER_CONNECTED = new Template(
+            "{\"type\":\"playerConnected\",\"playerId\":\"",
+            "\",\"dataChannel\":true,\"sfu\":false,\"sendOffer\":true}");
+
+    /**
+     * 观众席位：不建立数据通道，只接收画面
+     */
+    static final Template SPECTATOR_CONNECTED = new Template(
+            "{\"type\":\"playerConnected\",\"playerId\":\"",
+            "\",\"dataChannel\":false,\"sfu\":false,\"sendOffer\":true}");
+
+    static final Template PLAYER_DISCONNECTED = new Template(
+            "{\"type\":\"playerDisconnected\",\"playerId\":\"", "\"}");
+
+    private ControlMessages() {
+    }
+
+    private static String buildConfig() {
+        JSONObject clientConfig = new JSONObject();
+        clientConfig.put("type", "config");
+        JSONObject peerConnectionOptions = new JSONObject();
+        peerConnectionOptions.put("iceServers", new JSONArray());
+        clientConfig.put("peerConnectionOptions", peerConnectionOptions);
+        return clientConfig.toString();
+    }
+
+    /**
+     * 编码到池化直接内存，该缓冲区常驻不释放，发送时使用retainedDuplicate()
+     */
+    private static ByteBuf preEncode(String json) {
+        return preEncode(json.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static ByteBuf preEncode(byte[] bytes) {
+        return PooledByteBufAllocator.DEFAULT.directBuffer(bytes.length, bytes.length).writeBytes(bytes);
+    }
+
+    /**
+     * 单参数消息模板：前缀 + 参数 + 后缀。JSONB形式同样预先拆成参数前后两段，
+     * JSONB的值编码与所在位置无关，发送时只需编码参数本身
+     */
+    static final class Template {
+        // 定位参数在JSONB编码中位置的占位值
+        private static final String PLACEHOLDER = "${template-value}";
+
+        private final byte[] prefix;
+        private final byte[] suffix;
+        private final byte[] jsonbPrefix;
+        private final byte[] jsonbSuffix;
+
+        Template(String prefix, String suffix) {
+            this.prefix = prefix.getBytes(StandardCharsets.UTF_8);
+            this.suffix = suffix.getBytes(StandardCharsets.UTF_8);
+
+            // 参数在文本模板中已带引号时直接放入占位值，否则补上引号
+            String json = prefix.endsWith("\"")
+                    ? prefix + PLACEHOLDER + suffix
+                    : prefix + "\"" + PLACEHOLDER + "\"" + suffix;
+            byte[] encoded = JSONB.toBytes(JSON.parseObject(json));
+            byte[] placeholder = JSONB.toBytes(PLACEHOLDER);
+            int at = indexOf(encoded, placeholder);
+            if (at < 0) {
+                throw new IllegalStateException("无法预编码JSONB模板：" + json);
+            }
+            this.jsonbPrefix = Arrays.copyOfRange(encoded, 0, at);
+            this.jsonbSuffix = Arrays.copyOfRange(encoded, at + placeholder.length, encoded.length);
+        }
+
+        ByteBuf encode(ByteBufAllocator alloc, CharSequence value) {
+            ByteBuf buf = alloc.buffer(prefix.length + value.length() + suffix.length);
+            buf.writeBytes(prefix);
+            buf.writeCharSequence(value, StandardCharsets.UTF_8);
+            buf.writeBytes(suffix);
+            return buf;
+        }
+
+        /**
+         * 编码为JSONB，供使用二进制协议的像素流实例
+         */
+        ByteBuf encodeJsonb(ByteBufAllocator alloc, String value) {
+            return encodeJsonb(alloc, JSONB.toBytes(value));
+        }
+
+        ByteBuf encodeJsonb(ByteBufAllocator alloc, long value) {
+            return encodeJsonb(alloc, JSONB.toBytes(value));
+        }
+
+        private ByteBuf encodeJsonb(ByteBufAllocator alloc, byte[] value) {
+            ByteBuf buf = alloc.buffer(jsonbPrefix.length + value.length + jsonbSuffix.length);
+            buf.writeBytes(jsonbPrefix);
+            buf.writeBytes(value);
+            buf.writeBytes(jsonbSuffix);
+            return buf;
+        }
+
+        private static int indexOf(byte[] array, byte[] target) {
+            outer:
+            for (int i = 0; i <= array.length - target.length; i++) {
+                for (int j = 0; j < target.length; j++) {
+                    if (array[i + j] != target[j]) {
+                        continue outer;
+                    }
+                }
+                return i;
+            }
+            return -1;
+        }
+
+        ByteBuf encode(ByteBufAllocator alloc, long value) {
+            ByteBuf buf = alloc.buffer(prefix.length + 20 + suffix.length);
+            buf.writeBytes(prefix);
+            writeLong(buf, value);
+            buf.writeBytes(suffix);
+            return buf;
+        }
+
+        private static void writeLong(ByteBuf buf, long value) {
+            if (value == 0) {
+                buf.writeByte('0');
+                return;
+            }
+            if (value < 0) {
+                buf.writeByte('-');
+                if (value == Long.MIN_VALUE) {
+                    buf.writeCharSequence("9223372036854775808", StandardCharsets.US_ASCII);
+                    return;
+                }
+                value = -value;
+            }
+            int start = buf.writerIndex();
+            while (value > 0) {
+                buf.writeByte((int) ('0' + value % 10));
+                value /= 10;
+            }
+            // 逆序写入后原地反转
+            int end = buf.writerIndex() - 1;
+            while (start < end) {
+                byte tmp = buf.getByte(start);
+                buf.setByte(start++, buf.getByte(end));
+                buf.setByte(end--, tmp);
+            }
+        }
+    }
+}
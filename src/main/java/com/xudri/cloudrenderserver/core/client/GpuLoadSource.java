@@ -0,0 +1,24 @@
+package com.xudri.cloudrenderserver.core.client;
+
+/**
+ * @ClassName GpuLoadSource
+ * @Description GPU负载数据来源，由后台采样提供，选择实例时只读取缓存值
+ * @Author MaxYun
+ * @Since 2025/9/26 14:10
+ * @Version 1.0
+ */
+public interface GpuLoadSource {
+
+    /**
+     * 获取GPU负载，数值越小越空闲
+     *
+     * @param gpuIndex GPU序号，未知时为 {@link IdleStreamerPool#UNKNOWN_GPU}
+     */
+    double getLoad(int gpuIndex);
+
+    /**
+     * 实例被分配后调用，用于在下次采样前修正负载估计
+     */
+    default void onAssigned(int gpuIndex) {
+    }
+}
@@ -0,0 +1,120 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import io.netty.channel.ChannelId;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * @ClassName IdleStreamerPool
+ * @Description 单个项目的空闲像素流实例集合，同时维护空闲先后顺序、随机访问槽位与GPU分组，
+ * 增删与各选择策略所需的查询均为O(1)；非线程安全，由ClientManager的索引锁保护
+ * @Author MaxYun
+ * @Since 2025/9/26 14:10
+ * @Version 1.0
+ */
+public final class IdleStreamerPool {
+
+    /**
+     * 未知GPU
+     */
+    public static final int UNKNOWN_GPU = -1;
+
+    // 按进入空闲的先后排列，队首为空闲最久的实例
+    private final LinkedHashSet<ChannelId> order = new LinkedHashSet<>();
+
+    // 随机访问槽位，删除时与末尾交换
+    private final List<ChannelId> slots = new ArrayList<>();
+    private final Map<ChannelId, Integer> positions = new HashMap<>();
+
+    private final Map<ChannelId, Integer> gpuOf = new HashMap<>();
+    private final Map<Integer, LinkedHashSet<ChannelId>> byGpu = new HashMap<>();
+
+    public boolean add(ChannelId streamerId, int gpuIndex) {
+        if (positions.containsKey(streamerId)) {
+            return false;
+        }
+        order.add(streamerId);
+        positions.put(streamerId, slots.size());
+        slots.add(streamerId);
+        gpuOf.put(streamerId, gpuIndex);
+        byGpu.computeIfAbsent(gpuIndex, k -> new LinkedHashSet<>()).add(streamerId);
+        return true;
+    }
+
+    public boolean remove(ChannelId streamerId) {
+        Integer position = positions.remove(streamerId);
+        if (position == null) {
+            return false;
+        }
+        ChannelId last = slots.remove(slots.size() - 1);
+        if (position < slots.size()) {
+            slots.set(position, last);
+            positions.put(last, position);
+        }
+        order.remove(streamerId);
+
+        Integer gpuIndex = gpuOf.remove(streamerId);
+        LinkedHashSet<ChannelId> onGpu = byGpu.get(gpuIndex);
+        if (onGpu != null) {
+            onGpu.remove(streamerId);
+            if (onGpu.isEmpty()) {
+                byGpu.remove(gpuIndex);
+            }
+        }
+        return true;
+    }
+
+    public boolean contains(ChannelId streamerId) {
+        return positions.containsKey(streamerId);
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    public boolean isEmpty() {
+        return slots.isEmpty();
+    }
+
+    /**
+     * 空闲最久的实例
+     */
+    public ChannelId leastRecentlyUsed() {
+        return order.isEmpty() ? null : order.iterator().next();
+    }
+
+    /**
+     * 指定GPU上空闲最久的实例
+     */
+    public ChannelId leastRecentlyUsedOn(int gpuIndex) {
+        LinkedHashSet<ChannelId> onGpu = byGpu.get(gpuIndex);
+        return onGpu == null || onGpu.isEmpty() ? null : onGpu.iterator().next();
+    }
+
+    /**
+     * 按槽位获取实例，用于随机选择
+     */
+    public ChannelId get(int slot) {
+        return slots.get(slot);
+    }
+
+    public int gpuOf(ChannelId streamerId) {
+        return gpuOf.getOrDefault(streamerId, UNKNOWN_GPU);
+    }
+
+    /**
+     * 当前有空闲实例的GPU集合
+     */
+    public Set<Integer> gpus() {
+        return byGpu.keySet();
+    }
+
+    public List<ChannelId> snapshot() {
+        return new ArrayList<>(order);
+    }
+}
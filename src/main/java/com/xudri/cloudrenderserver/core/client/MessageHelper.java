@@ -1,16 +1,22 @@
 package com.xudri.cloudrenderserver.core.client;
 
-import com.alibaba.fastjson2.JSONArray;
 import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.common.util.LogSampler;
+import com.xudri.cloudrenderserver.core.signaling.FrameFieldScanner;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
 import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import com.xudri.cloudrenderserver.domain.enums.MessageType;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.buffer.Unpooled;
 import io.netty.channel.Channel;
 import io.netty.handler.codec.http.websocketx.BinaryWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
 import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
 import io.netty.util.Attribute;
 import io.netty.util.ReferenceCountUtil;
+import jakarta.annotation.Resource;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
 
@@ -30,6 +36,13 @@ public class MessageHelper {
     private static final String MESSAGE_SENT_FAIL = "消息发送失败 - 通道: {}, 消息类型: {}, 原因: {}";
     private static final String CHANNEL_INACTIVE = "通道未激活或为空";
     private static final String UNKNOWN_ERROR = "未知错误";
+    private static final String FORWARD_SUCCESS = "消息转发成功 - 从 {} 到 {}: {}";
+
+    // ICE候选数量大，转发日志按采样记录
+    private static final LogSampler ICE_LOG_SAMPLER = LogSampler.of(MessageType.ICE_CANDIDATE.getValue(), 64);
+
+    @Resource
+    private SignallingStats signallingStats;
 
     public boolean sendMessage(Channel channel, String message) {
         return sendMessage(channel, message, "Text");
@@ -67,14 +80,31 @@ public class MessageHelper {
             return false;
         }
 
+        // 运行时拼装的消息一律以文本帧发送，JSONB只用于预编码的控制消息
+        boolean sent = sendFrame(channel, new TextWebSocketFrame(message), messageType);
+        if (sent) {
+            log.debug(MESSAGE_SENT_SUCCESS, channel, messageType, message);
+        }
+        return sent;
+    }
+
+    /**
+     * 发送已构建好的帧，失败或通道未激活时释放帧
+     */
+    private boolean sendFrame(Channel channel, WebSocketFrame frame, String messageType) {
+        if (channel == null || !channel.isActive()) {
+            log.warn(MESSAGE_SENT_FAIL, channel, messageType, CHANNEL_INACTIVE);
+            ReferenceCountUtil.safeRelease(frame);
+            return false;
+        }
+
         try {
-            channel.writeAndFlush(new TextWebSocketFrame(message))
+            channel.writeAndFlush(frame)
                     .addListener(future -> {
                         if (!future.isSuccess()) {
                             log.warn(MESSAGE_SENT_FAIL, channel, messageType, future.cause().getMessage());
                         }
                     });
-            log.debug(MESSAGE_SENT_SUCCESS, channel, messageType, message);
             return true;
         } catch (Exception e) {
             log.error(MESSAGE_SENT_FAIL, channel, messageType, e.getMessage());
@@ -92,15 +122,163 @@ public class MessageHelper {
         }
 
         enhanceMessageForStreamer(from, to, message, fromClientType, toClientType);
+        stripMessageForPlayer(message, fromClientType, toClientType);
 
         boolean sent = sendMessage(to, message.toString(), "Forwarded");
         if (sent) {
-            log.info("消息转发成功 - 从 {} 到 {}: {}", fromClientType, toClientType, message);
+            signallingStats.frameForwarded();
+            logForwarded(fromClientType, toClientType, message.getString("type"), message);
         } else {
             log.warn("消息转发失败 - 从 {} 到 {}: {}", fromClientType, toClientType, message);
         }
     }
 
+    /**
+     * 零拷贝转发：直接复用来源帧的缓冲区，仅在玩家发往实例时在对象开头插入playerId，
+     * 在实例发往玩家时剔除playerId，其余内容以保留引用的切片传递。
+     * 转发链路对JSONB实例同样发送文本帧，不在热路径上做解析与重新编码
+     *
+     * @param from    来源通道
+     * @param to      目标通道
+     * @param content 来源帧内容，调用方仍持有其引用
+     * @param fields  帧字段扫描结果
+     */
+    public void forwardFrame(Channel from, Channel to, ByteBuf content, FrameFieldScanner.Fields fields) {
+        String fromClientType = getClientType(from);
+        String toClientType = getClientType(to);
+
+        if (fromClientType == null || toClientType == null) {
+            log.warn("消息转发失败 - 缺失客户端类型信息. 来源: {}, 目标: {}", from, to);
+            return;
+        }
+
+        ByteBuf payload;
+        if (ClientType.STREAMER.getValue().equals(toClientType) &&
+                ClientType.PLAYER.getValue().equals(fromClientType)) {
+            String playerId = getPlayerId(from);
+            if (playerId == null) {
+                log.warn("Player客户端缺失playerId: {}", from);
+                payload = content.retainedDuplicate();
+            } else {
+                payload = splicePlayerId(to, content, fields, playerId);
+            }
+        } else if (ClientType.PLAYER.getValue().equals(toClientType) && fields.hasPlayerId()) {
+            payload = stripPlayerId(to, content, fields);
+        } else {
+            payload = content.retainedDuplicate();
+        }
+
+        boolean sent = sendFrame(to, new TextWebSocketFrame(payload), "Forwarded");
+        if (sent) {
+            signallingStats.frameForwarded();
+            logForwarded(fromClientType, toClientType, fields.getType(), fields.getType());
+        } else {
+            log.warn("消息转发失败 - 从 {} 到 {}: {}", fromClientType, toClientType, fields.getType());
+        }
+    }
+
+    /**
+     * 转发由JSONB帧转码得到的文本，内容已去掉playerId，只用于实例发往玩家
+     *
+     * @param from 来源通道
+     * @param to   目标通道
+     * @param json 转码后的UTF-8 JSON文本
+     * @param type 消息类型
+     */
+    public void forwardTranscoded(Channel from, Channel to, byte[] json, String type) {
+        String fromClientType = getClientType(from);
+        String toClientType = getClientType(to);
+
+        if (fromClientType == null || toClientType == null) {
+            log.warn("消息转发失败 - 缺失客户端类型信息. 来源: {}, 目标: {}", from, to);
+            return;
+        }
+
+        boolean sent = sendFrame(to, new TextWebSocketFrame(Unpooled.wrappedBuffer(json)), "Forwarded");
+        if (sent) {
+            signallingStats.frameForwarded();
+            logForwarded(fromClientType, toClientType, type, type);
+        } else {
+            log.warn("消息转发失败 - 从 {} 到 {}: {}", fromClientType, toClientType, type);
+        }
+    }
+
+    private ByteBuf splicePlayerId(Channel to, ByteBuf content, FrameFieldScanner.Fields fields, String playerId) {
+        int splitAt = fields.getObjectStart() + 1;
+        ByteBuf member = to.alloc().buffer(playerId.length() + 16);
+        member.writeCharSequence("\"playerId\":\"", StandardCharsets.US_ASCII);
+        member.writeCharSequence(playerId, StandardCharsets.UTF_8);
+        member.writeByte('"');
+        if (fields.getType() != null) {
+            // 对象非空，插入的成员之后需要逗号
+            member.writeByte(',');
+        }
+
+        CompositeByteBuf composite = to.alloc().compositeBuffer(3);
+        composite.addComponent(true, content.retainedSlice(content.readerIndex(), splitAt - content.readerIndex()));
+        composite.addComponent(true, member);
+        composite.addComponent(true, content.retainedSlice(splitAt, content.writerIndex() - splitAt));
+        return composite;
+    }
+
+    private ByteBuf stripPlayerId(Channel to, ByteBuf content, FrameFieldScanner.Fields fields) {
+        int cutStart = cutStart(fields);
+        int cutEnd = cutEnd(fields);
+
+        CompositeByteBuf composite = to.alloc().compositeBuffer(2);
+        composite.addComponent(true, content.retainedSlice(content.readerIndex(), cutStart - content.readerIndex()));
+        composite.addComponent(true, content.retainedSlice(cutEnd, content.writerIndex() - cutEnd));
+        return composite;
+    }
+
+    /**
+     * 实例发往玩家的原始帧剔除playerId后的文本，与forwardFrame下发给玩家的内容一致，供宽限期缓存使用
+     */
+    public static String stripPlayerIdText(ByteBuf content, FrameFieldScanner.Fields fields) {
+        if (!fields.hasPlayerId()) {
+            return content.toString(StandardCharsets.UTF_8);
+        }
+        int cutStart = cutStart(fields);
+        int cutEnd = cutEnd(fields);
+        return content.toString(content.readerIndex(), cutStart - content.readerIndex(), StandardCharsets.UTF_8)
+                + content.toString(cutEnd, content.writerIndex() - cutEnd, StandardCharsets.UTF_8);
+    }
+
+    // 剔除playerId成员时连同一侧的逗号一起去掉，保持JSON合法
+    private static int cutStart(FrameFieldScanner.Fields fields) {
+        if (fields.getPlayerIdFollowingComma() < 0 && fields.getPlayerIdPrecedingComma() >= 0) {
+            return fields.getPlayerIdPrecedingComma();
+        }
+        return fields.getPlayerIdMemberStart();
+    }
+
+    private static int cutEnd(FrameFieldScanner.Fields fields) {
+        if (fields.getPlayerIdFollowingComma() >= 0) {
+            return fields.getPlayerIdFollowingComma() + 1;
+        }
+        return fields.getPlayerIdMemberEnd();
+    }
+
+    /**
+     * 记录转发日志：仅DEBUG级别开启时记录，ICE候选按采样记录
+     */
+    private void logForwarded(String fromClientType, String toClientType, String type, Object content) {
+        if (!log.isDebugEnabled()) {
+            return;
+        }
+        if (MessageType.ICE_CANDIDATE.getValue().equals(type) && !ICE_LOG_SAMPLER.sample()) {
+            return;
+        }
+        log.debug(FORWARD_SUCCESS, fromClientType, toClientType, content);
+    }
+
+    /**
+     * 通道是否使用JSONB二进制协议
+     */
+    public static boolean usesJsonb(Channel channel) {
+        return channel != null && Boolean.TRUE.equals(channel.attr(ClientManager.JSONB).get());
+    }
+
     private String getClientType(Channel channel) {
         if (channel == null) return null;
         Attribute<String> attr = channel.attr(ClientManager.TYPE);
@@ -120,6 +298,16 @@ public class MessageHelper {
         }
     }
 
+    /**
+     * 实例发往玩家的消息去掉playerId，与零拷贝转发路径保持一致
+     */
+    private void stripMessageForPlayer(JSONObject message, String fromClientType, String toClientType) {
+        if (ClientType.PLAYER.getValue().equals(toClientType) &&
+                ClientType.STREAMER.getValue().equals(fromClientType)) {
+            message.remove("playerId");
+        }
+    }
+
     private String getPlayerId(Channel channel) {
         if (channel == null) return null;
         Attribute<String> attr = channel.attr(ClientManager.PLAYERID);
@@ -127,49 +315,63 @@ public class MessageHelper {
     }
 
     public void sendConfigMessage(Channel channel) {
-        JSONObject clientConfig = new JSONObject();
-        clientConfig.put("type", "config");
-        JSONObject peerConnectionOptions = new JSONObject();
-        peerConnectionOptions.put("iceServers", new JSONArray());
-        clientConfig.put("peerConnectionOptions", peerConnectionOptions);
-        sendMessage(channel, clientConfig.toString(), "Config");
+        sendEncoded(channel, usesJsonb(channel) ? ControlMessages.CONFIG_JSONB : ControlMessages.CONFIG, "Config");
     }
 
-    public void subscribeToStreamer(String playerId, Channel streamer) {
-        JSONObject message = new JSONObject();
-        message.put("type", "playerConnected");
-        message.put("playerId", playerId);
-        message.put("dataChannel", true);
-        message.put("sfu", false);
-        message.put("sendOffer", true);
-        sendMessage(streamer, message.toString(), "Subscription");
+    public void subscribeToStreamer(String playerId, Channel streamer, PlayerSeat seat) {
+        ControlMessages.Template template = seat.hasDataChannel()
+                ? ControlMessages.PLAYER_CONNECTED
+                : ControlMessages.SPECTATOR_CONNECTED;
+        sendTemplate(streamer, template, playerId, "Subscription");
     }
 
     public void sendIdentifyMessage(Channel channel) {
-        JSONObject identify = new JSONObject();
-        identify.put("type", "identify");
-        sendMessage(channel, identify.toString(), "Identify");
+        sendEncoded(channel, usesJsonb(channel) ? ControlMessages.IDENTIFY_JSONB : ControlMessages.IDENTIFY, "Identify");
     }
 
     public void sendPong(Channel channel) {
-        JSONObject msg = new JSONObject();
-        msg.put("type", "pong");
-        msg.put("time", System.currentTimeMillis());
-        sendMessage(channel, msg.toString(), "Pong");
+        sendTemplate(channel, ControlMessages.PONG, System.currentTimeMillis(), "Pong");
     }
 
-    public void sendPing(Channel channel) {
-        JSONObject msg = new JSONObject();
-        msg.put("type", "ping");
-        msg.put("time", System.currentTimeMillis());
-        sendMessage(channel, msg.toString(), "Ping");
+    public void unsubscribeStreamer(Channel streamer, String playerId) {
+        sendTemplate(streamer, ControlMessages.PLAYER_DISCONNECTED, playerId, "Unsubscribe");
     }
 
-    public void unsubscribeStreamer(Channel streamer, String playerId) {
-        JSONObject message = new JSONObject();
-        message.put("type", "playerDisconnected");
-        message.put("playerId", playerId);
-        sendMessage(streamer, message.toString(), "Unsubscribe");
+    /**
+     * 发送预编码消息，共享缓冲区以retainedDuplicate()方式发送
+     */
+    private void sendEncoded(Channel channel, ByteBuf encoded, String messageType) {
+        ByteBuf payload = encoded.retainedDuplicate();
+        WebSocketFrame frame = usesJsonb(channel) ? new BinaryWebSocketFrame(payload) : new TextWebSocketFrame(payload);
+        if (sendFrame(channel, frame, messageType)) {
+            log.debug(MESSAGE_SENT_SUCCESS, channel, messageType, "pre-encoded");
+        }
+    }
+
+    private void sendTemplate(Channel channel, ControlMessages.Template template, CharSequence value, String messageType) {
+        if (channel == null || !channel.isActive()) {
+            log.warn(MESSAGE_SENT_FAIL, channel, messageType, CHANNEL_INACTIVE);
+            return;
+        }
+        WebSocketFrame frame = usesJsonb(channel)
+                ? new BinaryWebSocketFrame(template.encodeJsonb(channel.alloc(), value.toString()))
+                : new TextWebSocketFrame(template.encode(channel.alloc(), value));
+        if (sendFrame(channel, frame, messageType)) {
+            log.debug(MESSAGE_SENT_SUCCESS, channel, messageType, value);
+        }
+    }
+
+    private void sendTemplate(Channel channel, ControlMessages.Template template, long value, String messageType) {
+        if (channel == null || !channel.isActive()) {
+            log.warn(MESSAGE_SENT_FAIL, channel, messageType, CHANNEL_INACTIVE);
+            return;
+        }
+        WebSocketFrame frame = usesJsonb(channel)
+                ? new BinaryWebSocketFrame(template.encodeJsonb(channel.alloc(), value))
+                : new TextWebSocketFrame(template.encode(channel.alloc(), value));
+        if (sendFrame(channel, frame, messageType)) {
+            log.debug(MESSAGE_SENT_SUCCESS, channel, messageType, value);
+        }
     }
 
     public void disconnectPlayer(Channel player, JSONObject message) {
@@ -180,6 +382,7 @@ public class MessageHelper {
 
         try {
             String reason = message != null ? message.getString("reason") : UNKNOWN_ERROR;
+            player.attr(PlayerSessionRegistry.CLOSING).set(true);
             player.writeAndFlush(new CloseWebSocketFrame(1011, reason))
                     .addListener(future -> {
                         if (future.isSuccess()) {
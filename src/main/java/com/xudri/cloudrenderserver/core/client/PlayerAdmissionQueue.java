@@ -0,0 +1,359 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import com.xudri.cloudrenderserver.core.signaling.SignallingAuthenticator;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import jakarta.annotation.Resource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+
+/**
+ * @ClassName PlayerAdmissionQueue
+ * @Description 玩家准入队列：项目没有空闲像素流实例时保持玩家连接并排队，
+ * 实例空闲后按优先级先进先出分配，每个项目一把锁，分配操作O(1)。
+ * 优先级只取自已校验令牌中的角色，客户端无法自行指定
+ * @Author MaxYun
+ * @Since 2025/9/25 15:30
+ * @Version 1.0
+ */
+@Component
+@Log4j2
+public class PlayerAdmissionQueue {
+
+    private static final AttributeKey<Ticket> TICKET = AttributeKey.valueOf("AdmissionTicket");
+
+    // 估算等待时间的平滑系数
+    private static final double EWMA_ALPHA = 0.2;
+
+    @Value("${signalling.admission.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.admission.priority-levels:2}")
+    private int priorityLevels;
+
+    @Value("${signalling.admission.max-queue-size:1000}")
+    private int maxQueueSize;
+
+    // 按优先级从低到高排列的角色，持有第i个角色的玩家优先级为i+1
+    @Value("${signalling.admission.priority-roles:ADMIN}")
+    private List<String> priorityRoles;
+
+    @Resource
+    private ClientManager clientManager;
+
+    @Resource
+    private MessageHelper messageHelper;
+
+    private final Map<String, ProjectQueue> queues = new ConcurrentHashMap<>();
+
+    // 入队时的队列深度
+    private final ValueHistogram queueDepth = new ValueHistogram();
+
+    // 排队玩家从入队到分配实例的等待时间（毫秒）
+    private final ValueHistogram waitTimeMillis = new ValueHistogram();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 玩家入队，优先级按鉴权时校验的角色确定，未开启鉴权时所有玩家同级
+     *
+     * @param player    玩家通道
+     * @param projectId 项目ID
+     * @return 队列已满时返回false
+     */
+    public boolean enqueue(Channel player, String projectId) {
+        ProjectQueue queue = queues.computeIfAbsent(projectId, k -> new ProjectQueue(priorityLevels));
+        int level = Math.min(priorityLevels - 1, priorityOf(player));
+        synchronized (queue) {
+            if (queue.size >= maxQueueSize) {
+                return false;
+            }
+            Ticket ticket = new Ticket(player, projectId, level, System.nanoTime());
+            player.attr(TICKET).set(ticket);
+            queue.levels.get(level).addLast(ticket);
+            queue.size++;
+            queueDepth.record(queue.size);
+        }
+        return true;
+    }
+
+    /**
+     * 玩家持有的最高优先级角色对应的优先级，没有鉴权信息时为0
+     */
+    private int priorityOf(Channel player) {
+        SignallingAuthenticator.SignallingPrincipal principal = player.attr(SignallingAuthenticator.PRINCIPAL).get();
+        if (principal == null) {
+            return 0;
+        }
+        for (int i = priorityRoles.size() - 1; i >= 0; i--) {
+            if (principal.hasRole(priorityRoles.get(i).trim())) {
+                return i + 1;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 玩家断开时取消排队，队列中的条目延迟到出队或状态广播时清理
+     */
+    public void cancel(Channel player) {
+        Ticket ticket = player.attr(TICKET).getAndSet(null);
+        if (ticket == null) {
+            return;
+        }
+        ProjectQueue queue = queues.get(ticket.projectId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            if (!ticket.cancelled) {
+                ticket.cancelled = true;
+                queue.size--;
+            }
+        }
+    }
+
+    /**
+     * 获取项目当前排队人数
+     */
+    public int getQueuedCount(String projectId) {
+        ProjectQueue queue = queues.get(projectId);
+        if (queue == null) {
+            return 0;
+        }
+        synchronized (queue) {
+            return queue.size;
+        }
+    }
+
+    /**
+     * 获取所有项目的排队总人数
+     */
+    public int getTotalQueuedCount() {
+        int total = 0;
+        for (ProjectQueue queue : queues.values()) {
+            synchronized (queue) {
+                total += queue.size;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 玩家是否正在排队
+     */
+    public boolean isQueued(Channel player) {
+        return player.attr(TICKET).get() != null;
+    }
+
+    /**
+     * 将项目有空余席位的像素流实例依次分配给排队玩家
+     *
+     * @param projectId 项目ID
+     * @param assigner  建立玩家与实例连接，在项目锁内调用
+     */
+    public void admit(String projectId, BiConsumer<Channel, Channel> assigner) {
+        if (projectId == null) {
+            return;
+        }
+        ProjectQueue queue = queues.get(projectId);
+        if (queue == null) {
+            return;
+        }
+        synchronized (queue) {
+            while (queue.size > 0) {
+                Channel streamer = clientManager.findAvailableStreamer(projectId);
+                if (streamer == null) {
+                    return;
+                }
+                Ticket ticket = queue.poll();
+                if (ticket == null) {
+                    return;
+                }
+                ticket.player.attr(TICKET).set(null);
+                if (!ticket.player.isActive()) {
+                    continue;
+                }
+
+                long now = System.nanoTime();
+                waitTimeMillis.record(TimeUnit.NANOSECONDS.toMillis(now - ticket.enqueuedNanos));
+                queue.recordAdmission(now);
+                assigner.accept(ticket.player, streamer);
+            }
+        }
+    }
+
+    /**
+     * 向排队玩家发送队列位置与预计等待时间，同时清理已取消的条目
+     */
+    @Scheduled(fixedRateString = "${signalling.admission.status-interval-ms:5000}")
+    public void broadcastStatus() {
+        try {
+            queues.forEach((projectId, queue) -> {
+                synchronized (queue) {
+                    int position = 0;
+                    for (int level = queue.levels.size() - 1; level >= 0; level--) {
+                        queue.levels.get(level).removeIf(ticket -> ticket.cancelled);
+                        for (Ticket ticket : queue.levels.get(level)) {
+                            sendStatus(ticket.player, ++position, queue.estimateWaitMillis(position));
+                        }
+                    }
+                }
+            });
+        } catch (Exception e) {
+            log.error("Error in admission status broadcast", e);
+        }
+    }
+
+    /**
+     * 发送当前排队位置，入队后立即调用
+     */
+    public void sendInitialStatus(Channel player) {
+        Ticket ticket = player.attr(TICKET).get();
+        if (ticket == null) {
+            return;
+        }
+        ProjectQueue queue = queues.get(ticket.projectId);
+        if (queue == null) {
+            return;
+        }
+        int position;
+        long estimatedWait;
+        synchronized (queue) {
+            position = queue.positionOf(ticket);
+            if (position < 0) {
+                return;
+            }
+            estimatedWait = queue.estimateWaitMillis(position);
+        }
+        sendStatus(player, position, estimatedWait);
+    }
+
+    private void sendStatus(Channel player, int position, long estimatedWaitMillis) {
+        JSONObject status = new JSONObject();
+        status.put("type", "queueStatus");
+        status.put("position", position);
+        status.put("estimatedWaitMs", estimatedWaitMillis);
+        messageHelper.sendMessage(player, status.toString());
+    }
+
+    /**
+     * 获取队列统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        JSONObject depths = new JSONObject();
+        queues.forEach((projectId, queue) -> depths.put(projectId, queue.size));
+        stats.put("queued", depths);
+        stats.put("queueDepth", queueDepth.toJson());
+        stats.put("waitTimeMillis", waitTimeMillis.toJson());
+        return stats;
+    }
+
+    /**
+     * 单个项目的队列，按优先级分层，每层先进先出；所有字段由队列对象锁保护
+     */
+    private static final class ProjectQueue {
+        private final List<ArrayDeque<Ticket>> levels;
+        private int size;
+        private long lastAdmissionNanos;
+        private double admissionIntervalMillis = -1;
+
+        ProjectQueue(int priorityLevels) {
+            levels = new ArrayList<>(Math.max(1, priorityLevels));
+            for (int i = 0; i < Math.max(1, priorityLevels); i++) {
+                levels.add(new ArrayDeque<>());
+            }
+        }
+
+        /**
+         * 条目在队列中的位置（从1开始）：更高优先级层的全部有效条目加上本层排在它之前的有效条目，
+         * 条目已出队或取消时返回-1
+         */
+        int positionOf(Ticket ticket) {
+            if (ticket.cancelled) {
+                return -1;
+            }
+            int position = 0;
+            for (int level = levels.size() - 1; level > ticket.level; level--) {
+                for (Ticket other : levels.get(level)) {
+                    if (!other.cancelled) {
+                        position++;
+                    }
+                }
+            }
+            for (Ticket other : levels.get(ticket.level)) {
+                if (!other.cancelled) {
+                    position++;
+                }
+                if (other == ticket) {
+                    return position;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * 取出最高优先级的下一个有效条目，跳过已取消的条目
+         */
+        Ticket poll() {
+            for (int level = levels.size() - 1; level >= 0; level--) {
+                Ticket ticket;
+                while ((ticket = levels.get(level).pollFirst()) != null) {
+                    if (!ticket.cancelled) {
+                        ticket.cancelled = true;
+                        size--;
+                        return ticket;
+                    }
+                }
+            }
+            return null;
+        }
+
+        void recordAdmission(long now) {
+            if (lastAdmissionNanos != 0) {
+                double interval = TimeUnit.NANOSECONDS.toMillis(now - lastAdmissionNanos);
+                admissionIntervalMillis = admissionIntervalMillis < 0
+                        ? interval
+                        : EWMA_ALPHA * interval + (1 - EWMA_ALPHA) * admissionIntervalMillis;
+            }
+            lastAdmissionNanos = now;
+        }
+
+        /**
+         * 按近期分配间隔估算等待时间，尚无数据时返回-1
+         */
+        long estimateWaitMillis(int position) {
+            return admissionIntervalMillis < 0 ? -1 : Math.round(admissionIntervalMillis * position);
+        }
+    }
+
+    private static final class Ticket {
+        private final Channel player;
+        private final String projectId;
+        private final int level;
+        private final long enqueuedNanos;
+        private boolean cancelled;
+
+        Ticket(Channel player, String projectId, int level, long enqueuedNanos) {
+            this.player = player;
+            this.projectId = projectId;
+            this.level = level;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+}
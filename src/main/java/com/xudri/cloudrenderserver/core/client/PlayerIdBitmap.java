@@ -0,0 +1,170 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName PlayerIdBitmap
+ * @Description 固定容量的无锁位图ID分配器：每个ID占一位，以CAS按字认领，总是分配最小的空闲ID；
+ * 同时记录每个ID的持有通道，释放时校验持有者，重复释放或释放他人的ID会被拒绝
+ * @Author MaxYun
+ * @Since 2025/9/27 14:30
+ * @Version 1.0
+ */
+public final class PlayerIdBitmap {
+
+    private static final int WORD_BITS = Long.SIZE;
+
+    private final int base;
+    private final int capacity;
+    private final AtomicLongArray words;
+    private final AtomicReferenceArray<Channel> owners;
+
+    // 该下标之前的字均已占满，只作为扫描起点的下界
+    private final AtomicInteger firstFreeWord = new AtomicInteger();
+    private final AtomicInteger allocated = new AtomicInteger();
+    private final LongAdder rejectedReleases = new LongAdder();
+
+    /**
+     * @param base     最小ID
+     * @param capacity ID数量
+     */
+    public PlayerIdBitmap(int base, int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be positive");
+        }
+        this.base = base;
+        this.capacity = capacity;
+        int wordCount = (capacity + WORD_BITS - 1) / WORD_BITS;
+        this.words = new AtomicLongArray(wordCount);
+        this.owners = new AtomicReferenceArray<>(capacity);
+
+        int tail = capacity % WORD_BITS;
+        if (tail != 0) {
+            // 末字中超出容量的位永久占用
+            words.set(wordCount - 1, -1L << tail);
+        }
+    }
+
+    /**
+     * 分配最小的空闲ID
+     *
+     * @param owner 持有该ID的通道
+     * @return ID，已分配完时返回-1
+     */
+    public int acquire(Channel owner) {
+        int id = acquireFrom(firstFreeWord.get(), owner);
+        if (id < 0) {
+            // 下界可能因并发释放而偏高，从头再扫描一次
+            id = acquireFrom(0, owner);
+        }
+        return id;
+    }
+
+    private int acquireFrom(int startWord, Channel owner) {
+        for (int w = startWord; w < words.length(); w++) {
+            long word = words.get(w);
+            while (word != -1L) {
+                int bit = Long.numberOfTrailingZeros(~word);
+                long claimed = word | (1L << bit);
+                if (words.compareAndSet(w, word, claimed)) {
+                    int index = w * WORD_BITS + bit;
+                    owners.set(index, owner);
+                    allocated.incrementAndGet();
+                    if (claimed == -1L) {
+                        advanceFirstFreeWord(w);
+                    }
+                    return base + index;
+                }
+                word = words.get(w);
+            }
+        }
+        return -1;
+    }
+
+    private void advanceFirstFreeWord(int w) {
+        if (firstFreeWord.compareAndSet(w, w + 1) && words.get(w) != -1L) {
+            // 推进后该字又有位被释放，回退下界
+            firstFreeWord.accumulateAndGet(w, Math::min);
+        }
+    }
+
+    /**
+     * 释放ID，仅当ID当前由指定通道持有时生效
+     *
+     * @return 重复释放或持有者不符时返回false
+     */
+    public boolean release(int id, ChannelId owner) {
+        int index = indexOf(id);
+        Channel current = owners.get(index);
+        if (current == null || !current.id().equals(owner) || !owners.compareAndSet(index, current, null)) {
+            rejectedReleases.increment();
+            return false;
+        }
+
+        int w = index / WORD_BITS;
+        long mask = 1L << (index % WORD_BITS);
+        long word;
+        do {
+            word = words.get(w);
+        } while (!words.compareAndSet(w, word, word & ~mask));
+        allocated.decrementAndGet();
+        firstFreeWord.accumulateAndGet(w, Math::min);
+        return true;
+    }
+
+    /**
+     * 将ID的持有者从旧通道转移到新通道，用于断线重连
+     *
+     * @return 持有者不符时返回false
+     */
+    public boolean transfer(int id, ChannelId from, Channel to) {
+        int index = indexOf(id);
+        Channel current = owners.get(index);
+        return current != null && current.id().equals(from) && owners.compareAndSet(index, current, to);
+    }
+
+    /**
+     * 获取ID的持有通道，未分配或正在分配时返回null
+     */
+    public Channel ownerOf(int id) {
+        return owners.get(indexOf(id));
+    }
+
+    /**
+     * ID是否已分配
+     */
+    public boolean isAllocated(int id) {
+        int index = indexOf(id);
+        return (words.get(index / WORD_BITS) & (1L << (index % WORD_BITS))) != 0;
+    }
+
+    public int getBase() {
+        return base;
+    }
+
+    public int getCapacity() {
+        return capacity;
+    }
+
+    public int getAllocated() {
+        return allocated.get();
+    }
+
+    public long getRejectedReleases() {
+        return rejectedReleases.sum();
+    }
+
+    private int indexOf(int id) {
+        int index = id - base;
+        if (index < 0 || index >= capacity) {
+            throw new IllegalArgumentException("Player ID must be between " + base + " and " + (base + capacity - 1));
+        }
+        return index;
+    }
+}
@@ -1,53 +1,138 @@
 package com.xudri.cloudrenderserver.core.client;
 
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
-import java.util.Queue;
-import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * @ClassName PlayerIdPool
- * @Description 号码池子
+ * @Description 号码池子：固定容量的位图分配，优先复用最小的空闲号码，
+ * 校验释放者以拒绝重复释放，并定期报告持有通道已关闭却未释放的号码
  * @Author MaxYun
  * @Since 2025/9/15 18:25
  * @Version 1.0
  */
-
+@Log4j2
 @Component
 public class PlayerIdPool {
-    private final AtomicInteger nextNumber = new AtomicInteger(101);
-    private final Queue<Integer> availableNumbers = new ConcurrentLinkedQueue<>();
-
-    public int getPlayerId() {
-        // Try to get a recycled ID first
-        Integer recycledId = availableNumbers.poll();
-        if (recycledId != null) {
-            return recycledId;
-        }
-        return nextNumber.getAndIncrement();
+
+    private static final int MIN_PLAYER_ID = 101;
+
+    @Value("${signalling.player-id.capacity:65536}")
+    private int capacity;
+
+    @Resource
+    private PlayerSessionRegistry playerSessionRegistry;
+
+    private PlayerIdBitmap bitmap;
+
+    // 上一次检查时的疑似泄漏号码及其持有通道，连续两次检查仍未释放才报告
+    private Map<Integer, Channel> leakSuspects = new HashMap<>();
+
+    private volatile List<Integer> leakedIds = List.of();
+
+    @PostConstruct
+    public void init() {
+        bitmap = new PlayerIdBitmap(MIN_PLAYER_ID, capacity);
     }
 
-    public void releasePlayerId(int id) {
-        if (id < 101) {
-            throw new IllegalArgumentException("Player ID must be at least 101");
+    /**
+     * 为玩家通道分配号码
+     *
+     * @throws IllegalStateException 号码已分配完
+     */
+    public int getPlayerId(Channel owner) {
+        int id = bitmap.acquire(owner);
+        if (id < 0) {
+            throw new IllegalStateException("Player ID pool exhausted, capacity " + capacity);
         }
-        availableNumbers.offer(id);
+        return id;
     }
 
-    public void releasePlayerId(String id) {
+    /**
+     * 释放号码，仅当号码由该通道持有时生效
+     *
+     * @return 重复释放或持有者不符时返回false
+     */
+    public boolean releasePlayerId(String id, ChannelId owner) {
+        int playerId;
         try {
-            int playerId = Integer.parseInt(id);
-            if (playerId < 101) {
-                throw new IllegalArgumentException("Player ID must be at least 101");
-            }
-            availableNumbers.offer(playerId);
+            playerId = Integer.parseInt(id);
         } catch (NumberFormatException e) {
             throw new IllegalArgumentException("Player ID must be a valid integer");
         }
+        if (!bitmap.release(playerId, owner)) {
+            log.error("玩家号码 {} 重复释放或持有者不符，持有通道: {}, 释放通道: {}",
+                    playerId, bitmap.ownerOf(playerId), owner);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 断线重连后将号码转移到新通道
+     */
+    public boolean transferPlayerId(String id, ChannelId from, Channel to) {
+        int playerId = Integer.parseInt(id);
+        if (!bitmap.transfer(playerId, from, to)) {
+            log.error("玩家号码 {} 转移失败，持有通道: {}, 期望: {}", playerId, bitmap.ownerOf(playerId), from);
+            return false;
+        }
+        return true;
     }
 
     public int getAvailableIdsCount() {
-        return availableNumbers.size();
+        return bitmap.getCapacity() - bitmap.getAllocated();
+    }
+
+    /**
+     * 检查持有通道已关闭但号码未释放的泄漏，宽限期中的会话不算泄漏
+     */
+    @Scheduled(fixedRateString = "${signalling.player-id.leak-check-interval-ms:60000}")
+    public synchronized void detectLeaks() {
+        Map<Integer, Channel> suspects = new HashMap<>();
+        List<Integer> leaked = new ArrayList<>();
+        int last = bitmap.getBase() + bitmap.getCapacity();
+        for (int id = bitmap.getBase(); id < last; id++) {
+            if (!bitmap.isAllocated(id)) {
+                continue;
+            }
+            Channel owner = bitmap.ownerOf(id);
+            if (owner == null || owner.isActive() || playerSessionRegistry.isSuspended(String.valueOf(id))) {
+                continue;
+            }
+            suspects.put(id, owner);
+            if (leakSuspects.get(id) == owner) {
+                leaked.add(id);
+            }
+        }
+        leakSuspects = suspects;
+        leakedIds = leaked;
+        if (!leaked.isEmpty()) {
+            log.warn("检测到 {} 个玩家号码的通道已关闭但未释放: {}", leaked.size(), leaked);
+        }
+    }
+
+    /**
+     * 获取号码池统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("capacity", bitmap.getCapacity());
+        stats.put("allocated", bitmap.getAllocated());
+        stats.put("rejectedReleases", bitmap.getRejectedReleases());
+        stats.put("leaked", leakedIds);
+        return stats;
     }
-}
\ No newline at end of file
+}
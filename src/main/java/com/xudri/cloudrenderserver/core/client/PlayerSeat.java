@@ -0,0 +1,33 @@
+package com.xudri.cloudrenderserver.core.client;
+
+/**
+ * @ClassName PlayerSeat
+ * @Description 玩家在像素流实例上占用的席位类型
+ * @Author MaxYun
+ * @Since 2025/9/26 17:20
+ * @Version 1.0
+ */
+public enum PlayerSeat {
+    /**
+     * 控制者，拥有数据通道可发送输入
+     */
+    CONTROLLER(true),
+    /**
+     * 平等模式下的玩家，均拥有数据通道
+     */
+    PLAYER(true),
+    /**
+     * 观众，仅接收画面
+     */
+    SPECTATOR(false);
+
+    private final boolean dataChannel;
+
+    PlayerSeat(boolean dataChannel) {
+        this.dataChannel = dataChannel;
+    }
+
+    public boolean hasDataChannel() {
+        return dataChannel;
+    }
+}
@@ -0,0 +1,392 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import io.netty.util.AttributeKey;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.security.SecureRandom;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName PlayerSessionRegistry
+ * @Description 玩家可恢复会话：连接建立时签发会话令牌，连接意外断开后在宽限期内保留实例席位与玩家ID，
+ * 并缓存实例在此期间发给玩家的信令消息，玩家携带令牌重连后在原实例上恢复
+ * @Author MaxYun
+ * @Since 2025/9/27 10:10
+ * @Version 1.0
+ */
+@Component
+@Log4j2
+public class PlayerSessionRegistry {
+
+    /**
+     * 玩家通道上的会话
+     */
+    public static final AttributeKey<Session> SESSION = AttributeKey.valueOf("PlayerSession");
+
+    /**
+     * 客户端或服务端已发出关闭帧，属于主动断开，不进入宽限期
+     */
+    public static final AttributeKey<Boolean> CLOSING = AttributeKey.valueOf("Closing");
+
+    private static final SecureRandom TOKEN_RANDOM = new SecureRandom();
+
+    @Value("${signalling.resume.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.resume.grace-ms:15000}")
+    private long graceMillis;
+
+    @Value("${signalling.resume.replay-buffer-size:32}")
+    private int replayBufferSize;
+
+    // 会话令牌 -> 会话
+    private final Map<String, Session> sessionsByToken = new ConcurrentHashMap<>();
+
+    // 玩家ID -> 宽限期中的会话，供缓存实例发往该玩家的消息
+    private final Map<String, Session> suspendedByPlayerId = new ConcurrentHashMap<>();
+
+    // 会话过期后释放玩家ID与实例席位
+    private volatile Consumer<Session> expirationListener = session -> {
+    };
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public long getGraceMillis() {
+        return graceMillis;
+    }
+
+    public void setExpirationListener(Consumer<Session> expirationListener) {
+        this.expirationListener = expirationListener;
+    }
+
+    /**
+     * 为已分配实例的玩家签发会话令牌
+     */
+    public Session open(Channel player, String playerId, String projectId) {
+        if (!enabled) {
+            return null;
+        }
+        Session session = new Session(newToken(), playerId, projectId, replayBufferSize);
+        session.channelId = player.id();
+        player.attr(SESSION).set(session);
+        sessionsByToken.put(session.token, session);
+        return session;
+    }
+
+    /**
+     * 玩家通道断开：非主动断开的会话进入宽限期
+     *
+     * @return 进入宽限期返回true，调用方应保留玩家ID与实例席位
+     */
+    public boolean suspend(Channel player) {
+        Session session = player.attr(SESSION).getAndSet(null);
+        if (session == null || sessionsByToken.get(session.token) != session) {
+            return false;
+        }
+        if (Boolean.TRUE.equals(player.attr(CLOSING).get()) || graceMillis <= 0) {
+            sessionsByToken.remove(session.token, session);
+            return false;
+        }
+        synchronized (session) {
+            if (session.resuming) {
+                // 恢复尚未完成时新连接又断开：放弃会话，由调用方按普通断开释放玩家ID与席位
+                session.resuming = false;
+                session.suspended = false;
+                session.resumingChannel = null;
+                suspendedByPlayerId.remove(session.playerId, session);
+                sessionsByToken.remove(session.token, session);
+                return false;
+            }
+            session.suspended = true;
+            session.suspendedAt = System.nanoTime();
+        }
+        suspendedByPlayerId.put(session.playerId, session);
+        return true;
+    }
+
+    /**
+     * 按令牌认领会话，认领后不再过期，但实例发来的消息仍缓存到complete为止。
+     * 网络切换时客户端往往先于服务端发现旧连接失效就重连，此时会话仍绑定在旧通道上，
+     * 同样直接认领并转入宽限状态，由调用方关闭旧通道
+     *
+     * @return 令牌无效、已被认领或已过期时返回null
+     */
+    public Session resume(String token) {
+        if (token == null) {
+            return null;
+        }
+        Session session = sessionsByToken.get(token);
+        if (session == null) {
+            return null;
+        }
+        long now = System.nanoTime();
+        synchronized (session) {
+            if (session.resuming || (session.suspended && isExpired(session, now))) {
+                return null;
+            }
+            if (!session.suspended) {
+                session.suspended = true;
+                session.suspendedAt = now;
+            }
+            session.resuming = true;
+            session.resumingAt = now;
+        }
+        suspendedByPlayerId.put(session.playerId, session);
+        return session;
+    }
+
+    /**
+     * 已认领的会话绑定到重连的玩家通道：恢复完成前该通道关闭时放弃会话，
+     * 超过宽限期仍未完成恢复时由过期清理关闭该通道。
+     * 调用前订阅关系与玩家ID应已转移到新通道
+     */
+    public void bind(Session session, Channel player) {
+        synchronized (session) {
+            session.channelId = player.id();
+            session.resumingChannel = player;
+        }
+        player.attr(SESSION).set(session);
+    }
+
+    /**
+     * 解除会话与被新连接取代的旧通道的绑定，旧通道关闭时按主动断开处理，不再进入宽限期
+     */
+    public void detach(Session session, Channel previous) {
+        previous.attr(SESSION).compareAndSet(session, null);
+        previous.attr(CLOSING).set(true);
+    }
+
+    /**
+     * 完成恢复：会话绑定到新的玩家通道并取出缓存的消息，令牌继续有效，可用于下一次断线恢复。
+     * 调用前玩家应已重新注册到ClientManager，之后实例发来的消息直接转发
+     *
+     * @return 按到达顺序排列的缓存消息；会话已被放弃或恢复超时时返回null
+     */
+    public List<String> complete(Session session, Channel player) {
+        List<String> replay;
+        synchronized (session) {
+            if (!session.resuming) {
+                return null;
+            }
+            session.suspended = false;
+            session.resuming = false;
+            session.resumingChannel = null;
+            session.channelId = player.id();
+            replay = session.drainReplay();
+        }
+        suspendedByPlayerId.remove(session.playerId, session);
+        player.attr(SESSION).set(session);
+        return replay;
+    }
+
+    /**
+     * 放弃已认领但无法恢复的会话，例如原实例已断开
+     */
+    public void discard(Session session) {
+        synchronized (session) {
+            session.suspended = false;
+            session.resuming = false;
+            session.resumingChannel = null;
+        }
+        suspendedByPlayerId.remove(session.playerId, session);
+        sessionsByToken.remove(session.token, session);
+    }
+
+    /**
+     * 玩家是否处于宽限期
+     */
+    public boolean isSuspended(String playerId) {
+        return playerId != null && suspendedByPlayerId.containsKey(playerId);
+    }
+
+    /**
+     * 缓存实例发给宽限期中玩家的消息
+     *
+     * @return 玩家处于宽限期并已缓存返回true
+     */
+    public boolean buffer(String playerId, String message) {
+        if (playerId == null) {
+            return false;
+        }
+        Session session = suspendedByPlayerId.get(playerId);
+        if (session == null) {
+            return false;
+        }
+        synchronized (session) {
+            if (!session.suspended) {
+                return false;
+            }
+            session.append(message);
+        }
+        return true;
+    }
+
+    /**
+     * 清理超过宽限期的会话，通知监听器释放玩家ID与实例席位；
+     * 认领后超过宽限期仍未完成恢复的会话被放弃，关闭绑定的新通道，由其断开处理释放玩家ID与席位
+     */
+    @Scheduled(fixedRateString = "${signalling.resume.sweep-interval-ms:1000}")
+    public void expireSessions() {
+        if (suspendedByPlayerId.isEmpty()) {
+            return;
+        }
+        long now = System.nanoTime();
+        List<Session> expired = new ArrayList<>();
+        List<Channel> stalled = new ArrayList<>();
+        suspendedByPlayerId.values().removeIf(session -> {
+            synchronized (session) {
+                if (session.resuming) {
+                    if (now - session.resumingAt <= TimeUnit.MILLISECONDS.toNanos(graceMillis)) {
+                        return false;
+                    }
+                    session.suspended = false;
+                    session.resuming = false;
+                    if (session.resumingChannel != null) {
+                        stalled.add(session.resumingChannel);
+                        session.resumingChannel = null;
+                    }
+                    sessionsByToken.remove(session.token, session);
+                    log.warn("Player session {} did not finish resuming in time, closing its channel", session.playerId);
+                    return true;
+                }
+                if (session.suspended && isExpired(session, now)) {
+                    // 标记为已结束，令牌不再可用
+                    session.suspended = false;
+                    expired.add(session);
+                    return true;
+                }
+                return false;
+            }
+        });
+        stalled.forEach(Channel::close);
+        for (Session session : expired) {
+            sessionsByToken.remove(session.token, session);
+            try {
+                expirationListener.accept(session);
+            } catch (Exception e) {
+                log.error("Error releasing expired player session {}", session.playerId, e);
+            }
+        }
+    }
+
+    /**
+     * 宽限期中等待重连的会话数
+     */
+    public int getSuspendedCount() {
+        return suspendedByPlayerId.size();
+    }
+
+    /**
+     * 获取会话统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        stats.put("sessions", sessionsByToken.size());
+        stats.put("suspended", suspendedByPlayerId.size());
+        return stats;
+    }
+
+    private boolean isExpired(Session session, long now) {
+        return now - session.suspendedAt > TimeUnit.MILLISECONDS.toNanos(graceMillis);
+    }
+
+    private static String newToken() {
+        byte[] bytes = new byte[18];
+        TOKEN_RANDOM.nextBytes(bytes);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes);
+    }
+
+    /**
+     * 可恢复会话，可变字段由会话对象锁保护
+     */
+    public static final class Session {
+        private final String token;
+        private final String playerId;
+        private final String projectId;
+        private final String[] replay;
+        private ChannelId channelId;
+        private boolean suspended;
+        private boolean resuming;
+        private long suspendedAt;
+        private long resumingAt;
+        // 恢复中绑定的新通道，complete或放弃后清空
+        private Channel resumingChannel;
+        private int replayStart;
+        private int replayCount;
+        private int dropped;
+
+        Session(String token, String playerId, String projectId, int replaySize) {
+            this.token = token;
+            this.playerId = playerId;
+            this.projectId = projectId;
+            this.replay = new String[Math.max(1, replaySize)];
+        }
+
+        public String getToken() {
+            return token;
+        }
+
+        public String getPlayerId() {
+            return playerId;
+        }
+
+        public String getProjectId() {
+            return projectId;
+        }
+
+        /**
+         * 断开前玩家通道的ID，ClientManager中保留的订阅关系以此为键
+         */
+        public synchronized ChannelId getChannelId() {
+            return channelId;
+        }
+
+        private List<String> drainReplay() {
+            List<String> messages = new ArrayList<>(replayCount);
+            for (int i = 0; i < replayCount; i++) {
+                int index = (replayStart + i) % replay.length;
+                messages.add(replay[index]);
+                replay[index] = null;
+            }
+            replayStart = 0;
+            replayCount = 0;
+            return messages;
+        }
+
+        /**
+         * 取出并清零缓存溢出时丢弃的消息数
+         */
+        public synchronized int drainDropped() {
+            int count = dropped;
+            dropped = 0;
+            return count;
+        }
+
+        private void append(String message) {
+            if (replayCount == replay.length) {
+                // 环形缓冲已满，覆盖最旧的消息
+                replay[replayStart] = message;
+                replayStart = (replayStart + 1) % replay.length;
+                dropped++;
+            } else {
+                replay[(replayStart + replayCount) % replay.length] = message;
+                replayCount++;
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * @ClassName SeatPolicy
+ * @Description 项目席位配置：每个像素流实例最多可订阅的玩家数，以及多玩家时是一名控制者加观众还是平等玩家。
+ * 观众在连接时就没有协商数据通道，控制者离开后不会把观众提升为控制者，控制席位留给之后加入的玩家
+ * @Author MaxYun
+ * @Since 2025/9/26 17:20
+ * @Version 1.0
+ */
+@Component
+public class SeatPolicy {
+
+    public static final String MODE_CONTROLLER = "controller";
+    public static final String MODE_EQUAL = "equal";
+
+    @Value("${signalling.seats.default-max-players:1}")
+    private int defaultMaxPlayers;
+
+    /**
+     * 项目ID -> 每个实例最多玩家数
+     */
+    @Value("#{${signalling.seats.max-players:{:}}}")
+    private Map<String, Integer> maxPlayersByProject;
+
+    @Value("${signalling.seats.default-mode:controller}")
+    private String defaultMode;
+
+    /**
+     * 项目ID -> 席位模式
+     */
+    @Value("#{${signalling.seats.modes:{:}}}")
+    private Map<String, String> modesByProject;
+
+    /**
+     * 获取项目每个实例的席位数，至少为1
+     */
+    public int getMaxPlayers(String projectId) {
+        Integer maxPlayers = projectId == null ? null : maxPlayersByProject.get(projectId);
+        return Math.max(1, maxPlayers == null ? defaultMaxPlayers : maxPlayers);
+    }
+
+    /**
+     * 为加入实例的玩家分配席位类型
+     *
+     * @param projectId     项目ID
+     * @param hasController 实例上是否已有控制者
+     */
+    public PlayerSeat assign(String projectId, boolean hasController) {
+        String mode = projectId == null ? null : modesByProject.get(projectId);
+        if (MODE_EQUAL.equals(mode == null ? defaultMode : mode)) {
+            return PlayerSeat.PLAYER;
+        }
+        return hasController ? PlayerSeat.SPECTATOR : PlayerSeat.CONTROLLER;
+    }
+}
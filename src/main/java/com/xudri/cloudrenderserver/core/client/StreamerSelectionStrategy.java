@@ -0,0 +1,113 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import io.netty.channel.ChannelId;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @ClassName StreamerSelectionStrategy
+ * @Description 为新玩家选择空闲像素流实例的策略，在索引锁内调用，只能使用O(1)或O(log n)的操作
+ * @Author MaxYun
+ * @Since 2025/9/26 14:10
+ * @Version 1.0
+ */
+public interface StreamerSelectionStrategy {
+
+    /**
+     * 选择实例
+     *
+     * @param pool 非空的空闲实例集合
+     * @return 选中的实例
+     */
+    ChannelId select(IdleStreamerPool pool);
+
+    /**
+     * 按名称创建策略：lru、least-loaded-gpu、p2c
+     */
+    static StreamerSelectionStrategy of(String name, GpuLoadSource loadSource) {
+        switch (name) {
+            case "least-loaded-gpu":
+                return new LeastLoadedGpu(loadSource);
+            case "p2c":
+                return new PowerOfTwoChoices(loadSource);
+            case "lru":
+                return new LeastRecentlyUsed();
+            default:
+                throw new IllegalArgumentException("Unknown streamer selection strategy: " + name);
+        }
+    }
+
+    /**
+     * 选择空闲最久的实例，使各实例的使用时长趋于均匀
+     */
+    final class LeastRecentlyUsed implements StreamerSelectionStrategy {
+        @Override
+        public ChannelId select(IdleStreamerPool pool) {
+            return pool.leastRecentlyUsed();
+        }
+    }
+
+    /**
+     * 选择负载最低的GPU上空闲最久的实例，复杂度与GPU数量相关，与实例数量无关
+     */
+    final class LeastLoadedGpu implements StreamerSelectionStrategy {
+        private final GpuLoadSource loadSource;
+
+        public LeastLoadedGpu(GpuLoadSource loadSource) {
+            this.loadSource = loadSource;
+        }
+
+        @Override
+        public ChannelId select(IdleStreamerPool pool) {
+            int bestGpu = IdleStreamerPool.UNKNOWN_GPU;
+            double bestLoad = Double.MAX_VALUE;
+            for (int gpuIndex : pool.gpus()) {
+                double load = loadSource.getLoad(gpuIndex);
+                if (load < bestLoad) {
+                    bestLoad = load;
+                    bestGpu = gpuIndex;
+                }
+            }
+            ChannelId selected = pool.leastRecentlyUsedOn(bestGpu);
+            if (selected == null) {
+                return pool.leastRecentlyUsed();
+            }
+            loadSource.onAssigned(bestGpu);
+            return selected;
+        }
+    }
+
+    /**
+     * 随机取两个实例，选择所在GPU负载较低的一个
+     */
+    final class PowerOfTwoChoices implements StreamerSelectionStrategy {
+        private final GpuLoadSource loadSource;
+
+        public PowerOfTwoChoices(GpuLoadSource loadSource) {
+            this.loadSource = loadSource;
+        }
+
+        @Override
+        public ChannelId select(IdleStreamerPool pool) {
+            int size = pool.size();
+            if (size == 1) {
+                ChannelId only = pool.get(0);
+                loadSource.onAssigned(pool.gpuOf(only));
+                return only;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            int first = random.nextInt(size);
+            int second = random.nextInt(size - 1);
+            if (second >= first) {
+                second++;
+            }
+            ChannelId a = pool.get(first);
+            ChannelId b = pool.get(second);
+            int gpuA = pool.gpuOf(a);
+            int gpuB = pool.gpuOf(b);
+            boolean pickA = loadSource.getLoad(gpuA) <= loadSource.getLoad(gpuB);
+            loadSource.onAssigned(pickA ? gpuA : gpuB);
+            return pickA ? a : b;
+        }
+    }
+}
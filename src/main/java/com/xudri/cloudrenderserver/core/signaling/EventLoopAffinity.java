@@ -0,0 +1,131 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import jakarta.annotation.Resource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName EventLoopAffinity
+ * @Description 事件循环亲和：玩家分配到实例后，把玩家通道重新注册到实例所在的事件循环，
+ * 之后两者之间转发的OFFER/ANSWER/ICE都在同一线程内直接写出，不再经过目标事件循环的任务队列与唤醒。
+ * 玩家与实例使用不同的事件循环组时（按客户端类型隔离）以隔离为准，不迁移玩家。
+ * 隔离默认开启，因此亲和默认关闭，只在关闭isolate-client-types时开启才有效果
+ * @Author MaxYun
+ * @Since 2025/9/29 10:20
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class EventLoopAffinity {
+
+    @Value("${signalling.affinity.enabled:false}")
+    private boolean enabled;
+
+    @Resource
+    private SignallingEventLoops signallingEventLoops;
+
+    private final LongAdder migrated = new LongAdder();
+    private final LongAdder alreadyLocal = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder isolated = new LongAdder();
+
+    /**
+     * 将玩家迁移到实例的事件循环，完成后在玩家所在的事件循环上执行continuation；
+     * 未启用、玩家与实例的事件循环组相互隔离或已在同一事件循环时直接在当前线程执行。
+     * 迁移期间玩家通道不读不写，调用方应在continuation中才开始与玩家、实例交换消息。
+     * continuation抛出异常时关闭玩家通道
+     */
+    public void colocate(Channel player, Channel streamer, Runnable continuation) {
+        EventLoop target = streamer.eventLoop();
+        if (!enabled || player.eventLoop() == target) {
+            if (enabled) {
+                alreadyLocal.increment();
+            }
+            runOrClose(player, continuation);
+            return;
+        }
+        if (signallingEventLoops.isIsolated(ClientType.PLAYER, ClientType.STREAMER)) {
+            isolated.increment();
+            runOrClose(player, continuation);
+            return;
+        }
+        migrate(player, target).addListener(future -> {
+            if (future.isSuccess()) {
+                migrated.increment();
+            } else {
+                failed.increment();
+                log.warn("玩家通道 {} 迁移到实例 {} 的事件循环失败，留在原事件循环", player, streamer, future.cause());
+            }
+            if (player.isRegistered()) {
+                runOrClose(player, continuation);
+            }
+        });
+    }
+
+    /**
+     * 执行迁移或移交后的后续处理，异常时关闭通道。后续处理可能在监听器或其他通道的调用栈中执行，
+     * 异常不会到达通道自己的exceptionCaught，不关闭会留下已注册但未完成初始化的通道
+     */
+    static void runOrClose(Channel channel, Runnable continuation) {
+        try {
+            continuation.run();
+        } catch (Exception e) {
+            log.error("通道 {} 的后续处理异常，关闭连接", channel, e);
+            channel.close();
+        }
+    }
+
+    /**
+     * 将通道从当前事件循环注销后注册到目标事件循环。注册失败时注册回原事件循环，
+     * 仍失败则关闭通道；返回的future在通道当前所在的事件循环上完成
+     */
+    public static Future<Void> migrate(Channel channel, EventLoop target) {
+        EventLoop source = channel.eventLoop();
+        Promise<Void> result = ImmediateEventExecutor.INSTANCE.newPromise();
+        // deregister会推迟到当前读批次之后执行，调用方可以在channelRead中直接调用
+        channel.deregister().addListener(deregistered -> {
+            if (!deregistered.isSuccess()) {
+                result.setFailure(deregistered.cause());
+                return;
+            }
+            target.register(channel).addListener(registered -> {
+                if (registered.isSuccess()) {
+                    // 注销前未写完的数据不再有写事件关注，重新注册后主动下发
+                    channel.flush();
+                    result.setSuccess(null);
+                    return;
+                }
+                source.register(channel).addListener(restored -> {
+                    if (!restored.isSuccess()) {
+                        channel.close();
+                    }
+                    result.setFailure(registered.cause());
+                });
+            });
+        });
+        return result;
+    }
+
+    /**
+     * 获取迁移统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        stats.put("migrated", migrated.sum());
+        stats.put("alreadyLocal", alreadyLocal.sum());
+        stats.put("failed", failed.sum());
+        stats.put("isolated", isolated.sum());
+        return stats;
+    }
+}
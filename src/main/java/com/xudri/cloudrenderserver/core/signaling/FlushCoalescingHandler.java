@@ -0,0 +1,154 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName FlushCoalescingHandler
+ * @Description 合并flush：读批次中的flush推迟到channelReadComplete，读批次外的flush按最大延迟/最大批量合并；
+ * 位于管道最前端，同时统计线路上的读写字节数
+ * @Author MaxYun
+ * @Since 2025/9/23 10:20
+ * @Version 1.0
+ */
+public class FlushCoalescingHandler extends ChannelDuplexHandler {
+
+    private final int maxBatch;
+    private final long maxDelayMicros;
+    private final SignallingStats stats;
+    private final SignallingMetrics metrics;
+
+    private final Runnable flushTask;
+
+    private ChannelHandlerContext ctx;
+    private boolean readInProgress;
+    private int pendingFlushes;
+    private Future<?> scheduledFlush;
+
+    /**
+     * @param maxBatch       累计多少次flush后立即下发
+     * @param maxDelayMicros 读批次外flush的最大延迟，0表示在事件循环下一轮执行
+     * @param stats          计数器
+     * @param metrics        字节数指标
+     */
+    public FlushCoalescingHandler(int maxBatch, long maxDelayMicros, SignallingStats stats,
+                                  SignallingMetrics metrics) {
+        this.maxBatch = Math.max(1, maxBatch);
+        this.maxDelayMicros = Math.max(0, maxDelayMicros);
+        this.stats = stats;
+        this.metrics = metrics;
+        this.flushTask = this::runScheduledFlush;
+    }
+
+    private void runScheduledFlush() {
+        if (!ctx.executor().inEventLoop()) {
+            // 调度后通道已迁移到其他事件循环，转到新的事件循环执行
+            ctx.executor().execute(flushTask);
+            return;
+        }
+        scheduledFlush = null;
+        if (pendingFlushes > 0 && !readInProgress) {
+            flushNow(ctx);
+        }
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        this.ctx = ctx;
+    }
+
+    @Override
+    public void flush(ChannelHandlerContext ctx) {
+        stats.flushRequested();
+        if (++pendingFlushes >= maxBatch) {
+            flushNow(ctx);
+            return;
+        }
+        if (readInProgress || scheduledFlush != null) {
+            // 读批次结束或已调度的任务会统一flush
+            return;
+        }
+        if (maxDelayMicros == 0) {
+            scheduledFlush = ctx.executor().submit(flushTask);
+        } else {
+            scheduledFlush = ctx.executor().schedule(flushTask, maxDelayMicros, TimeUnit.MICROSECONDS);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (msg instanceof ByteBuf buf) {
+            metrics.bytesWritten(buf.readableBytes());
+        }
+        ctx.write(msg, promise);
+    }
+
+    @Override
+    public void channelRead(ChannelHandlerContext ctx, Object msg) {
+        if (msg instanceof ByteBuf buf) {
+            metrics.bytesRead(buf.readableBytes());
+        }
+        readInProgress = true;
+        ctx.fireChannelRead(msg);
+    }
+
+    @Override
+    public void channelReadComplete(ChannelHandlerContext ctx) {
+        readInProgress = false;
+        flushIfPending(ctx);
+        ctx.fireChannelReadComplete();
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable()) {
+            // 出站缓冲已满时尽快下发，避免继续堆积
+            flushIfPending(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+        flushIfPending(ctx);
+        ctx.fireExceptionCaught(cause);
+    }
+
+    @Override
+    public void disconnect(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfPending(ctx);
+        ctx.disconnect(promise);
+    }
+
+    @Override
+    public void close(ChannelHandlerContext ctx, ChannelPromise promise) {
+        flushIfPending(ctx);
+        ctx.close(promise);
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        flushIfPending(ctx);
+    }
+
+    private void flushIfPending(ChannelHandlerContext ctx) {
+        if (pendingFlushes > 0) {
+            flushNow(ctx);
+        }
+    }
+
+    private void flushNow(ChannelHandlerContext ctx) {
+        if (scheduledFlush != null) {
+            scheduledFlush.cancel(false);
+            scheduledFlush = null;
+        }
+        pendingFlushes = 0;
+        stats.flushExecuted();
+        ctx.flush();
+    }
+}
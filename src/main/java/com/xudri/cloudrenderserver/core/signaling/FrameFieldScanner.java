@@ -0,0 +1,372 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.util.ByteProcessor;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * @ClassName FrameFieldScanner
+ * @Description 信令帧轻量字段扫描器，只读取顶层的type与playerId字段，不构建JSON对象。
+ * 扫描时按JSON语法校验整个帧，任何不合法或有歧义的内容（多余字节、非法字面量、重复的type/playerId等）
+ * 都返回null，由调用方回退到完整解析
+ * @Author MaxYun
+ * @Since 2025/9/22 10:12
+ * @Version 1.0
+ */
+public final class FrameFieldScanner {
+
+    private static final byte[] TYPE_KEY = "type".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] PLAYER_ID_KEY = "playerId".getBytes(StandardCharsets.US_ASCII);
+
+    private static final byte[] TRUE = "true".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FALSE = "false".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] NULL = "null".getBytes(StandardCharsets.US_ASCII);
+
+    // 嵌套层数上限，超过时交给完整解析，避免递归过深
+    private static final int MAX_DEPTH = 64;
+
+    // 字符串内容扫描：遇到引号、转义符或控制字符时停止
+    private static final ByteProcessor FIND_QUOTE_OR_ESCAPE =
+            value -> value != '"' && value != '\\' && (value < 0 || value >= 0x20);
+
+    private FrameFieldScanner() {
+    }
+
+    /**
+     * 扫描帧内容中的顶层字段，不修改缓冲区的读写索引
+     *
+     * @param buf 帧内容
+     * @return 扫描结果；内容不是合法的JSON对象、对象后还有内容、type或playerId重复
+     * 或不是字符串/数字时返回null
+     */
+    public static Fields scan(ByteBuf buf) {
+        int end = buf.writerIndex();
+        int i = skipWhitespace(buf, buf.readerIndex(), end);
+        if (i >= end || buf.getByte(i) != '{') {
+            return null;
+        }
+
+        Fields fields = new Fields(i);
+        int previousComma = -1;
+        i = skipWhitespace(buf, i + 1, end);
+        if (i < end && buf.getByte(i) == '}') {
+            return endOfFrame(buf, i, end) ? fields : null;
+        }
+
+        while (i < end) {
+            if (buf.getByte(i) != '"') {
+                return null;
+            }
+            int keyStart = i;
+            int keyEnd = skipString(buf, i, end);
+            if (keyEnd < 0) {
+                return null;
+            }
+
+            i = skipWhitespace(buf, keyEnd, end);
+            if (i >= end || buf.getByte(i) != ':') {
+                return null;
+            }
+            int valueStart = skipWhitespace(buf, i + 1, end);
+            int valueEnd = skipValue(buf, valueStart, end, 1);
+            if (valueEnd < 0) {
+                return null;
+            }
+
+            if (keyEquals(buf, keyStart, keyEnd, TYPE_KEY)) {
+                if (fields.typeSeen || !isStringOrNumber(buf, valueStart)) {
+                    return null;
+                }
+                fields.typeSeen = true;
+                fields.type = readScalar(buf, valueStart, valueEnd);
+            } else if (keyEquals(buf, keyStart, keyEnd, PLAYER_ID_KEY)) {
+                // 重复的playerId会让剔除后的转发内容仍带有玩家ID；null字面量会被当作玩家"null"路由
+                if (fields.hasPlayerId() || !isStringOrNumber(buf, valueStart)) {
+                    return null;
+                }
+                fields.playerId = readScalar(buf, valueStart, valueEnd);
+                fields.playerIdMemberStart = keyStart;
+                fields.playerIdMemberEnd = valueEnd;
+                fields.playerIdPrecedingComma = previousComma;
+            }
+
+            i = skipWhitespace(buf, valueEnd, end);
+            if (i >= end) {
+                return null;
+            }
+            byte b = buf.getByte(i);
+            if (b == '}') {
+                return endOfFrame(buf, i, end) ? fields : null;
+            }
+            if (b != ',') {
+                return null;
+            }
+            if (fields.playerIdMemberEnd == valueEnd) {
+                fields.playerIdFollowingComma = i;
+            }
+            previousComma = i;
+            i = skipWhitespace(buf, i + 1, end);
+        }
+        return null;
+    }
+
+    /**
+     * 顶层对象结束后只允许空白
+     */
+    private static boolean endOfFrame(ByteBuf buf, int closingBrace, int end) {
+        return skipWhitespace(buf, closingBrace + 1, end) == end;
+    }
+
+    private static boolean isStringOrNumber(ByteBuf buf, int valueStart) {
+        byte first = buf.getByte(valueStart);
+        return first == '"' || first == '-' || (first >= '0' && first <= '9');
+    }
+
+    private static int skipWhitespace(ByteBuf buf, int from, int end) {
+        int i = from;
+        while (i < end) {
+            byte b = buf.getByte(i);
+            if (b != ' ' && b != '\t' && b != '\r' && b != '\n') {
+                break;
+            }
+            i++;
+        }
+        return i;
+    }
+
+    /**
+     * 跳过以引号开头的字符串，返回结束引号之后的位置，格式错误时返回-1
+     */
+    private static int skipString(ByteBuf buf, int quote, int end) {
+        int i = quote + 1;
+        while (i < end) {
+            int found = buf.forEachByte(i, end - i, FIND_QUOTE_OR_ESCAPE);
+            if (found < 0) {
+                return -1;
+            }
+            byte b = buf.getByte(found);
+            if (b == '"') {
+                return found + 1;
+            }
+            if (b != '\\') {
+                // 字符串中不允许未转义的控制字符
+                return -1;
+            }
+            i = skipEscape(buf, found + 1, end);
+            if (i < 0) {
+                return -1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 跳过反斜杠之后的转义序列，返回序列之后的位置，格式错误时返回-1
+     */
+    private static int skipEscape(ByteBuf buf, int from, int end) {
+        if (from >= end) {
+            return -1;
+        }
+        switch (buf.getByte(from)) {
+            case '"', '\\', '/', 'b', 'f', 'n', 'r', 't':
+                return from + 1;
+            case 'u':
+                if (from + 5 > end) {
+                    return -1;
+                }
+                for (int k = from + 1; k <= from + 4; k++) {
+                    if (Character.digit(buf.getByte(k), 16) < 0) {
+                        return -1;
+                    }
+                }
+                return from + 5;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * 跳过任意JSON值并校验其语法，返回值结束之后的位置，格式错误时返回-1
+     */
+    private static int skipValue(ByteBuf buf, int from, int end, int depth) {
+        if (from >= end) {
+            return -1;
+        }
+        byte first = buf.getByte(from);
+        switch (first) {
+            case '"':
+                return skipString(buf, from, end);
+            case '{':
+            case '[':
+                return depth >= MAX_DEPTH ? -1 : skipContainer(buf, from, end, depth + 1);
+            case 't':
+                return skipLiteral(buf, from, end, TRUE);
+            case 'f':
+                return skipLiteral(buf, from, end, FALSE);
+            case 'n':
+                return skipLiteral(buf, from, end, NULL);
+            default:
+                return skipNumber(buf, from, end);
+        }
+    }
+
+    /**
+     * 跳过对象或数组，逐个校验其中的成员
+     */
+    private static int skipContainer(ByteBuf buf, int from, int end, int depth) {
+        boolean object = buf.getByte(from) == '{';
+        byte close = object ? (byte) '}' : (byte) ']';
+        int i = skipWhitespace(buf, from + 1, end);
+        if (i < end && buf.getByte(i) == close) {
+            return i + 1;
+        }
+        while (i < end) {
+            if (object) {
+                if (buf.getByte(i) != '"') {
+                    return -1;
+                }
+                i = skipString(buf, i, end);
+                if (i < 0) {
+                    return -1;
+                }
+                i = skipWhitespace(buf, i, end);
+                if (i >= end || buf.getByte(i) != ':') {
+                    return -1;
+                }
+                i = skipWhitespace(buf, i + 1, end);
+            }
+            i = skipValue(buf, i, end, depth);
+            if (i < 0) {
+                return -1;
+            }
+            i = skipWhitespace(buf, i, end);
+            if (i >= end) {
+                return -1;
+            }
+            byte b = buf.getByte(i);
+            if (b == close) {
+                return i + 1;
+            }
+            if (b != ',') {
+                return -1;
+            }
+            i = skipWhitespace(buf, i + 1, end);
+        }
+        return -1;
+    }
+
+    private static int skipLiteral(ByteBuf buf, int from, int end, byte[] literal) {
+        if (end - from < literal.length) {
+            return -1;
+        }
+        for (int k = 0; k < literal.length; k++) {
+            if (buf.getByte(from + k) != literal[k]) {
+                return -1;
+            }
+        }
+        return from + literal.length;
+    }
+
+    /**
+     * 按JSON数字语法跳过：-?(0|[1-9][0-9]*)(.[0-9]+)?([eE][+-]?[0-9]+)?
+     */
+    private static int skipNumber(ByteBuf buf, int from, int end) {
+        int i = from;
+        if (i < end && buf.getByte(i) == '-') {
+            i++;
+        }
+        if (i >= end || !isDigit(buf.getByte(i))) {
+            return -1;
+        }
+        if (buf.getByte(i) == '0') {
+            i++;
+        } else {
+            i = skipDigits(buf, i, end);
+        }
+        if (i < end && buf.getByte(i) == '.') {
+            int fractionStart = i + 1;
+            i = skipDigits(buf, fractionStart, end);
+            if (i == fractionStart) {
+                return -1;
+            }
+        }
+        if (i < end && (buf.getByte(i) == 'e' || buf.getByte(i) == 'E')) {
+            i++;
+            if (i < end && (buf.getByte(i) == '+' || buf.getByte(i) == '-')) {
+                i++;
+            }
+            int exponentStart = i;
+            i = skipDigits(buf, exponentStart, end);
+            if (i == exponentStart) {
+                return -1;
+            }
+        }
+        return i;
+    }
+
+    private static int skipDigits(ByteBuf buf, int from, int end) {
+        int i = from;
+        while (i < end && isDigit(buf.getByte(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isDigit(byte b) {
+        return b >= '0' && b <= '9';
+    }
+
+    private static boolean keyEquals(ByteBuf buf, int keyStart, int keyEnd, byte[] expected) {
+        // keyStart/keyEnd包含两侧引号
+        if (keyEnd - keyStart - 2 != expected.length) {
+            return false;
+        }
+        for (int k = 0; k < expected.length; k++) {
+            if (buf.getByte(keyStart + 1 + k) != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 读取字符串或数字值；含转义的字符串返回null，由调用方回退到完整解析
+     */
+    private static String readScalar(ByteBuf buf, int valueStart, int valueEnd) {
+        if (buf.getByte(valueStart) == '"') {
+            int length = valueEnd - valueStart - 2;
+            if (buf.indexOf(valueStart + 1, valueEnd - 1, (byte) '\\') >= 0) {
+                return null;
+            }
+            return buf.toString(valueStart + 1, length, StandardCharsets.UTF_8);
+        }
+        return buf.toString(valueStart, valueEnd - valueStart, StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * 扫描结果，位置均为缓冲区绝对索引
+     */
+    @Getter
+    public static final class Fields {
+        private final int objectStart;
+        @Getter(AccessLevel.NONE)
+        private boolean typeSeen;
+        private String type;
+        private String playerId;
+        private int playerIdMemberStart = -1;
+        private int playerIdMemberEnd = -1;
+        private int playerIdPrecedingComma = -1;
+        private int playerIdFollowingComma = -1;
+
+        private Fields(int objectStart) {
+            this.objectStart = objectStart;
+        }
+
+        public boolean hasPlayerId() {
+            return playerIdMemberStart >= 0;
+        }
+    }
+}
@@ -0,0 +1,219 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.websocketx.PingWebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName HeartbeatManager
+ * @Description 心跳管理：所有连接共享一个时间轮定时器，按间隔发送携带时间戳的WebSocket Ping帧，
+ * 根据Pong计算往返时延，连续多次既无Pong也无其他入站消息时断开；回环地址的连接使用更长的间隔
+ * @Author MaxYun
+ * @Since 2025/9/27 16:40
+ * @Version 1.0
+ */
+@Component
+@Log4j2
+public class HeartbeatManager {
+
+    private static final AttributeKey<Heartbeat> HEARTBEAT = AttributeKey.valueOf("Heartbeat");
+
+    // 往返时延平滑系数
+    private static final double RTT_ALPHA = 0.125;
+
+    @Value("${signalling.heartbeat.interval-ms:15000}")
+    private long intervalMillis;
+
+    @Value("${signalling.heartbeat.loopback-interval-ms:60000}")
+    private long loopbackIntervalMillis;
+
+    @Value("${signalling.heartbeat.max-misses:3}")
+    private int maxMisses;
+
+    @Value("${signalling.heartbeat.tick-ms:100}")
+    private long tickMillis;
+
+    private HashedWheelTimer timer;
+
+    private final AtomicInteger tracked = new AtomicInteger();
+    private final LongAdder pingsSent = new LongAdder();
+    private final LongAdder closedAfterMisses = new LongAdder();
+
+    // Ping往返时延（微秒）
+    private final ValueHistogram rttMicros = new ValueHistogram();
+
+    @PostConstruct
+    public void init() {
+        timer = new HashedWheelTimer(new DefaultThreadFactory("signalling-heartbeat", true),
+                tickMillis, TimeUnit.MILLISECONDS, 512);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        timer.stop();
+    }
+
+    /**
+     * 开始跟踪连接的心跳，在客户端类型确定后调用
+     */
+    public void register(Channel channel) {
+        long interval = TimeUnit.MILLISECONDS.toNanos(isLoopback(channel.remoteAddress())
+                ? loopbackIntervalMillis
+                : intervalMillis);
+        Heartbeat heartbeat = new Heartbeat(channel, interval);
+        if (channel.attr(HEARTBEAT).setIfAbsent(heartbeat) != null) {
+            return;
+        }
+        tracked.incrementAndGet();
+        heartbeat.schedule(interval);
+        channel.closeFuture().addListener(future -> {
+            tracked.decrementAndGet();
+            Timeout timeout = heartbeat.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+        });
+    }
+
+    /**
+     * 记录入站消息，在事件循环线程上调用
+     */
+    public void touch(Channel channel) {
+        Heartbeat heartbeat = channel.attr(HEARTBEAT).get();
+        if (heartbeat != null) {
+            heartbeat.lastReadNanos = System.nanoTime();
+        }
+    }
+
+    /**
+     * 处理WebSocket Pong帧，负载为发送Ping时的时间戳
+     */
+    public void onPong(Channel channel, ByteBuf payload) {
+        if (payload.readableBytes() == Long.BYTES) {
+            onPong(channel, payload.getLong(payload.readerIndex()));
+        }
+    }
+
+    /**
+     * 处理Pong，sentNanos为对应Ping发送时的System.nanoTime()
+     */
+    public void onPong(Channel channel, long sentNanos) {
+        Heartbeat heartbeat = channel.attr(HEARTBEAT).get();
+        if (heartbeat == null || sentNanos != heartbeat.pingSentNanos) {
+            return;
+        }
+        long rtt = System.nanoTime() - sentNanos;
+        heartbeat.awaitingPong = false;
+        heartbeat.misses = 0;
+        heartbeat.smoothedRttNanos = heartbeat.smoothedRttNanos < 0
+                ? rtt
+                : (long) (RTT_ALPHA * rtt + (1 - RTT_ALPHA) * heartbeat.smoothedRttNanos);
+        rttMicros.record(TimeUnit.NANOSECONDS.toMicros(rtt));
+    }
+
+    /**
+     * 获取连接的平滑往返时延（毫秒），尚未测得时返回-1
+     */
+    public static double getRttMillis(Channel channel) {
+        Heartbeat heartbeat = channel.attr(HEARTBEAT).get();
+        if (heartbeat == null || heartbeat.smoothedRttNanos < 0) {
+            return -1;
+        }
+        return Math.round(heartbeat.smoothedRttNanos / 10_000d) / 100d;
+    }
+
+    /**
+     * 正在跟踪心跳的连接数
+     */
+    public int getTrackedCount() {
+        return tracked.get();
+    }
+
+    /**
+     * 获取心跳统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("tracked", tracked.get());
+        stats.put("pingsSent", pingsSent.sum());
+        stats.put("closedAfterMisses", closedAfterMisses.sum());
+        stats.put("rttMicros", rttMicros.toJson());
+        return stats;
+    }
+
+    private static boolean isLoopback(SocketAddress address) {
+        return address instanceof InetSocketAddress inet
+                && inet.getAddress() != null
+                && inet.getAddress().isLoopbackAddress();
+    }
+
+    /**
+     * 单个连接的心跳状态，除RTT外仅在该连接的事件循环线程上读写
+     */
+    private final class Heartbeat {
+        private final Channel channel;
+        private final long intervalNanos;
+        private volatile Timeout timeout;
+        private long lastReadNanos = System.nanoTime();
+        private long pingSentNanos;
+        private boolean awaitingPong;
+        private int misses;
+        private volatile long smoothedRttNanos = -1;
+
+        Heartbeat(Channel channel, long intervalNanos) {
+            this.channel = channel;
+            this.intervalNanos = intervalNanos;
+        }
+
+        void schedule(long delayNanos) {
+            if (!channel.isActive()) {
+                return;
+            }
+            // 定时器线程只负责唤醒，检查与发送在连接自己的事件循环上执行
+            timeout = timer.newTimeout(t -> channel.eventLoop().execute(this::check),
+                    delayNanos, TimeUnit.NANOSECONDS);
+        }
+
+        void check() {
+            if (!channel.isActive()) {
+                return;
+            }
+            if (awaitingPong) {
+                if (lastReadNanos - pingSentNanos > 0) {
+                    // 未收到Pong但期间有其他入站消息，连接仍然存活
+                    misses = 0;
+                } else if (++misses >= maxMisses) {
+                    log.warn("连接 {} 连续 {} 次心跳无响应，断开连接", channel, misses);
+                    closedAfterMisses.increment();
+                    channel.close();
+                    return;
+                }
+            }
+
+            long now = System.nanoTime();
+            pingSentNanos = now;
+            awaitingPong = true;
+            ByteBuf payload = channel.alloc().buffer(Long.BYTES).writeLong(now);
+            channel.writeAndFlush(new PingWebSocketFrame(payload));
+            pingsSent.increment();
+            schedule(intervalNanos);
+        }
+    }
+}
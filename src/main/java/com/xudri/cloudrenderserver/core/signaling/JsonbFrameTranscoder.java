@@ -0,0 +1,142 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONReader;
+import com.alibaba.fastjson2.JSONWriter;
+import lombok.Getter;
+
+/**
+ * @ClassName JsonbFrameTranscoder
+ * @Description JSONB信令帧转文本：流式读取JSONB并直接写出JSON文本，不构建JSON对象，
+ * 同时取出顶层的type与playerId字段，输出中去掉顶层playerId，供实例发往玩家的转发使用
+ * @Author MaxYun
+ * @Since 2025/10/2 10:30
+ * @Version 1.0
+ */
+public final class JsonbFrameTranscoder {
+
+    private static final String TYPE_KEY = "type";
+    private static final String PLAYER_ID_KEY = "playerId";
+
+    private JsonbFrameTranscoder() {
+    }
+
+    /**
+     * 转码JSONB帧
+     *
+     * @param jsonb 帧内容
+     * @return 转码结果；内容不是JSONB对象、格式错误或顶层字段重复时返回null，由调用方回退到完整解析
+     */
+    public static Transcoded transcode(byte[] jsonb) {
+        try (JSONReader reader = JSONReader.ofJSONB(jsonb);
+             JSONWriter writer = JSONWriter.ofUTF8()) {
+            if (!reader.nextIfObjectStart()) {
+                return null;
+            }
+            Transcoded result = new Transcoded();
+            writer.startObject();
+            while (!reader.nextIfObjectEnd()) {
+                String name = reader.readFieldName();
+                if (name == null) {
+                    return null;
+                }
+                if (TYPE_KEY.equals(name) || PLAYER_ID_KEY.equals(name)) {
+                    if (!readTopLevelField(reader, writer, name, result)) {
+                        return null;
+                    }
+                    continue;
+                }
+                writer.writeName(name);
+                writer.writeColon();
+                copyValue(reader, writer);
+            }
+            writer.endObject();
+            if (!reader.isEnd()) {
+                // 对象之后还有多余内容
+                return null;
+            }
+            result.json = writer.getBytes();
+            return result;
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * 读取type或playerId：只接受字符串或整数，重复出现时放弃转码；playerId不写入输出
+     */
+    private static boolean readTopLevelField(JSONReader reader, JSONWriter writer, String name, Transcoded result) {
+        String value;
+        if (reader.isString()) {
+            value = reader.readString();
+        } else if (reader.isNumber()) {
+            Number number = reader.readNumber();
+            if (!(number instanceof Integer || number instanceof Long)) {
+                return false;
+            }
+            value = number.toString();
+        } else {
+            return false;
+        }
+
+        if (TYPE_KEY.equals(name)) {
+            if (result.type != null) {
+                return false;
+            }
+            result.type = value;
+            writer.writeName(name);
+            writer.writeColon();
+            writer.writeString(value);
+        } else {
+            if (result.playerId != null) {
+                return false;
+            }
+            result.playerId = value;
+        }
+        return true;
+    }
+
+    private static void copyValue(JSONReader reader, JSONWriter writer) {
+        if (reader.nextIfObjectStart()) {
+            writer.startObject();
+            while (!reader.nextIfObjectEnd()) {
+                writer.writeName(reader.readFieldName());
+                writer.writeColon();
+                copyValue(reader, writer);
+            }
+            writer.endObject();
+        } else if (reader.isArray()) {
+            // JSONB数组带元素个数，不支持nextIfArrayStart/nextIfArrayEnd
+            int size = reader.startArray();
+            writer.startArray();
+            for (int i = 0; i < size; i++) {
+                if (i > 0) {
+                    writer.writeComma();
+                }
+                copyValue(reader, writer);
+            }
+            writer.endArray();
+        } else if (reader.nextIfNull()) {
+            writer.writeNull();
+        } else if (reader.isString()) {
+            writer.writeString(reader.readString());
+        } else if (reader.isNumber()) {
+            writer.writeAny(reader.readNumber());
+        } else {
+            writer.writeBool(reader.readBoolValue());
+        }
+    }
+
+    /**
+     * 转码结果
+     */
+    @Getter
+    public static final class Transcoded {
+        private String type;
+        private String playerId;
+        // 不含顶层playerId的UTF-8 JSON文本
+        private byte[] json;
+
+        private Transcoded() {
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.xudri.cloudrenderserver.domain.enums.MessageType;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import io.netty.util.concurrent.ScheduledFuture;
+import lombok.extern.log4j.Log4j2;
+
+import java.io.Serial;
+import java.util.ArrayDeque;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName PlayerBackpressureHandler
+ * @Description 玩家通道背压控制：通道不可写时将出站帧放入有界队列，队列满时优先丢弃最旧的ICE候选，
+ * 持续不可写超过期限的玩家将被断开
+ * @Author MaxYun
+ * @Since 2025/9/23 15:30
+ * @Version 1.0
+ */
+@Log4j2
+public class PlayerBackpressureHandler extends ChannelDuplexHandler {
+
+    private static final SignallingDropException DROPPED = new SignallingDropException("出站队列已满，消息被丢弃");
+    private static final SignallingDropException DISCARDED = new SignallingDropException("通道已关闭，排队消息被丢弃");
+
+    private final int maxQueuedFrames;
+    private final long evictAfterMillis;
+    private final SignallingStats stats;
+
+    private final ArrayDeque<PendingWrite> queue = new ArrayDeque<>();
+    private ScheduledFuture<?> evictionCheck;
+
+    /**
+     * @param maxQueuedFrames  不可写期间最多排队的帧数
+     * @param evictAfterMillis 持续不可写多久后断开玩家
+     * @param stats            计数器
+     */
+    public PlayerBackpressureHandler(int maxQueuedFrames, long evictAfterMillis, SignallingStats stats) {
+        this.maxQueuedFrames = Math.max(1, maxQueuedFrames);
+        this.evictAfterMillis = evictAfterMillis;
+        this.stats = stats;
+    }
+
+    @Override
+    public void handlerAdded(ChannelHandlerContext ctx) {
+        if (!ctx.channel().isWritable()) {
+            scheduleEviction(ctx);
+        }
+    }
+
+    @Override
+    public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+        if (queue.isEmpty() && ctx.channel().isWritable()) {
+            ctx.write(msg, promise);
+            return;
+        }
+
+        if (queue.size() >= maxQueuedFrames && !dropOldestIceCandidate()) {
+            if (isIceCandidate(msg)) {
+                // 队列中没有可丢弃的ICE，丢弃新到的ICE候选
+                drop(msg, promise);
+                return;
+            }
+            log.warn("玩家通道 {} 出站队列已满且无可丢弃消息，断开连接", ctx.channel());
+            drop(msg, promise);
+            evict(ctx);
+            return;
+        }
+        queue.add(new PendingWrite(msg, promise));
+    }
+
+    @Override
+    public void channelWritabilityChanged(ChannelHandlerContext ctx) {
+        if (ctx.channel().isWritable()) {
+            cancelEviction();
+            drain(ctx);
+        } else {
+            scheduleEviction(ctx);
+        }
+        ctx.fireChannelWritabilityChanged();
+    }
+
+    @Override
+    public void channelInactive(ChannelHandlerContext ctx) {
+        cancelEviction();
+        discardQueue();
+        ctx.fireChannelInactive();
+    }
+
+    @Override
+    public void handlerRemoved(ChannelHandlerContext ctx) {
+        cancelEviction();
+        if (ctx.channel().isActive()) {
+            drain(ctx);
+        }
+        discardQueue();
+    }
+
+    private void drain(ChannelHandlerContext ctx) {
+        boolean written = false;
+        while (!queue.isEmpty() && ctx.channel().isWritable()) {
+            PendingWrite pending = queue.poll();
+            ctx.write(pending.msg, pending.promise);
+            written = true;
+        }
+        if (written) {
+            ctx.flush();
+        }
+    }
+
+    private boolean dropOldestIceCandidate() {
+        Iterator<PendingWrite> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            PendingWrite pending = iterator.next();
+            if (isIceCandidate(pending.msg)) {
+                iterator.remove();
+                drop(pending.msg, pending.promise);
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isIceCandidate(Object msg) {
+        if (!(msg instanceof TextWebSocketFrame frame)) {
+            return false;
+        }
+        FrameFieldScanner.Fields fields = FrameFieldScanner.scan(frame.content());
+        return fields != null && MessageType.ICE_CANDIDATE.getValue().equals(fields.getType());
+    }
+
+    private void drop(Object msg, ChannelPromise promise) {
+        stats.frameDropped();
+        ReferenceCountUtil.safeRelease(msg);
+        promise.tryFailure(DROPPED);
+    }
+
+    private void scheduleEviction(ChannelHandlerContext ctx) {
+        if (evictionCheck != null || evictAfterMillis <= 0) {
+            return;
+        }
+        evictionCheck = ctx.executor().schedule(() -> {
+            evictionCheck = null;
+            if (ctx.channel().isActive() && !ctx.channel().isWritable()) {
+                log.warn("玩家通道 {} 持续 {} 毫秒不可写，断开连接", ctx.channel(), evictAfterMillis);
+                evict(ctx);
+            }
+        }, evictAfterMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private void cancelEviction() {
+        if (evictionCheck != null) {
+            evictionCheck.cancel(false);
+            evictionCheck = null;
+        }
+    }
+
+    private void evict(ChannelHandlerContext ctx) {
+        stats.playerEvicted();
+        cancelEviction();
+        discardQueue();
+        ctx.channel().close();
+    }
+
+    private void discardQueue() {
+        PendingWrite pending;
+        while ((pending = queue.poll()) != null) {
+            ReferenceCountUtil.safeRelease(pending.msg);
+            pending.promise.tryFailure(DISCARDED);
+        }
+    }
+
+    private static final class PendingWrite {
+        private final Object msg;
+        private final ChannelPromise promise;
+
+        private PendingWrite(Object msg, ChannelPromise promise) {
+            this.msg = msg;
+            this.promise = promise;
+        }
+    }
+
+    /**
+     * 背压丢弃异常，不记录堆栈
+     */
+    private static final class SignallingDropException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        SignallingDropException(String message) {
+            super(message, null, false, false);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import com.xudri.cloudrenderserver.domain.enums.MessageType;
+import io.netty.channel.Channel;
+import io.netty.util.AttributeKey;
+import jakarta.annotation.PostConstruct;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName SessionTimelineRecorder
+ * @Description 玩家会话启动时间线：记录握手、分配实例、发送playerConnected、实例首个OFFER、
+ * 玩家ANSWER及ICE候选交换的时间点，会话结束后按项目汇总到直方图，并保留最近会话供排查，
+ * 用于区分启动慢在信令服务器、UE还是浏览器
+ * @Author MaxYun
+ * @Since 2025/9/28 09:30
+ * @Version 1.0
+ */
+@Component
+public class SessionTimelineRecorder {
+
+    private static final AttributeKey<Timeline> TIMELINE = AttributeKey.valueOf("SessionTimeline");
+
+    private static final String UNKNOWN_PROJECT = "-";
+
+    @Value("${signalling.timeline.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.timeline.recent-size:100}")
+    private int recentSize;
+
+    @Value("${signalling.timeline.ice-settle-ms:10000}")
+    private long iceSettleMillis;
+
+    private final Map<String, ProjectHistograms> histogramsByProject = new ConcurrentHashMap<>();
+
+    // 尚未结束的时间线，ICE交换静默超过settle时间后由定时任务结束
+    private final Set<Timeline> active = ConcurrentHashMap.newKeySet();
+
+    // 最近结束的会话，环形缓冲，由自身对象锁保护
+    private JSONObject[] recent;
+    private int recentNext;
+    private int recentCount;
+
+    @PostConstruct
+    public void init() {
+        recent = new JSONObject[Math.max(1, recentSize)];
+    }
+
+    /**
+     * 玩家握手完成时开始记录，项目在分配实例时按实例所属项目确定
+     *
+     * @param requestNanos 收到升级请求时的System.nanoTime()
+     */
+    public void start(Channel player, long requestNanos) {
+        if (!enabled) {
+            return;
+        }
+        Timeline timeline = new Timeline(requestNanos, System.nanoTime());
+        player.attr(TIMELINE).set(timeline);
+        active.add(timeline);
+    }
+
+    /**
+     * 断线重连恢复的会话不是新的启动过程，不计入统计
+     */
+    public void discard(Channel player) {
+        Timeline timeline = player.attr(TIMELINE).getAndSet(null);
+        if (timeline != null) {
+            active.remove(timeline);
+        }
+    }
+
+    /**
+     * 玩家分配到像素流实例
+     */
+    public void assigned(Channel player, Channel streamer) {
+        Timeline timeline = player.attr(TIMELINE).get();
+        if (timeline == null) {
+            return;
+        }
+        synchronized (timeline) {
+            timeline.assigned = System.nanoTime();
+            timeline.playerId = player.attr(ClientManager.PLAYERID).get();
+            timeline.insId = streamer.attr(ClientManager.INS_ID).get();
+            timeline.projectId = streamer.attr(ClientManager.PROJECT_ID).get();
+        }
+    }
+
+    /**
+     * 已向实例发送playerConnected
+     */
+    public void playerConnectedSent(Channel player) {
+        Timeline timeline = player.attr(TIMELINE).get();
+        if (timeline != null) {
+            synchronized (timeline) {
+                timeline.playerConnectedSent = System.nanoTime();
+            }
+        }
+    }
+
+    /**
+     * 记录玩家与实例之间转发的OFFER/ANSWER/ICE消息
+     */
+    public void onSignal(Channel from, Channel to, MessageType messageType) {
+        if (!enabled || to == null) {
+            return;
+        }
+        boolean fromPlayer = ClientType.PLAYER.getValue().equals(from.attr(ClientManager.TYPE).get());
+        Timeline timeline = (fromPlayer ? from : to).attr(TIMELINE).get();
+        if (timeline == null) {
+            return;
+        }
+        long now = System.nanoTime();
+        synchronized (timeline) {
+            switch (messageType) {
+                case OFFER:
+                    if (!fromPlayer && timeline.firstOffer == 0) {
+                        timeline.firstOffer = now;
+                    }
+                    break;
+                case ANSWER:
+                    if (fromPlayer && timeline.answer == 0) {
+                        timeline.answer = now;
+                    }
+                    break;
+                case ICE_CANDIDATE:
+                    if (timeline.firstIce == 0) {
+                        timeline.firstIce = now;
+                    }
+                    timeline.lastIce = now;
+                    timeline.iceCandidates++;
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    /**
+     * 玩家断开时结束记录
+     */
+    public void finish(Channel player) {
+        Timeline timeline = player.attr(TIMELINE).getAndSet(null);
+        if (timeline != null) {
+            complete(timeline, "disconnected");
+        }
+    }
+
+    /**
+     * 结束ICE交换已静默的时间线
+     */
+    @Scheduled(fixedRateString = "${signalling.timeline.sweep-interval-ms:5000}")
+    public void sweep() {
+        if (active.isEmpty()) {
+            return;
+        }
+        long settleNanos = TimeUnit.MILLISECONDS.toNanos(iceSettleMillis);
+        long now = System.nanoTime();
+        for (Timeline timeline : active) {
+            boolean settled;
+            synchronized (timeline) {
+                settled = timeline.answer != 0 && timeline.lastIce != 0 && now - timeline.lastIce > settleNanos;
+            }
+            if (settled) {
+                complete(timeline, "established");
+            }
+        }
+    }
+
+    /**
+     * 获取各项目的启动耗时分布与最近会话
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        stats.put("active", active.size());
+        JSONObject projects = new JSONObject();
+        histogramsByProject.forEach((projectId, histograms) -> projects.put(projectId, histograms.toJson()));
+        stats.put("projects", projects);
+
+        JSONArray sessions = new JSONArray();
+        synchronized (this) {
+            for (int i = 0; i < recentCount; i++) {
+                // 由新到旧
+                int index = (recentNext - 1 - i + recent.length) % recent.length;
+                sessions.add(recent[index]);
+            }
+        }
+        stats.put("recent", sessions);
+        return stats;
+    }
+
+    private void complete(Timeline timeline, String outcome) {
+        if (!active.remove(timeline)) {
+            return;
+        }
+        JSONObject snapshot;
+        synchronized (timeline) {
+            String projectId = timeline.projectId == null ? UNKNOWN_PROJECT : timeline.projectId;
+            ProjectHistograms histograms = histogramsByProject.computeIfAbsent(projectId, k -> new ProjectHistograms());
+            histograms.record(timeline);
+            snapshot = timeline.toJson(outcome);
+        }
+        synchronized (this) {
+            recent[recentNext] = snapshot;
+            recentNext = (recentNext + 1) % recent.length;
+            recentCount = Math.min(recentCount + 1, recent.length);
+        }
+    }
+
+    private static long micros(long from, long to) {
+        return from == 0 || to == 0 ? -1 : TimeUnit.NANOSECONDS.toMicros(to - from);
+    }
+
+    /**
+     * 单个玩家会话的时间点（System.nanoTime()，0表示未发生），由对象锁保护
+     */
+    private static final class Timeline {
+        private final long requested;
+        private final long upgraded;
+        private String projectId;
+        private String playerId;
+        private String insId;
+        private long assigned;
+        private long playerConnectedSent;
+        private long firstOffer;
+        private long answer;
+        private long firstIce;
+        private long lastIce;
+        private int iceCandidates;
+
+        Timeline(long requested, long upgraded) {
+            this.requested = requested;
+            this.upgraded = upgraded;
+        }
+
+        JSONObject toJson(String outcome) {
+            JSONObject json = new JSONObject();
+            json.put("playerId", playerId);
+            json.put("projectId", projectId);
+            json.put("insId", insId);
+            json.put("outcome", outcome);
+            json.put("handshakeMicros", micros(requested, upgraded));
+            json.put("assignMicros", micros(upgraded, assigned));
+            json.put("playerConnectedMicros", micros(assigned, playerConnectedSent));
+            json.put("offerMicros", micros(playerConnectedSent, firstOffer));
+            json.put("answerMicros", micros(firstOffer, answer));
+            json.put("iceMicros", micros(firstIce, lastIce));
+            json.put("iceCandidates", iceCandidates);
+            json.put("totalMicros", micros(requested, lastIce != 0 ? lastIce : answer));
+            return json;
+        }
+    }
+
+    /**
+     * 单个项目的各阶段耗时直方图（微秒）
+     */
+    private static final class ProjectHistograms {
+        // 收到升级请求到握手完成，包含鉴权
+        private final ValueHistogram handshake = new ValueHistogram();
+        // 握手完成到分配实例，包含排队
+        private final ValueHistogram assign = new ValueHistogram();
+        // 分配实例到发出playerConnected，信令服务器自身耗时
+        private final ValueHistogram playerConnected = new ValueHistogram();
+        // playerConnected到实例首个OFFER，UE耗时
+        private final ValueHistogram offer = new ValueHistogram();
+        // OFFER到玩家ANSWER，浏览器耗时
+        private final ValueHistogram answer = new ValueHistogram();
+        // 首个到最后一个ICE候选
+        private final ValueHistogram ice = new ValueHistogram();
+
+        void record(Timeline timeline) {
+            recordIfPresent(handshake, micros(timeline.requested, timeline.upgraded));
+            recordIfPresent(assign, micros(timeline.upgraded, timeline.assigned));
+            recordIfPresent(playerConnected, micros(timeline.assigned, timeline.playerConnectedSent));
+            recordIfPresent(offer, micros(timeline.playerConnectedSent, timeline.firstOffer));
+            recordIfPresent(answer, micros(timeline.firstOffer, timeline.answer));
+            recordIfPresent(ice, micros(timeline.firstIce, timeline.lastIce));
+        }
+
+        private static void recordIfPresent(ValueHistogram histogram, long value) {
+            if (value >= 0) {
+                histogram.record(value);
+            }
+        }
+
+        JSONObject toJson() {
+            JSONObject json = new JSONObject();
+            json.put("handshakeMicros", handshake.toJson());
+            json.put("assignMicros", assign.toJson());
+            json.put("playerConnectedMicros", playerConnected.toJson());
+            json.put("offerMicros", offer.toJson());
+            json.put("answerMicros", answer.toJson());
+            json.put("iceMicros", ice.toJson());
+            return json;
+        }
+    }
+}
@@ -0,0 +1,290 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import cn.hutool.cache.Cache;
+import cn.hutool.cache.CacheUtil;
+import com.xudri.cloudrenderserver.domain.entity.User;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import com.xudri.cloudrenderserver.infrastructure.mapper.UserMapper;
+import com.xudri.cloudrenderserver.infrastructure.security.JwtUtil;
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtException;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.Serial;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName SignallingAuthenticator
+ * @Description 信令连接鉴权：校验握手请求携带的JWT令牌，已校验的声明缓存复用，
+ * 缓存未命中时的签名校验与数据库查询在独立线程池执行，不占用事件循环
+ * @Author MaxYun
+ * @Since 2025/9/25 10:20
+ * @Version 1.0
+ */
+@Component
+@Log4j2
+public class SignallingAuthenticator {
+
+    /**
+     * 通过Sec-WebSocket-Protocol传递令牌时使用的子协议名，格式为 "bearer, &lt;token&gt;"
+     */
+    public static final String BEARER_SUBPROTOCOL = "bearer";
+
+    /**
+     * 通道上的鉴权结果
+     */
+    public static final AttributeKey<SignallingPrincipal> PRINCIPAL = AttributeKey.valueOf("Principal");
+
+    private static final String TOKEN_PARAM = "token";
+    private static final String ADMIN_ROLE = "ADMIN";
+
+    @Value("${signalling.auth.enabled:false}")
+    private boolean enabled;
+
+    @Value("${signalling.auth.cache-size:10000}")
+    private int cacheSize;
+
+    @Value("${signalling.auth.cache-ttl-seconds:300}")
+    private long cacheTtlSeconds;
+
+    @Value("${signalling.auth.executor-threads:2}")
+    private int executorThreads;
+
+    @Value("${signalling.auth.executor-queue:1024}")
+    private int executorQueue;
+
+    @Resource
+    private JwtUtil jwtUtil;
+
+    @Resource
+    private UserMapper userMapper;
+
+    private Cache<String, SignallingPrincipal> verifiedTokens;
+    private ThreadPoolExecutor executor;
+
+    @PostConstruct
+    public void init() {
+        verifiedTokens = CacheUtil.newLRUCache(cacheSize, TimeUnit.SECONDS.toMillis(cacheTtlSeconds));
+        executor = new ThreadPoolExecutor(executorThreads, executorThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(executorQueue), new DefaultThreadFactory("signalling-auth", true),
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 从查询参数或Sec-WebSocket-Protocol请求头中提取令牌，查询参数中的令牌会被移除
+     */
+    public static String extractToken(Map<String, String> params, HttpHeaders headers) {
+        String token = params.remove(TOKEN_PARAM);
+        if (token != null && !token.isEmpty()) {
+            return token;
+        }
+
+        String protocols = headers.get(HttpHeaderNames.SEC_WEBSOCKET_PROTOCOL);
+        if (protocols == null) {
+            return null;
+        }
+        String[] values = protocols.split(",");
+        for (int i = 0; i < values.length - 1; i++) {
+            if (BEARER_SUBPROTOCOL.equals(values[i].trim())) {
+                return values[i + 1].trim();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 鉴权握手请求。缓存命中时直接完成，否则在鉴权线程池中校验，结果在调用方的事件循环上通知
+     *
+     * @param eventExecutor 通道所在的事件循环
+     * @param token         令牌，可为null
+     * @param clientType    请求的客户端类型
+     * @param instanceId    像素流实例连接时的实例ID，实例服务令牌只能以该实例身份使用
+     * @return 鉴权结果，失败原因为 {@link SignallingAuthException}
+     */
+    public Future<SignallingPrincipal> authenticate(EventExecutor eventExecutor, String token, String clientType,
+                                                    String instanceId) {
+        Promise<SignallingPrincipal> promise = eventExecutor.newPromise();
+        if (token == null || token.isEmpty()) {
+            return promise.setFailure(new SignallingAuthException(HttpResponseStatus.UNAUTHORIZED, "缺少令牌"));
+        }
+
+        SignallingPrincipal cached = verifiedTokens.get(token, false);
+        if (cached != null && !cached.isExpired(System.currentTimeMillis())) {
+            completeAuthorization(promise, cached, clientType, instanceId);
+            return promise;
+        }
+
+        try {
+            executor.execute(() -> {
+                try {
+                    SignallingPrincipal principal = verify(token);
+                    cache(token, principal);
+                    completeAuthorization(promise, principal, clientType, instanceId);
+                } catch (SignallingAuthException e) {
+                    promise.tryFailure(e);
+                } catch (Exception e) {
+                    log.error("信令令牌校验异常", e);
+                    promise.tryFailure(new SignallingAuthException(HttpResponseStatus.INTERNAL_SERVER_ERROR, "令牌校验异常"));
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            promise.tryFailure(new SignallingAuthException(HttpResponseStatus.SERVICE_UNAVAILABLE, "鉴权队列已满"));
+        }
+        return promise;
+    }
+
+    /**
+     * 校验签名、有效期与用户状态
+     */
+    private SignallingPrincipal verify(String token) {
+        Claims claims;
+        try {
+            claims = jwtUtil.verifyToken(token);
+        } catch (JwtException | IllegalArgumentException e) {
+            throw new SignallingAuthException(HttpResponseStatus.UNAUTHORIZED, "令牌无效");
+        }
+
+        if ("refresh".equals(claims.get("type"))) {
+            throw new SignallingAuthException(HttpResponseStatus.UNAUTHORIZED, "不能使用刷新令牌");
+        }
+
+        // 用户令牌需确认账号仍然可用，实例服务令牌没有userId
+        if (claims.get("userId") != null) {
+            User user = userMapper.findByUsername(claims.getSubject());
+            if (user == null || user.getStatus() == null || user.getStatus() != 1) {
+                throw new SignallingAuthException(HttpResponseStatus.FORBIDDEN, "用户不存在或已禁用");
+            }
+        }
+
+        String roles = claims.get("roles", String.class);
+        long expiresAt = claims.getExpiration() != null ? claims.getExpiration().getTime() : Long.MAX_VALUE;
+        String instanceId = null;
+        if (JwtUtil.STREAMER_TOKEN_TYPE.equals(claims.get("type"))) {
+            String subject = claims.getSubject();
+            if (subject == null || !subject.startsWith(JwtUtil.STREAMER_SUBJECT_PREFIX)) {
+                throw new SignallingAuthException(HttpResponseStatus.UNAUTHORIZED, "令牌无效");
+            }
+            instanceId = subject.substring(JwtUtil.STREAMER_SUBJECT_PREFIX.length());
+        }
+        return new SignallingPrincipal(claims.getSubject(), parseRoles(roles), expiresAt, instanceId);
+    }
+
+    private void cache(String token, SignallingPrincipal principal) {
+        long remaining = principal.getExpiresAt() - System.currentTimeMillis();
+        long ttl = Math.min(TimeUnit.SECONDS.toMillis(cacheTtlSeconds), remaining);
+        if (ttl > 0) {
+            verifiedTokens.put(token, principal, ttl);
+        }
+    }
+
+    private void completeAuthorization(Promise<SignallingPrincipal> promise, SignallingPrincipal principal,
+                                       String clientType, String instanceId) {
+        if (isAuthorized(principal, clientType, instanceId)) {
+            promise.trySuccess(principal);
+        } else {
+            promise.tryFailure(new SignallingAuthException(HttpResponseStatus.FORBIDDEN, "无权以该类型连接"));
+        }
+    }
+
+    /**
+     * 管理员连接需要ADMIN角色，实例连接需要实例服务令牌或ADMIN角色，播放器只需有效令牌。
+     * 实例服务令牌只能以签发时的实例身份连接
+     */
+    private boolean isAuthorized(SignallingPrincipal principal, String clientType, String instanceId) {
+        ClientType type = ClientType.fromString(clientType).orElse(null);
+        if (type == null) {
+            return false;
+        }
+        if (principal.getInstanceId() != null) {
+            return type == ClientType.STREAMER && principal.getInstanceId().equals(instanceId);
+        }
+        switch (type) {
+            case ADMIN:
+                return principal.hasRole(ADMIN_ROLE);
+            case STREAMER:
+                return principal.hasRole(JwtUtil.STREAMER_ROLE) || principal.hasRole(ADMIN_ROLE);
+            default:
+                return true;
+        }
+    }
+
+    private static Set<String> parseRoles(String roles) {
+        if (roles == null || roles.isEmpty()) {
+            return Set.of();
+        }
+        return Set.copyOf(Arrays.asList(roles.split(",")));
+    }
+
+    /**
+     * 已校验的令牌主体
+     */
+    @Getter
+    public static final class SignallingPrincipal {
+        private final String subject;
+        private final Set<String> roles;
+        private final long expiresAt;
+        // 实例服务令牌对应的实例ID，用户令牌为null
+        private final String instanceId;
+
+        SignallingPrincipal(String subject, Set<String> roles, long expiresAt, String instanceId) {
+            this.subject = subject;
+            this.roles = roles;
+            this.expiresAt = expiresAt;
+            this.instanceId = instanceId;
+        }
+
+        public boolean hasRole(String role) {
+            return roles.contains(role);
+        }
+
+        boolean isExpired(long now) {
+            return now >= expiresAt;
+        }
+    }
+
+    /**
+     * 鉴权失败，携带返回给客户端的HTTP状态码
+     */
+    @Getter
+    public static final class SignallingAuthException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        // HttpResponseStatus不可序列化，异常只在进程内传递
+        private final transient HttpResponseStatus status;
+
+        SignallingAuthException(HttpResponseStatus status, String message) {
+            super(message, null, false, false);
+            this.status = status;
+        }
+    }
+}
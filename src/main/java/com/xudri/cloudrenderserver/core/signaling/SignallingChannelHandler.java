@@ -1,30 +1,34 @@
 package com.xudri.cloudrenderserver.core.signaling;
 
 import cn.hutool.core.date.DateUtil;
+import com.alibaba.fastjson2.JSONB;
 import com.alibaba.fastjson2.JSONObject;
 import com.xudri.cloudrenderserver.domain.enums.ClientType;
 import com.xudri.cloudrenderserver.domain.enums.MessageType;
 import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.IdleStreamerPool;
 import com.xudri.cloudrenderserver.core.client.MessageHelper;
+import com.xudri.cloudrenderserver.core.client.PlayerAdmissionQueue;
 import com.xudri.cloudrenderserver.core.client.PlayerIdPool;
+import com.xudri.cloudrenderserver.core.client.PlayerSeat;
+import com.xudri.cloudrenderserver.core.client.PlayerSessionRegistry;
+import com.xudri.cloudrenderserver.core.streaming.PixelStreamingLauncherManager;
 import com.xudri.cloudrenderserver.common.util.LoggerUtil;
 import io.netty.buffer.ByteBuf;
-import io.netty.buffer.Unpooled;
+import io.netty.buffer.ByteBufUtil;
 import io.netty.channel.*;
-import io.netty.handler.codec.http.*;
+import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.http.websocketx.*;
-import io.netty.handler.timeout.IdleState;
-import io.netty.handler.timeout.IdleStateEvent;
-import io.netty.util.CharsetUtil;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
 import lombok.extern.log4j.Log4j2;
 import org.apache.commons.lang3.StringUtils;
+import org.apache.commons.lang3.math.NumberUtils;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
 import java.net.InetSocketAddress;
-import java.net.URLDecoder;
 import java.nio.charset.StandardCharsets;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -41,9 +45,7 @@ import java.util.Optional;
 @ChannelHandler.Sharable
 public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object> {
 
-    private WebSocketServerHandshaker handshaker;
-    private static final String WEBSOCKET_PATH = "/websocket";
-    private static final String WEBSOCKET_UPGRADE_HEADER = "websocket";
+    private static final String JSONB_CODEC = "jsonb";
 
     @Resource
     private ClientManager clientManager;
@@ -54,43 +56,70 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
     @Resource
     private MessageHelper messageHelper;
 
-    @Override
-    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
-        try {
-            if (msg instanceof FullHttpRequest) {
-                handleHttpRequest(ctx, (FullHttpRequest) msg);
-            } else {
-                handleWebSocketFrame(ctx, msg);
-            }
-        } catch (Exception e) {
-            LoggerUtil.logError(log, "消息处理", "处理消息时发生错误，消息类型：" + msg.getClass().getSimpleName(), e);
-            ctx.close();
-        }
+    @Resource
+    private SignallingStats signallingStats;
+
+    @Resource
+    private PlayerAdmissionQueue playerAdmissionQueue;
+
+    @Resource
+    private PlayerSessionRegistry playerSessionRegistry;
+
+    @Resource
+    private HeartbeatManager heartbeatManager;
+
+    @Resource
+    private SessionTimelineRecorder sessionTimelineRecorder;
+
+    @Resource
+    private SignallingMetrics signallingMetrics;
+
+    @Resource
+    private SignallingRateLimiter signallingRateLimiter;
+
+    @Resource
+    private PixelStreamingLauncherManager pixelStreamingLauncherManager;
+
+    @Resource
+    private EventLoopAffinity eventLoopAffinity;
+
+    @Resource
+    private SignallingEventLoops signallingEventLoops;
+
+    @Value("${signalling.zero-copy-forward:true}")
+    private boolean zeroCopyForward;
+
+    @Value("${signalling.backpressure.max-queued-frames:256}")
+    private int maxQueuedFrames;
+
+    @Value("${signalling.backpressure.evict-after-ms:15000}")
+    private long evictAfterMillis;
+
+    @PostConstruct
+    public void init() {
+        playerSessionRegistry.setExpirationListener(this::releaseExpiredSession);
     }
 
-    /**
-     * 处理HTTP请求并完成WebSocket握手
-     */
-    private void handleHttpRequest(ChannelHandlerContext ctx, FullHttpRequest request) {
-        if (!isValidWebSocketRequest(request)) {
-            sendBadRequestResponse(ctx, request);
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, Object msg) {
+        long receivedNanos = System.nanoTime();
+        heartbeatManager.touch(ctx.channel());
+        if (msg instanceof WebSocketFrame frame && !signallingRateLimiter.admitFrame(ctx.channel(), frame)) {
             return;
         }
-
         try {
-            performWebSocketHandshake(ctx, request);
-            Map<String, String> params = extractUrlParameters(request.uri());
-            processConnectionParameters(ctx, params);
+            handleWebSocketFrame(ctx, msg, receivedNanos);
         } catch (Exception e) {
-            LoggerUtil.logError(log, "WebSocket握手", "WebSocket握手过程中发生错误", e);
-            sendServerErrorResponse(ctx, request);
+            LoggerUtil.logError(log, "消息处理", "处理消息时发生错误，消息类型：" + msg.getClass().getSimpleName(), e);
+            ctx.close();
         }
     }
 
     /**
      * 处理连接参数并设置客户端类型
      */
-    private void processConnectionParameters(ChannelHandlerContext ctx, Map<String, String> params) {
+    private void processConnectionParameters(ChannelHandlerContext ctx, SignallingUpgradeEvent event) {
+        Map<String, String> params = event.getParams();
         Optional<ClientType> clientType = validateAndGetClientType(params);
         if (clientType.isEmpty()) {
             LoggerUtil.logWarning(log, "客户端连接", "未知的客户端类型，关闭连接。参数：" + params);
@@ -99,46 +128,9 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
             return;
         }
 
-        setupClientChannel(ctx, clientType.get(), params);
-    }
-
-    /**
-     * 验证WebSocket请求的有效性
-     */
-    private boolean isValidWebSocketRequest(FullHttpRequest request) {
-        return request.decoderResult().isSuccess() &&
-                WEBSOCKET_UPGRADE_HEADER.equalsIgnoreCase(request.headers().get(HttpHeaderNames.UPGRADE));
-    }
-
-    /**
-     * 发送错误请求响应
-     */
-    private void sendBadRequestResponse(ChannelHandlerContext ctx, FullHttpRequest request) {
-        sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
-    }
-
-    /**
-     * 发送服务器错误响应
-     */
-    private void sendServerErrorResponse(ChannelHandlerContext ctx, FullHttpRequest request) {
-        sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
-                HttpVersion.HTTP_1_1, HttpResponseStatus.INTERNAL_SERVER_ERROR));
-    }
-
-    /**
-     * 执行WebSocket握手
-     */
-    private void performWebSocketHandshake(ChannelHandlerContext ctx, FullHttpRequest request) {
-        WebSocketServerHandshakerFactory factory = new WebSocketServerHandshakerFactory(
-                getWebSocketLocation(request), null, true);
-        handshaker = factory.newHandshaker(request);
-
-        if (handshaker == null) {
-            WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
-        } else {
-            handshaker.handshake(ctx.channel(), request);
-        }
+        // 像素流实例与管理端连接移交到各自的事件循环组，玩家留在接收连接的组
+        signallingEventLoops.handOff(ctx.channel(), clientType.get(),
+                () -> setupClientChannel(ctx, clientType.get(), params, event.getRequestNanos()));
     }
 
     /**
@@ -153,12 +145,17 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
     /**
      * 设置客户端通道属性并处理连接逻辑
      */
-    private void setupClientChannel(ChannelHandlerContext ctx, ClientType clientType, Map<String, String> params) {
+    private void setupClientChannel(ChannelHandlerContext ctx, ClientType clientType, Map<String, String> params,
+                                    long requestNanos) {
         Channel channel = ctx.channel();
         setBasicChannelAttributes(channel, clientType);
+        heartbeatManager.register(channel);
+        signallingMetrics.handshakeCompleted(clientType, requestNanos);
 
         switch (clientType) {
             case PLAYER:
+                signallingRateLimiter.attach(channel);
+                sessionTimelineRecorder.start(channel, requestNanos);
                 handlePlayerConnection(ctx, channel, params);
                 break;
             case STREAMER:
@@ -189,31 +186,181 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
      * 处理播放器连接
      */
     private void handlePlayerConnection(ChannelHandlerContext ctx, Channel player, Map<String, String> params) {
-        String playerId = String.valueOf(playerIdPool.getPlayerId());
+        if (playerSessionRegistry.isEnabled() && tryResumeSession(player, params.get("resume"))) {
+            return;
+        }
+
+        String playerId = String.valueOf(playerIdPool.getPlayerId(player));
         LoggerUtil.logConnection("播放器", playerId, "已连接",
-            String.format("IP地址：%s", ((InetSocketAddress) ctx.channel().remoteAddress()).getAddress().getHostAddress()));
+            () -> "IP地址：" + ((InetSocketAddress) player.remoteAddress()).getAddress().getHostAddress());
         log.info("播放器 {} 已连接", playerId);
         player.attr(ClientManager.PLAYERID).set(playerId);
 
+        String projectId = params.get("projectid");
+        if (params.get("insid") == null && projectId != null && playerAdmissionQueue.isEnabled()) {
+            admitThroughQueue(ctx, player, playerId, projectId);
+            return;
+        }
+
         Channel streamer = clientManager.findStreamerForPlayer(params);
         if (streamer != null) {
             establishPlayerStreamerConnection(player, streamer, playerId);
         } else {
             LoggerUtil.logConnection("播放器", playerId, "连接失败", "未找到可用的像素流实例");
             log.warn("播放器 {} 未找到可用的像素流实例，关闭连接", playerId);
-            playerIdPool.releasePlayerId(playerId);
+            releasePlayerId(player);
+            ctx.close();
+        }
+    }
+
+    /**
+     * 携带会话令牌重连的玩家在原实例上恢复，沿用原玩家ID与席位，并补发宽限期内缓存的消息
+     *
+     * @return 恢复成功返回true；令牌无效或原实例已断开时返回false，按新玩家处理
+     */
+    private boolean tryResumeSession(Channel player, String token) {
+        PlayerSessionRegistry.Session session = playerSessionRegistry.resume(token);
+        if (session == null) {
+            return false;
+        }
+
+        String playerId = session.getPlayerId();
+        // 旧连接尚未被发现断开时由新连接取代：先解除旧通道的会话与玩家ID，避免其关闭时释放席位
+        Channel previous = clientManager.getChannel(session.getChannelId()).orElse(null);
+        if (previous != null) {
+            playerSessionRegistry.detach(session, previous);
+            previous.attr(ClientManager.PLAYERID).compareAndSet(playerId, null);
+            clientManager.suspendPlayer(previous);
+            log.info("播放器 {} 以会话令牌从新连接重连，关闭旧连接", playerId);
+        }
+        player.attr(ClientManager.PLAYERID).set(playerId);
+        Optional<Channel> streamer = clientManager.resumePlayer(session.getChannelId(), player);
+        if (previous != null) {
+            previous.close();
+        }
+        if (streamer.isEmpty()) {
+            log.info("播放器 {} 的原像素流实例已断开，按新连接处理", playerId);
+            playerSessionRegistry.discard(session);
+            releaseSessionPlayer(session, Optional.empty());
+            return false;
+        }
+        playerIdPool.transferPlayerId(playerId, session.getChannelId(), player);
+        // 会话立即绑定到新通道，恢复完成前新通道关闭时由断开处理放弃会话
+        playerSessionRegistry.bind(session, player);
+        sessionTimelineRecorder.discard(player);
+        // 迁移完成前实例发来的消息继续缓存在会话中
+        eventLoopAffinity.colocate(player, streamer.get(), () -> completeResume(player, session));
+        return true;
+    }
+
+    private void completeResume(Channel player, PlayerSessionRegistry.Session session) {
+        // 在玩家事件循环的同一任务内补发缓存消息，保证先于之后实例发来的消息到达
+        List<String> replay = playerSessionRegistry.complete(session, player);
+        if (replay == null) {
+            // 迁移期间新连接已断开或恢复超时，会话已放弃
+            return;
+        }
+        String playerId = session.getPlayerId();
+        player.pipeline().addLast(new PlayerBackpressureHandler(maxQueuedFrames, evictAfterMillis, signallingStats));
+        messageHelper.sendConfigMessage(player);
+        JSONObject resumed = new JSONObject();
+        resumed.put("type", "sessionResumed");
+        resumed.put("playerId", playerId);
+        resumed.put("replayed", replay.size());
+        resumed.put("dropped", session.drainDropped());
+        messageHelper.sendMessage(player, resumed.toString());
+        replay.forEach(message -> messageHelper.sendMessage(player, message));
+
+        LoggerUtil.logConnection("播放器", playerId, "已恢复连接",
+            () -> "补发消息数：" + replay.size());
+        log.info("播放器 {} 在宽限期内重连，恢复到原像素流实例", playerId);
+    }
+
+    /**
+     * 宽限期结束仍未重连的会话：释放玩家ID与席位，通知实例玩家已断开
+     */
+    private void releaseExpiredSession(PlayerSessionRegistry.Session session) {
+        LoggerUtil.logConnection("播放器", session.getPlayerId(), "已断开连接", "宽限期内未重连");
+        log.info("播放器 {} 宽限期内未重连，释放席位", session.getPlayerId());
+        releaseSessionPlayer(session, clientManager.releaseSuspended(session.getChannelId()));
+    }
+
+    private void releaseSessionPlayer(PlayerSessionRegistry.Session session, Optional<Channel> streamer) {
+        playerIdPool.releasePlayerId(session.getPlayerId(), session.getChannelId());
+        streamer.ifPresent(value -> messageHelper.unsubscribeStreamer(value, session.getPlayerId()));
+        admitQueuedPlayers(session.getProjectId());
+    }
+
+    /**
+     * 连接失败时释放玩家号码并清除属性，避免通道关闭时再次释放
+     */
+    private void releasePlayerId(Channel player) {
+        String playerId = player.attr(ClientManager.PLAYERID).getAndSet(null);
+        if (playerId != null) {
+            playerIdPool.releasePlayerId(playerId, player.id());
+        }
+    }
+
+    /**
+     * 按项目排队分配像素流实例：已有玩家排队时不插队，有空闲实例时立即分配，否则保持连接等待
+     */
+    private void admitThroughQueue(ChannelHandlerContext ctx, Channel player, String playerId, String projectId) {
+        if (!playerAdmissionQueue.enqueue(player, projectId)) {
+            LoggerUtil.logConnection("播放器", playerId, "连接失败", "排队人数已满");
+            log.warn("播放器 {} 所在项目 {} 排队已满，关闭连接", playerId, projectId);
+            releasePlayerId(player);
             ctx.close();
+            return;
+        }
+
+        admitQueuedPlayers(projectId);
+        if (playerAdmissionQueue.isQueued(player)) {
+            log.info("播放器 {} 进入项目 {} 的排队队列", playerId, projectId);
+            playerAdmissionQueue.sendInitialStatus(player);
         }
     }
 
     /**
-     * 建立播放器和像素流实例连接
+     * 将项目的空闲实例分配给排队玩家
+     */
+    private void admitQueuedPlayers(String projectId) {
+        playerAdmissionQueue.admit(projectId, (player, streamer) ->
+                establishPlayerStreamerConnection(player, streamer, player.attr(ClientManager.PLAYERID).get()));
+    }
+
+    /**
+     * 建立播放器和像素流实例连接：席位立即占用，保证排队分配时同一实例不会超额；
+     * 玩家迁移到实例的事件循环后再下发配置并通知实例，此前实例不知道该玩家，不会有发往玩家的消息
      */
     private void establishPlayerStreamerConnection(Channel player, Channel streamer, String playerId) {
         clientManager.addChannel(player);
-        clientManager.subscribeRelation(player.id(), streamer.id());
+        PlayerSeat seat = clientManager.subscribeRelation(player.id(), streamer.id());
+        if (seat == null) {
+            LoggerUtil.logConnection("播放器", playerId, "连接失败", "像素流实例已不可用或席位已满");
+            log.warn("播放器 {} 分配到的像素流实例已不可用或席位已满，关闭连接", playerId);
+            releasePlayerId(player);
+            player.close();
+            return;
+        }
+        sessionTimelineRecorder.assigned(player, streamer);
+        eventLoopAffinity.colocate(player, streamer, () -> connectToStreamer(player, streamer, playerId, seat));
+    }
+
+    private void connectToStreamer(Channel player, Channel streamer, String playerId, PlayerSeat seat) {
+        player.pipeline().addLast(new PlayerBackpressureHandler(maxQueuedFrames, evictAfterMillis, signallingStats));
         messageHelper.sendConfigMessage(player);
-        messageHelper.subscribeToStreamer(playerId, streamer);
+        messageHelper.subscribeToStreamer(playerId, streamer, seat);
+        sessionTimelineRecorder.playerConnectedSent(player);
+
+        PlayerSessionRegistry.Session session = playerSessionRegistry.open(player, playerId,
+                streamer.attr(ClientManager.PROJECT_ID).get());
+        if (session != null) {
+            JSONObject token = new JSONObject();
+            token.put("type", "sessionToken");
+            token.put("token", session.getToken());
+            token.put("graceMs", playerSessionRegistry.getGraceMillis());
+            messageHelper.sendMessage(player, token.toString());
+        }
     }
 
     /**
@@ -224,14 +371,15 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
 
         String insId = params.get("insid");
         LoggerUtil.logConnection("像素流实例", insId, "已连接", 
-            String.format("IP地址：%s，项目ID：%s", 
-                ((InetSocketAddress) streamer.remoteAddress()).getAddress().getHostAddress(),
-                params.get("projectid")));
+            () -> "IP地址：" + ((InetSocketAddress) streamer.remoteAddress()).getAddress().getHostAddress()
+                + "，项目ID：" + params.get("projectid"));
         log.info("像素流实例 {} 已连接", insId);
 
         messageHelper.sendConfigMessage(streamer);
         messageHelper.sendIdentifyMessage(streamer);
         clientManager.addChannel(streamer);
+        pixelStreamingLauncherManager.markReady(insId);
+        admitQueuedPlayers(params.get("projectid"));
     }
 
     /**
@@ -240,6 +388,9 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
     private void setStreamerAttributes(Channel channel, Map<String, String> params) {
         boolean isOneself = "1".equals(params.get("oneself"));
         channel.attr(ClientManager.ONESELF).set(isOneself);
+        // codec=jsonb：实例可发送JSONB二进制帧，发往玩家的OFFER/ANSWER/ICE转码为文本帧，服务端的控制消息以预编码的JSONB下发
+        channel.attr(ClientManager.JSONB).set(JSONB_CODEC.equals(params.get("codec")));
+        channel.attr(ClientManager.GPU_INDEX).set(NumberUtils.toInt(params.get("gpu"), IdleStreamerPool.UNKNOWN_GPU));
 
         Optional.ofNullable(params.get("insid"))
                 .ifPresent(insId -> channel.attr(ClientManager.INS_ID).set(insId));
@@ -254,20 +405,24 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
     private void handleAdminConnection(Channel channel) {
         clientManager.addChannel(channel);
         LoggerUtil.logConnection("管理员", "admin", "已连接", 
-            String.format("IP地址：%s", ((InetSocketAddress) channel.remoteAddress()).getAddress().getHostAddress()));
+            () -> "IP地址：" + ((InetSocketAddress) channel.remoteAddress()).getAddress().getHostAddress());
         log.info("管理员客户端已连接");
     }
 
     /**
      * 处理WebSocket帧消息
      */
-    private void handleWebSocketFrame(ChannelHandlerContext ctx, Object frame) {
+    private void handleWebSocketFrame(ChannelHandlerContext ctx, Object frame, long receivedNanos) {
         if (frame instanceof CloseWebSocketFrame) {
             handleCloseFrame(ctx, (CloseWebSocketFrame) frame);
         } else if (frame instanceof PingWebSocketFrame) {
-            handlePingFrame(ctx);
+            handlePingFrame(ctx, (PingWebSocketFrame) frame);
+        } else if (frame instanceof PongWebSocketFrame) {
+            heartbeatManager.onPong(ctx.channel(), ((PongWebSocketFrame) frame).content());
         } else if (frame instanceof TextWebSocketFrame) {
-            handleTextFrame(ctx, (TextWebSocketFrame) frame);
+            handleTextFrame(ctx, (TextWebSocketFrame) frame, receivedNanos);
+        } else if (frame instanceof BinaryWebSocketFrame && MessageHelper.usesJsonb(ctx.channel())) {
+            handleJsonbFrame(ctx, (BinaryWebSocketFrame) frame, receivedNanos);
         } else {
             log.debug("Received unsupported frame type: {}", frame.getClass().getSimpleName());
         }
@@ -277,57 +432,183 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
      * 处理关闭帧
      */
     private void handleCloseFrame(ChannelHandlerContext ctx, CloseWebSocketFrame closeFrame) {
-        handshaker.close(ctx.channel(), closeFrame.retain());
+        // 客户端主动关闭，不保留会话
+        ctx.channel().attr(PlayerSessionRegistry.CLOSING).set(true);
+        WebSocketServerHandshaker handshaker = ctx.channel().attr(WebSocketUpgradeHandler.HANDSHAKER).get();
+        if (handshaker != null) {
+            handshaker.close(ctx.channel(), closeFrame.retain());
+        } else {
+            ctx.close();
+        }
     }
 
     /**
      * 处理Ping帧
      */
-    private void handlePingFrame(ChannelHandlerContext ctx) {
+    private void handlePingFrame(ChannelHandlerContext ctx, PingWebSocketFrame pingFrame) {
         log.debug("Ping received from client {}", ctx.channel().id());
-        // 可以在这里添加ping响应逻辑如果需要
+        ctx.writeAndFlush(new PongWebSocketFrame(pingFrame.content().retain()));
     }
 
     /**
      * 处理文本帧
      */
-    private void handleTextFrame(ChannelHandlerContext ctx, TextWebSocketFrame textFrame) {
+    private void handleTextFrame(ChannelHandlerContext ctx, TextWebSocketFrame textFrame, long receivedNanos) {
         try {
-            JSONObject message = parseMessage(textFrame.text());
-            if (message == null || message.isEmpty()) {
-                log.warn("Received empty or invalid message");
+            if (zeroCopyForward && tryForwardFrame(ctx.channel(), textFrame.content(), receivedNanos)) {
                 return;
             }
             Channel channel = ctx.channel();
-            processMessage(channel, message);
+            JSONObject message = parseMessage(channel, textFrame.content());
+            if (message == null || message.isEmpty()) {
+                return;
+            }
+            processMessage(channel, message, receivedNanos);
 
         } catch (Exception e) {
-            log.error("Error processing text frame: {}", textFrame.text(), e);
+            // 不记录消息全文，避免恶意的大消息刷满日志
+            log.error("Error processing text frame from channel {}, {} bytes", ctx.channel().id(),
+                    textFrame.content().readableBytes(), e);
             ctx.close();
         }
     }
 
     /**
-     * 解析消息
+     * 处理JSONB二进制帧：OFFER/ANSWER/ICE直接转码为文本转发，其余消息解码后进入与文本消息相同的处理流程
+     */
+    private void handleJsonbFrame(ChannelHandlerContext ctx, BinaryWebSocketFrame binaryFrame, long receivedNanos) {
+        byte[] bytes = ByteBufUtil.getBytes(binaryFrame.content());
+        if (zeroCopyForward && tryForwardJsonb(ctx.channel(), bytes, receivedNanos)) {
+            return;
+        }
+        JSONObject message;
+        try {
+            message = JSONB.parseObject(bytes);
+        } catch (Exception e) {
+            signallingRateLimiter.malformed(ctx.channel(), binaryFrame.content().readableBytes());
+            return;
+        }
+        if (message == null || message.isEmpty()) {
+            signallingRateLimiter.malformed(ctx.channel(), binaryFrame.content().readableBytes());
+            return;
+        }
+        processMessage(ctx.channel(), message, receivedNanos);
+    }
+
+    /**
+     * 转发实例以JSONB发来的OFFER/ANSWER/ICE消息：流式转码为去掉playerId的文本后发给玩家，不构建JSON对象
+     *
+     * @return 是否已处理；无法识别的消息返回false，由调用方回退到完整解析
+     */
+    private boolean tryForwardJsonb(Channel channel, byte[] content, long receivedNanos) {
+        if (!ClientType.STREAMER.getValue().equals(channel.attr(ClientManager.TYPE).get())) {
+            return false;
+        }
+        JsonbFrameTranscoder.Transcoded transcoded = JsonbFrameTranscoder.transcode(content);
+        if (transcoded == null || transcoded.getType() == null || transcoded.getPlayerId() == null) {
+            return false;
+        }
+        Optional<MessageType> messageType = MessageType.fromString(transcoded.getType());
+        if (messageType.isEmpty() || !isForwardable(messageType.get())) {
+            return false;
+        }
+
+        signallingMetrics.messageReceived(messageType.get());
+        if (!signallingRateLimiter.admitMessage(channel, messageType.get())) {
+            return true;
+        }
+        String playerId = transcoded.getPlayerId();
+        if (playerSessionRegistry.isSuspended(playerId)
+                && playerSessionRegistry.buffer(playerId, new String(transcoded.getJson(), StandardCharsets.UTF_8))) {
+            return true;
+        }
+
+        Channel to = clientManager.findTargetChannel(channel, playerId);
+        if (to != null) {
+            sessionTimelineRecorder.onSignal(channel, to, messageType.get());
+            messageHelper.forwardTranscoded(channel, to, transcoded.getJson(), transcoded.getType());
+            signallingMetrics.forwarded(receivedNanos);
+        }
+        return true;
+    }
+
+    /**
+     * 零拷贝转发OFFER/ANSWER/ICE消息，只扫描type与playerId字段而不解析整个JSON
+     *
+     * @return 是否已处理；无法识别的消息返回false，由调用方回退到完整解析
+     */
+    private boolean tryForwardFrame(Channel channel, ByteBuf content, long receivedNanos) {
+        FrameFieldScanner.Fields fields = FrameFieldScanner.scan(content);
+        if (fields == null || fields.getType() == null) {
+            return false;
+        }
+
+        Optional<MessageType> messageType = MessageType.fromString(fields.getType());
+        if (messageType.isEmpty() || !isForwardable(messageType.get())) {
+            return false;
+        }
+
+        boolean fromPlayer = ClientType.PLAYER.getValue().equals(channel.attr(ClientManager.TYPE).get());
+        if (fields.hasPlayerId() && (fromPlayer || fields.getPlayerId() == null)) {
+            // 玩家自带playerId需要覆盖，或playerId含转义字符，均交给完整解析处理
+            return false;
+        }
+
+        signallingMetrics.messageReceived(messageType.get());
+        if (!signallingRateLimiter.admitMessage(channel, messageType.get())) {
+            return true;
+        }
+        if (!fromPlayer && playerSessionRegistry.isSuspended(fields.getPlayerId())
+                && playerSessionRegistry.buffer(fields.getPlayerId(), MessageHelper.stripPlayerIdText(content, fields))) {
+            return true;
+        }
+
+        Channel to = clientManager.findTargetChannel(channel, fields.getPlayerId());
+        if (to != null) {
+            sessionTimelineRecorder.onSignal(channel, to, messageType.get());
+            messageHelper.forwardFrame(channel, to, content, fields);
+            signallingMetrics.forwarded(receivedNanos);
+        }
+        return true;
+    }
+
+    private boolean isForwardable(MessageType messageType) {
+        return messageType == MessageType.OFFER
+                || messageType == MessageType.ANSWER
+                || messageType == MessageType.ICE_CANDIDATE;
+    }
+
+    /**
+     * 解析消息，无法解析时只记录长度并计入连接的违规次数
      */
-    private JSONObject parseMessage(String text) {
+    private JSONObject parseMessage(Channel channel, ByteBuf content) {
+        JSONObject message;
         try {
-            return JSONObject.parseObject(text);
+            message = JSONObject.parseObject(content.toString(StandardCharsets.UTF_8));
         } catch (Exception e) {
-            log.error("Failed to parse message: {}", text, e);
+            message = null;
+        }
+        if (message == null || message.isEmpty()) {
+            signallingRateLimiter.malformed(channel, content.readableBytes());
             return null;
         }
+        return message;
     }
 
     /**
      * 处理解析后的消息
      */
-    private void processMessage(Channel channel, JSONObject message) {
+    private void processMessage(Channel channel, JSONObject message, long receivedNanos) {
         String msgTypeStr = message.getString("type");
         Optional<MessageType> messageType = MessageType.fromString(msgTypeStr);
 
         if (messageType.isEmpty()) {
-            log.error("Unsupported message type: {}", msgTypeStr);
+            signallingMetrics.unknownMessageReceived();
+            signallingRateLimiter.malformed(channel, -1);
+            return;
+        }
+        signallingMetrics.messageReceived(messageType.get());
+        if (!signallingRateLimiter.admitMessage(channel, messageType.get())) {
             return;
         }
 
@@ -335,19 +616,29 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
             case OFFER:
             case ANSWER:
             case ICE_CANDIDATE:
+                if (bufferForSuspendedPlayer(channel, message)) {
+                    break;
+                }
                 Channel to = clientManager.findTargetChannel(channel, message);
+                sessionTimelineRecorder.onSignal(channel, to, messageType.get());
                 messageHelper.forwardMessage(channel, to, message);
+                if (to != null) {
+                    signallingMetrics.forwarded(receivedNanos);
+                }
                 break;
             case DISCONNECT_PLAYER:
+                // 像素流实例只能断开订阅了自己的玩家
                 String playerId = String.valueOf(message.get("playerId"));
-                Optional<Channel> player = clientManager.getPlayerByPlayerId(playerId);
+                Optional<Channel> player = ClientType.STREAMER.getValue().equals(channel.attr(ClientManager.TYPE).get())
+                        ? clientManager.getSubscribedPlayer(channel.id(), playerId)
+                        : clientManager.getPlayerByPlayerId(playerId);
                 player.ifPresent(value -> messageHelper.disconnectPlayer(value, message));
                 break;
             case PING:
                 messageHelper.sendPong(channel);
                 break;
             case PONG:
-                // 处理pong响应
+                // 心跳使用WebSocket Ping/Pong帧，JSON pong只作为入站消息刷新存活时间
                 break;
             case LIST_STREAMERS:
             case ENDPOINT_ID:
@@ -359,59 +650,30 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
     }
 
     /**
-     * 提取URL参数
+     * 实例发给宽限期中玩家的消息先缓存，玩家重连后补发
      */
-    private Map<String, String> extractUrlParameters(String uri) {
-        String query = uri.replace("/", "");
-        Map<String, String> params = new HashMap<>();
-
-        String[] pairs = query.split("&");
-        for (String pair : pairs) {
-            String[] keyValue = pair.split("=");
-            if (keyValue.length == 2) {
-                String key = URLDecoder.decode(keyValue[0], StandardCharsets.UTF_8);
-                String value = URLDecoder.decode(keyValue[1], StandardCharsets.UTF_8);
-                params.put(key, value);
-            }
+    private boolean bufferForSuspendedPlayer(Channel channel, JSONObject message) {
+        if (!ClientType.STREAMER.getValue().equals(channel.attr(ClientManager.TYPE).get())) {
+            return false;
         }
-        return params;
-    }
-
-    /**
-     * 发送HTTP响应
-     */
-    public static void sendHttpResponse(ChannelHandlerContext ctx, FullHttpRequest req, FullHttpResponse res) {
-        if (res.status().code() != HttpResponseStatus.OK.code()) {
-            ByteBuf buf = Unpooled.copiedBuffer(res.status().toString(), CharsetUtil.UTF_8);
-            res.content().writeBytes(buf);
-            buf.release();
-            HttpUtil.setContentLength(res, res.content().readableBytes());
-        }
-
-        boolean keepAlive = HttpUtil.isKeepAlive(req) && res.status().code() == HttpResponseStatus.OK.code();
-        HttpUtil.setKeepAlive(res, keepAlive);
-
-        ChannelFuture future = ctx.channel().writeAndFlush(res);
-        if (!keepAlive) {
-            future.addListener(ChannelFutureListener.CLOSE);
+        String playerId = message.getString("playerId");
+        if (!playerSessionRegistry.isSuspended(playerId)) {
+            return false;
         }
-    }
-
-    /**
-     * 获取WebSocket位置
-     */
-    private static String getWebSocketLocation(FullHttpRequest req) {
-        String host = req.headers().get(HttpHeaderNames.HOST);
-        return "ws://" + host + WEBSOCKET_PATH;
+        // 与直接转发一致，缓存的是发给玩家的内容，不含playerId
+        JSONObject forPlayer = message.clone();
+        forPlayer.remove("playerId");
+        return playerSessionRegistry.buffer(playerId, forPlayer.toString());
     }
 
     @Override
     public void userEventTriggered(ChannelHandlerContext ctx, Object evt) {
-        if (evt instanceof IdleStateEvent event) {
-            if (event.state() == IdleState.READER_IDLE ||
-                    event.state() == IdleState.WRITER_IDLE ||
-                    event.state() == IdleState.ALL_IDLE) {
-                messageHelper.sendPing(ctx.channel());
+        if (evt instanceof SignallingUpgradeEvent event) {
+            try {
+                processConnectionParameters(ctx, event);
+            } catch (Exception e) {
+                LoggerUtil.logError(log, "客户端连接", "处理连接参数时发生错误", e);
+                ctx.close();
             }
         }
     }
@@ -449,15 +711,28 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
      */
     private void handlePlayerDisconnection(Channel channel) {
         String playerId = channel.attr(ClientManager.PLAYERID).get();
+        playerAdmissionQueue.cancel(channel);
+        sessionTimelineRecorder.finish(channel);
+        Optional<Channel> streamer = clientManager.getSubscribedStreamer(channel.id());
+
+        if (streamer.isPresent() && playerSessionRegistry.suspend(channel)) {
+            // 意外断开：保留玩家ID与实例席位，等待玩家在宽限期内重连
+            LoggerUtil.logConnection("播放器", playerId, "连接中断", "等待重连");
+            log.info("播放器 {} 连接中断，保留席位 {} 毫秒", playerId, playerSessionRegistry.getGraceMillis());
+            clientManager.suspendPlayer(channel);
+            return;
+        }
 
         if (playerId != null) {
             LoggerUtil.logConnection("播放器", playerId, "已断开连接", "正常断开");
             log.info("播放器 {} 已断开连接", playerId);
-            playerIdPool.releasePlayerId(playerId);
-            Optional<Channel> streamer = clientManager.getSubscribedStreamer(channel.id());
+            playerIdPool.releasePlayerId(playerId, channel.id());
             streamer.ifPresent(value -> messageHelper.unsubscribeStreamer(value, playerId));
         }
         clientManager.removeChannel(channel);
+
+        // 实例可能因此空闲，分配给排队中的玩家
+        streamer.ifPresent(value -> admitQueuedPlayers(value.attr(ClientManager.PROJECT_ID).get()));
     }
 
     /**
@@ -480,7 +755,12 @@ public class SignallingChannelHandler extends SimpleChannelInboundHandler<Object
 
     @Override
     public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
-        log.error("Exception caught in channel {}", ctx.channel().id(), cause);
+        if (cause instanceof DecoderException) {
+            // 超长或畸形的帧，解码器已按协议关闭连接，不需要堆栈
+            log.warn("Invalid frame from channel {}: {}", ctx.channel().id(), cause.getMessage());
+        } else {
+            log.error("Exception caught in channel {}", ctx.channel().id(), cause);
+        }
         ctx.close();
     }
 }
\ No newline at end of file
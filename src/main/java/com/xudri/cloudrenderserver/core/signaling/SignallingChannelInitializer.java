@@ -1,18 +1,16 @@
 package com.xudri.cloudrenderserver.core.signaling;
 
-import com.xudri.cloudrenderserver.core.signaling.SignallingChannelHandler;
 import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelPipeline;
 import io.netty.channel.socket.SocketChannel;
 import io.netty.handler.codec.http.HttpObjectAggregator;
 import io.netty.handler.codec.http.HttpServerCodec;
-import io.netty.handler.codec.string.StringEncoder;
-import io.netty.handler.stream.ChunkedWriteHandler;
-import io.netty.handler.timeout.IdleStateHandler;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import jakarta.annotation.PostConstruct;
 import jakarta.annotation.Resource;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.concurrent.TimeUnit;
-
 /**
  * @ClassName SignallingChannelInitializer @Description TODO @Author MaxYun @Date 2024/3/6
  * 19:43 @Version 1.0
@@ -20,18 +18,64 @@ import java.util.concurrent.TimeUnit;
 @Component
 public class SignallingChannelInitializer extends ChannelInitializer<SocketChannel> {
 
+    private static final String WEBSOCKET_LOCATION = "ws://localhost/websocket";
+
+    // 升级请求没有请求体，只需容纳请求行和头部
+    private static final int MAX_UPGRADE_REQUEST_SIZE = 8 * 1024;
+
     @Resource
     private SignallingChannelHandler signallingChannelHandler;
 
+    @Resource
+    private SignallingStats signallingStats;
+
+    @Resource
+    private SignallingMetrics signallingMetrics;
+
+    @Resource
+    private SignallingRateLimiter signallingRateLimiter;
+
+    @Resource
+    private SignallingLoadShedder signallingLoadShedder;
+
+    @Resource
+    private SignallingCompression signallingCompression;
+
+    @Resource
+    private SignallingAuthenticator signallingAuthenticator;
+
+    @Value("${signalling.flush.max-batch:16}")
+    private int flushMaxBatch;
+
+    @Value("${signalling.flush.max-delay-micros:0}")
+    private long flushMaxDelayMicros;
+
+    @Value("${signalling.websocket.max-frame-payload:65536}")
+    private int maxFramePayload;
+
+    @Value("${signalling.websocket.max-aggregated-frame-size:65536}")
+    private int maxAggregatedFrameSize;
+
+    // 握手器工厂无状态，所有连接共享；V13握手不使用location，这里仅作占位
+    private WebSocketServerHandshakerFactory handshakerFactory;
+
+    @PostConstruct
+    public void init() {
+        handshakerFactory = new WebSocketServerHandshakerFactory(WEBSOCKET_LOCATION,
+                SignallingAuthenticator.BEARER_SUBPROTOCOL, true, maxFramePayload);
+    }
+
     @Override
     protected void initChannel(SocketChannel socketChannel) {
-        socketChannel
-                .pipeline()
-                .addLast(new IdleStateHandler(0, 30, 0, TimeUnit.SECONDS))
+        ChannelPipeline pipeline = socketChannel.pipeline()
+                .addLast(new FlushCoalescingHandler(flushMaxBatch, flushMaxDelayMicros, signallingStats,
+                        signallingMetrics))
                 .addLast(new HttpServerCodec())
-                .addLast(new StringEncoder())
-                .addLast(new HttpObjectAggregator(512 * 1024))
-                .addLast(signallingChannelHandler)
-                .addLast(new ChunkedWriteHandler());
+                .addLast(new HttpObjectAggregator(MAX_UPGRADE_REQUEST_SIZE));
+        signallingCompression.install(pipeline);
+        pipeline.addLast(new WebSocketUpgradeHandler(handshakerFactory, maxAggregatedFrameSize, signallingCompression,
+                        signallingAuthenticator, signallingMetrics, signallingRateLimiter,
+                        signallingLoadShedder))
+                .addLast(signallingChannelHandler);
     }
 }
@@ -0,0 +1,217 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelDuplexHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelPipeline;
+import io.netty.channel.ChannelPromise;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilter;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketExtensionFilterProvider;
+import io.netty.handler.codec.http.websocketx.extensions.WebSocketServerExtensionHandler;
+import io.netty.handler.codec.http.websocketx.extensions.compression.PerMessageDeflateServerExtensionHandshaker;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName SignallingCompression
+ * @Description WebSocket permessage-deflate压缩：按客户端协商，回环地址的像素流实例不压缩，并统计压缩收益与耗时
+ * @Author MaxYun
+ * @Since 2025/9/25 10:30
+ * @Version 1.0
+ */
+@Component
+public class SignallingCompression {
+
+    private static final String EXTENSION_HANDLER = "wsextension";
+    private static final String OUTER_PROBE = "wscompressprobe-outer";
+    private static final String INNER_PROBE = "wscompressprobe-inner";
+
+    // RFC 7692：RSV1位表示该消息已压缩
+    private static final int RSV1_COMPRESSED = 0x4;
+
+    @Getter
+    @Value("${signalling.compression.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.compression.level:6}")
+    private int compressionLevel;
+
+    @Value("${signalling.compression.min-size:1024}")
+    private int minSize;
+
+    // 单帧解压后的字节上限，与聚合后的消息上限一致，避免高压缩比的帧在聚合前占用大量内存
+    @Value("${signalling.websocket.max-aggregated-frame-size:65536}")
+    private int maxAllocation;
+
+    // 压缩方向（服务端发出）
+    private final LongAdder framesCompressed = new LongAdder();
+    private final LongAdder bytesBeforeCompression = new LongAdder();
+    private final LongAdder bytesAfterCompression = new LongAdder();
+    private final LongAdder compressionNanos = new LongAdder();
+    private final LongAdder framesBelowThreshold = new LongAdder();
+
+    // 解压方向（客户端发来）
+    private final LongAdder framesDecompressed = new LongAdder();
+    private final LongAdder bytesBeforeDecompression = new LongAdder();
+    private final LongAdder bytesAfterDecompression = new LongAdder();
+    private final LongAdder decompressionNanos = new LongAdder();
+
+    /**
+     * 在升级处理器之前安装扩展协商处理器及统计探针
+     */
+    public void install(ChannelPipeline pipeline) {
+        if (!enabled) {
+            return;
+        }
+        WebSocketExtensionFilter skipSmallFrames = frame -> frame.content().readableBytes() < minSize;
+        WebSocketExtensionFilterProvider filterProvider = new WebSocketExtensionFilterProvider() {
+            @Override
+            public WebSocketExtensionFilter encoderFilter() {
+                return skipSmallFrames;
+            }
+
+            @Override
+            public WebSocketExtensionFilter decoderFilter() {
+                return WebSocketExtensionFilter.NEVER_SKIP;
+            }
+        };
+
+        Probe probe = new Probe();
+        pipeline.addLast(INNER_PROBE, probe.inner);
+        pipeline.addLast(EXTENSION_HANDLER, new WebSocketServerExtensionHandler(
+                new PerMessageDeflateServerExtensionHandshaker(compressionLevel, false,
+                        PerMessageDeflateServerExtensionHandshaker.MAX_WINDOW_SIZE, false, false, filterProvider,
+                        maxAllocation)));
+        pipeline.addLast(OUTER_PROBE, probe.outer);
+    }
+
+    /**
+     * 握手前决定是否协商压缩；不需要压缩时移除扩展处理器，握手响应中将不包含permessage-deflate
+     *
+     * @param channel 客户端通道
+     * @param params  连接参数，compress=0表示客户端主动关闭压缩
+     */
+    public void negotiate(Channel channel, Map<String, String> params) {
+        ChannelPipeline pipeline = channel.pipeline();
+        if (pipeline.get(EXTENSION_HANDLER) == null) {
+            return;
+        }
+        if (!shouldCompress(channel, params)) {
+            pipeline.remove(EXTENSION_HANDLER);
+            pipeline.remove(OUTER_PROBE);
+            pipeline.remove(INNER_PROBE);
+        }
+    }
+
+    private boolean shouldCompress(Channel channel, Map<String, String> params) {
+        if ("0".equals(params.get("compress"))) {
+            return false;
+        }
+        if (ClientType.STREAMER.getValue().equals(params.get("type"))) {
+            return false;
+        }
+        return !(channel.remoteAddress() instanceof InetSocketAddress address)
+                || !address.getAddress().isLoopbackAddress();
+    }
+
+    /**
+     * 获取压缩统计
+     */
+    public JSONObject toJson() {
+        JSONObject stats = new JSONObject();
+        long before = bytesBeforeCompression.sum();
+        long after = bytesAfterCompression.sum();
+        stats.put("enabled", enabled);
+        stats.put("framesCompressed", framesCompressed.sum());
+        stats.put("framesBelowThreshold", framesBelowThreshold.sum());
+        stats.put("bytesBeforeCompression", before);
+        stats.put("bytesAfterCompression", after);
+        stats.put("bytesSaved", before - after);
+        stats.put("compressionMillis", compressionNanos.sum() / 1_000_000);
+        long inflatedBefore = bytesBeforeDecompression.sum();
+        long inflatedAfter = bytesAfterDecompression.sum();
+        stats.put("framesDecompressed", framesDecompressed.sum());
+        stats.put("bytesBeforeDecompression", inflatedBefore);
+        stats.put("bytesAfterDecompression", inflatedAfter);
+        stats.put("inboundBytesSaved", inflatedAfter - inflatedBefore);
+        stats.put("decompressionMillis", decompressionNanos.sum() / 1_000_000);
+        return stats;
+    }
+
+    /**
+     * 包围压缩编解码器的一对探针。Netty在同一线程内同步调用相邻处理器，
+     * 因此两侧探针之间的耗时即为压缩/解压耗时
+     */
+    private final class Probe {
+        private long outboundStart;
+        private int outboundSize = -1;
+        private long inboundStart;
+        private int inboundSize = -1;
+
+        // 靠近业务一侧：出站帧压缩前、入站帧解压后
+        private final ChannelDuplexHandler outer = new ChannelDuplexHandler() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                if (!(msg instanceof WebSocketFrame frame)) {
+                    ctx.write(msg, promise);
+                    return;
+                }
+                outboundSize = frame.content().readableBytes();
+                outboundStart = System.nanoTime();
+                try {
+                    ctx.write(msg, promise);
+                } finally {
+                    outboundSize = -1;
+                }
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (inboundSize >= 0 && msg instanceof WebSocketFrame frame) {
+                    decompressionNanos.add(System.nanoTime() - inboundStart);
+                    framesDecompressed.increment();
+                    bytesBeforeDecompression.add(inboundSize);
+                    bytesAfterDecompression.add(frame.content().readableBytes());
+                    inboundSize = -1;
+                }
+                ctx.fireChannelRead(msg);
+            }
+        };
+
+        // 靠近网络一侧：出站帧压缩后、入站帧解压前
+        private final ChannelDuplexHandler inner = new ChannelDuplexHandler() {
+            @Override
+            public void write(ChannelHandlerContext ctx, Object msg, ChannelPromise promise) {
+                if (outboundSize >= 0 && msg instanceof WebSocketFrame frame) {
+                    if ((frame.rsv() & RSV1_COMPRESSED) != 0) {
+                        compressionNanos.add(System.nanoTime() - outboundStart);
+                        framesCompressed.increment();
+                        bytesBeforeCompression.add(outboundSize);
+                        bytesAfterCompression.add(frame.content().readableBytes());
+                    } else {
+                        framesBelowThreshold.increment();
+                    }
+                    outboundSize = -1;
+                }
+                ctx.write(msg, promise);
+            }
+
+            @Override
+            public void channelRead(ChannelHandlerContext ctx, Object msg) {
+                if (msg instanceof WebSocketFrame frame && (frame.rsv() & RSV1_COMPRESSED) != 0) {
+                    inboundSize = frame.content().readableBytes();
+                    inboundStart = System.nanoTime();
+                }
+                ctx.fireChannelRead(msg);
+            }
+        };
+    }
+}
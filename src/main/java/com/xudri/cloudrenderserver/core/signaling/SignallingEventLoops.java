@@ -0,0 +1,209 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * @ClassName SignallingEventLoops
+ * @Description 按客户端类型划分的工作事件循环组：连接在接收它的组（玩家组）上完成握手，
+ * 类型确定后像素流实例与管理端连接移交到各自的组。玩家与实例分属不同组时玩家始终留在玩家组，
+ * EventLoopAffinity不再把玩家迁移到实例的事件循环，各组的利用率只反映本类型的负载。
+ * 后台按线程CPU时间采样各事件循环的利用率，用于确定各组线程数
+ * @Author MaxYun
+ * @Since 2025/9/29 15:40
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class SignallingEventLoops {
+
+    private static final ThreadMXBean THREADS = ManagementFactory.getThreadMXBean();
+
+    private volatile Map<ClientType, LoopGroup> groups = new EnumMap<>(ClientType.class);
+
+    /**
+     * 设置各客户端类型使用的事件循环组，多个类型可以共用同一个组；信令服务器停止时传入空表
+     */
+    public void bind(Map<ClientType, EventLoopGroup> assignments) {
+        Map<EventLoopGroup, LoopGroup> distinct = new IdentityHashMap<>();
+        Map<ClientType, LoopGroup> bound = new EnumMap<>(ClientType.class);
+        assignments.forEach((type, group) -> bound.put(type, distinct.computeIfAbsent(group, LoopGroup::new)));
+        groups = bound;
+    }
+
+    /**
+     * 将通道移交到其类型对应的事件循环组，完成后在新的事件循环上执行continuation；
+     * 已在该组内或未配置该类型时直接在当前线程执行。continuation抛出异常时关闭通道
+     */
+    public void handOff(Channel channel, ClientType type, Runnable continuation) {
+        LoopGroup target = groups.get(type);
+        if (target == null || channel.eventLoop().parent() == target.group) {
+            EventLoopAffinity.runOrClose(channel, continuation);
+            return;
+        }
+        EventLoopAffinity.migrate(channel, target.group.next()).addListener(future -> {
+            if (!future.isSuccess()) {
+                log.warn("通道 {} 移交到{}事件循环组失败，留在原事件循环", channel, type.getValue(), future.cause());
+            }
+            if (channel.isRegistered()) {
+                EventLoopAffinity.runOrClose(channel, continuation);
+            }
+        });
+    }
+
+    /**
+     * 两种客户端类型是否绑定到不同的事件循环组
+     */
+    public boolean isIsolated(ClientType first, ClientType second) {
+        LoopGroup a = groups.get(first);
+        LoopGroup b = groups.get(second);
+        return a != null && b != null && a != b;
+    }
+
+    /**
+     * 该类型所在组的平均利用率（0-1），未绑定时为0
+     */
+    public double getUtilization(ClientType type) {
+        LoopGroup group = groups.get(type);
+        return group == null ? 0d : group.averageUtilization();
+    }
+
+    /**
+     * 该类型所在组的线程数，未绑定时为0
+     */
+    public int getThreadCount(ClientType type) {
+        LoopGroup group = groups.get(type);
+        return group == null ? 0 : group.loops.length;
+    }
+
+    /**
+     * 按线程CPU时间计算各事件循环在上一采样周期内的利用率
+     */
+    @Scheduled(fixedRateString = "${signalling.transport.utilization-sample-ms:5000}")
+    public void sample() {
+        if (!THREADS.isThreadCpuTimeSupported()) {
+            return;
+        }
+        long now = System.nanoTime();
+        for (LoopGroup group : distinctGroups()) {
+            group.sample(now);
+        }
+    }
+
+    /**
+     * 获取各客户端类型的事件循环组统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        groups.forEach((type, group) -> {
+            JSONObject json = new JSONObject();
+            json.put("threads", group.loops.length);
+            json.put("shared", groups.values().stream().filter(other -> other == group).count() > 1);
+            json.put("utilization", Math.round(group.averageUtilization() * 1000) / 1000d);
+            JSONArray loops = new JSONArray();
+            for (int i = 0; i < group.loops.length; i++) {
+                JSONObject loop = new JSONObject();
+                loop.put("utilization", Math.round(group.utilizationOf(i) * 1000) / 1000d);
+                loop.put("pendingTasks", group.loops[i] instanceof SingleThreadEventExecutor executor
+                        ? executor.pendingTasks() : -1);
+                loops.add(loop);
+            }
+            json.put("loops", loops);
+            stats.put(type.getValue(), json);
+        });
+        return stats;
+    }
+
+    private List<LoopGroup> distinctGroups() {
+        List<LoopGroup> distinct = new ArrayList<>();
+        for (LoopGroup group : groups.values()) {
+            if (!distinct.contains(group)) {
+                distinct.add(group);
+            }
+        }
+        return distinct;
+    }
+
+    /**
+     * 单个事件循环组的采样状态。线程ID在事件循环线程上记录，采样时跳过尚未启动的线程
+     */
+    private static final class LoopGroup {
+        private final EventLoopGroup group;
+        private final EventLoop[] loops;
+        private final long[] threadIds;
+        private final long[] lastCpuNanos;
+        private final double[] utilization;
+        private long lastSampleNanos;
+
+        LoopGroup(EventLoopGroup group) {
+            this.group = group;
+            List<EventLoop> members = new ArrayList<>();
+            for (EventExecutor executor : group) {
+                members.add((EventLoop) executor);
+            }
+            loops = members.toArray(new EventLoop[0]);
+            threadIds = new long[loops.length];
+            lastCpuNanos = new long[loops.length];
+            utilization = new double[loops.length];
+            lastSampleNanos = System.nanoTime();
+            for (int i = 0; i < loops.length; i++) {
+                int index = i;
+                threadIds[i] = -1;
+                try {
+                    loops[i].execute(() -> recordThread(index));
+                } catch (RejectedExecutionException e) {
+                    // 事件循环组正在关闭
+                }
+            }
+        }
+
+        private synchronized void recordThread(int index) {
+            threadIds[index] = Thread.currentThread().getId();
+        }
+
+        synchronized void sample(long now) {
+            long elapsed = now - lastSampleNanos;
+            lastSampleNanos = now;
+            for (int i = 0; i < loops.length; i++) {
+                long cpu = threadIds[i] < 0 ? -1 : THREADS.getThreadCpuTime(threadIds[i]);
+                if (cpu < 0) {
+                    continue;
+                }
+                if (lastCpuNanos[i] > 0 && elapsed > 0) {
+                    utilization[i] = Math.min(1d, (double) (cpu - lastCpuNanos[i]) / elapsed);
+                }
+                lastCpuNanos[i] = cpu;
+            }
+        }
+
+        synchronized double utilizationOf(int index) {
+            return utilization[index];
+        }
+
+        synchronized double averageUtilization() {
+            double sum = 0;
+            for (double value : utilization) {
+                sum += value;
+            }
+            return loops.length == 0 ? 0d : sum / loops.length;
+        }
+    }
+}
@@ -0,0 +1,268 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.PlayerIdPool;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.EventLoopGroup;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import io.netty.util.concurrent.EventExecutor;
+import io.netty.util.concurrent.SingleThreadEventExecutor;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.annotation.Resource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName SignallingLoadShedder
+ * @Description 握手阶段的自适应减载：后台线程定期向每个工作事件循环投递探测任务，测量任务排队时延与待处理任务数，
+ * 并检查玩家号码余量与玩家连接上限；超过阈值时进入减载状态，玩家的升级请求直接返回503与Retry-After，
+ * 指标回落到阈值的一定比例以下后恢复。像素流实例与管理端连接从不减载
+ * @Author MaxYun
+ * @Since 2025/9/28 18:10
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class SignallingLoadShedder {
+
+    // 事件循环时延平滑系数
+    private static final double LAG_ALPHA = 0.3;
+
+    @Value("${signalling.load-shedding.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.load-shedding.probe-interval-ms:100}")
+    private long probeIntervalMillis;
+
+    @Value("${signalling.load-shedding.max-loop-lag-ms:50}")
+    private double maxLoopLagMillis;
+
+    @Value("${signalling.load-shedding.max-pending-tasks:2000}")
+    private int maxPendingTasks;
+
+    @Value("${signalling.load-shedding.min-free-player-ids:64}")
+    private int minFreePlayerIds;
+
+    // 0表示不限制
+    @Value("${signalling.load-shedding.max-player-connections:0}")
+    private int maxPlayerConnections;
+
+    @Value("${signalling.load-shedding.recover-ratio:0.5}")
+    private double recoverRatio;
+
+    @Value("${signalling.load-shedding.retry-after-seconds:5}")
+    private int retryAfterSeconds;
+
+    @Resource
+    private ClientManager clientManager;
+
+    @Resource
+    private PlayerIdPool playerIdPool;
+
+    @Resource
+    private SignallingMetrics signallingMetrics;
+
+    private ScheduledExecutorService prober;
+
+    private volatile LoopProbe[] probes = new LoopProbe[0];
+
+    private volatile boolean shedding;
+    private volatile String reason;
+    private volatile double maxLagMillis;
+    private volatile int maxPending;
+
+    private final LongAdder shedHandshakes = new LongAdder();
+    private final LongAdder episodes = new LongAdder();
+
+    // 本次减载开始时的拒绝数，仅在探测线程上读写
+    private long shedAtEpisodeStart;
+
+    @PostConstruct
+    public void init() {
+        prober = Executors.newSingleThreadScheduledExecutor(new DefaultThreadFactory("signalling-load-probe", true));
+        prober.scheduleAtFixedRate(this::probe, probeIntervalMillis, probeIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        prober.shutdownNow();
+    }
+
+    /**
+     * 设置需要监测的工作事件循环组，信令服务器停止时不传参数
+     */
+    public void watch(EventLoopGroup... groups) {
+        List<LoopProbe> watched = new ArrayList<>();
+        for (EventLoopGroup group : groups) {
+            for (EventExecutor executor : group) {
+                watched.add(new LoopProbe(executor));
+            }
+        }
+        probes = watched.toArray(new LoopProbe[0]);
+    }
+
+    /**
+     * 判断是否拒绝该升级请求，被拒绝时计数
+     *
+     * @param clientType 升级请求携带的客户端类型参数
+     */
+    public boolean shouldShed(String clientType) {
+        if (!enabled || !shedding
+                || ClientType.STREAMER.getValue().equals(clientType)
+                || ClientType.ADMIN.getValue().equals(clientType)) {
+            return false;
+        }
+        shedHandshakes.increment();
+        signallingMetrics.handshakeShed();
+        return true;
+    }
+
+    /**
+     * 建议客户端的重试间隔（秒），加入随机抖动避免被拒绝的客户端同时重连
+     */
+    public int getRetryAfterSeconds() {
+        return retryAfterSeconds + ThreadLocalRandom.current().nextInt(retryAfterSeconds + 1);
+    }
+
+    public boolean isShedding() {
+        return shedding;
+    }
+
+    public double getMaxLagMillis() {
+        return maxLagMillis;
+    }
+
+    public int getMaxPendingTasks() {
+        return maxPending;
+    }
+
+    /**
+     * 获取减载统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        stats.put("shedding", shedding);
+        stats.put("reason", reason);
+        stats.put("shedHandshakes", shedHandshakes.sum());
+        stats.put("episodes", episodes.sum());
+        stats.put("maxLagMillis", Math.round(maxLagMillis * 100) / 100d);
+        stats.put("maxPendingTasks", maxPending);
+        JSONArray loops = new JSONArray();
+        for (LoopProbe probe : probes) {
+            JSONObject loop = new JSONObject();
+            loop.put("lagMillis", Math.round(probe.lagMillis * 100) / 100d);
+            loop.put("pendingTasks", probe.pendingTasks);
+            loops.add(loop);
+        }
+        stats.put("loops", loops);
+        JSONObject thresholds = new JSONObject();
+        thresholds.put("maxLoopLagMillis", maxLoopLagMillis);
+        thresholds.put("maxPendingTasks", maxPendingTasks);
+        thresholds.put("minFreePlayerIds", minFreePlayerIds);
+        thresholds.put("maxPlayerConnections", maxPlayerConnections);
+        thresholds.put("recoverRatio", recoverRatio);
+        stats.put("thresholds", thresholds);
+        return stats;
+    }
+
+    private void probe() {
+        try {
+            long now = System.nanoTime();
+            double lag = 0;
+            int pending = 0;
+            for (LoopProbe probe : probes) {
+                probe.submit(now);
+                lag = Math.max(lag, probe.lagMillis);
+                pending = Math.max(pending, probe.pendingTasks);
+            }
+            maxLagMillis = lag;
+            maxPending = pending;
+            evaluate(lag, pending);
+        } catch (Exception e) {
+            log.error("Error probing event loop load", e);
+        }
+    }
+
+    private void evaluate(double lag, int pending) {
+        // 进入减载按阈值判断，退出时要求回落到阈值的recoverRatio倍以下，避免在阈值附近反复切换
+        double ratio = shedding ? recoverRatio : 1d;
+        String cause = null;
+        if (lag > maxLoopLagMillis * ratio) {
+            cause = "loop-lag";
+        } else if (pending > maxPendingTasks * ratio) {
+            cause = "pending-tasks";
+        } else if (playerIdPool.getAvailableIdsCount() < minFreePlayerIds) {
+            cause = "player-ids";
+        } else if (maxPlayerConnections > 0
+                && clientManager.countByType(ClientType.PLAYER.getValue()) >= maxPlayerConnections) {
+            cause = "player-connections";
+        }
+
+        if (cause != null && !shedding) {
+            episodes.increment();
+            shedAtEpisodeStart = shedHandshakes.sum();
+            log.warn("信令服务器过载（{}），开始拒绝玩家连接。事件循环时延 {} 毫秒，待处理任务 {}",
+                    cause, Math.round(lag), pending);
+        } else if (cause == null && shedding) {
+            log.info("信令服务器负载恢复，停止拒绝玩家连接，本次共拒绝 {} 次握手",
+                    shedHandshakes.sum() - shedAtEpisodeStart);
+        }
+        reason = cause;
+        shedding = cause != null;
+    }
+
+    /**
+     * 单个事件循环的探测状态，上一个探测任务尚未执行时不重复投递
+     */
+    private static final class LoopProbe implements Runnable {
+        private final EventExecutor executor;
+        private volatile long submittedNanos;
+        private volatile boolean inFlight;
+        private volatile double lagMillis;
+        private volatile int pendingTasks;
+
+        LoopProbe(EventExecutor executor) {
+            this.executor = executor;
+        }
+
+        void submit(long now) {
+            if (executor instanceof SingleThreadEventExecutor loop) {
+                pendingTasks = loop.pendingTasks();
+            }
+            if (inFlight) {
+                // 上一个探测任务仍在排队，时延至少为已等待的时间
+                lagMillis = Math.max(lagMillis, (now - submittedNanos) / 1_000_000d);
+                return;
+            }
+            submittedNanos = now;
+            inFlight = true;
+            try {
+                executor.execute(this);
+            } catch (RejectedExecutionException e) {
+                // 事件循环正在关闭
+                inFlight = false;
+            }
+        }
+
+        @Override
+        public void run() {
+            double lag = (System.nanoTime() - submittedNanos) / 1_000_000d;
+            lagMillis = LAG_ALPHA * lag + (1 - LAG_ALPHA) * lagMillis;
+            inFlight = false;
+        }
+    }
+}
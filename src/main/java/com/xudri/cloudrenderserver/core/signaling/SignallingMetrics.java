@@ -0,0 +1,165 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import com.xudri.cloudrenderserver.domain.enums.MessageType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * @ClassName SignallingMetrics
+ * @Description 信令通道的Micrometer指标：按消息类型计数、线路字节数、转发耗时与握手统计；
+ * 所有计量器在启动时按枚举序号预先创建，事件循环上的记录只做数组下标访问，不查表、不分配对象
+ * @Author MaxYun
+ * @Since 2025/9/28 14:20
+ * @Version 1.0
+ */
+@Component
+public class SignallingMetrics {
+
+    private final Counter[] messagesByType;
+    private final Counter unknownMessages;
+    private final Counter bytesIn;
+    private final Counter bytesOut;
+    private final Timer forwardLatency;
+    private final Timer[] handshakesByType;
+    private final Counter handshakesUnauthorized;
+    private final Counter handshakesRateLimited;
+    private final Counter handshakesShed;
+    private final Counter[] rateLimitedByViolation;
+
+    public SignallingMetrics(MeterRegistry registry, SignallingStats stats) {
+        MessageType[] messageTypes = MessageType.values();
+        messagesByType = new Counter[messageTypes.length];
+        for (MessageType type : messageTypes) {
+            messagesByType[type.ordinal()] = Counter.builder("signalling.messages")
+                    .description("Signalling messages received, by message type")
+                    .tag("type", type.getValue())
+                    .register(registry);
+        }
+        unknownMessages = Counter.builder("signalling.messages")
+                .description("Signalling messages received, by message type")
+                .tag("type", "unknown")
+                .register(registry);
+
+        bytesIn = Counter.builder("signalling.bytes")
+                .description("Bytes read from or written to signalling sockets")
+                .baseUnit("bytes")
+                .tag("direction", "in")
+                .register(registry);
+        bytesOut = Counter.builder("signalling.bytes")
+                .description("Bytes read from or written to signalling sockets")
+                .baseUnit("bytes")
+                .tag("direction", "out")
+                .register(registry);
+
+        forwardLatency = Timer.builder("signalling.forward.latency")
+                .description("Time from reading an OFFER/ANSWER/ICE frame to writing it to the peer")
+                .publishPercentileHistogram()
+                .register(registry);
+
+        ClientType[] clientTypes = ClientType.values();
+        handshakesByType = new Timer[clientTypes.length];
+        for (ClientType type : clientTypes) {
+            handshakesByType[type.ordinal()] = Timer.builder("signalling.handshakes")
+                    .description("Completed WebSocket handshakes and their duration including authentication")
+                    .tag("client", type.getValue())
+                    .register(registry);
+        }
+        handshakesUnauthorized = Counter.builder("signalling.handshakes.rejected")
+                .description("WebSocket upgrade requests rejected before the handshake")
+                .tag("reason", "unauthorized")
+                .register(registry);
+        handshakesRateLimited = Counter.builder("signalling.handshakes.rejected")
+                .description("WebSocket upgrade requests rejected before the handshake")
+                .tag("reason", "rate_limited")
+                .register(registry);
+        handshakesShed = Counter.builder("signalling.handshakes.rejected")
+                .description("WebSocket upgrade requests rejected before the handshake")
+                .tag("reason", "overloaded")
+                .register(registry);
+
+        SignallingRateLimiter.Violation[] violations = SignallingRateLimiter.Violation.values();
+        rateLimitedByViolation = new Counter[violations.length];
+        for (SignallingRateLimiter.Violation violation : violations) {
+            rateLimitedByViolation[violation.ordinal()] = Counter.builder("signalling.rate.limited")
+                    .description("Frames dropped or connections closed by rate limits, by violated limit")
+                    .tag("limit", violation.getValue())
+                    .register(registry);
+        }
+
+        // 已有的运行计数器按抓取时读取
+        FunctionCounter.builder("signalling.flushes", stats, SignallingStats::getFlushRequested)
+                .tag("stage", "requested")
+                .register(registry);
+        FunctionCounter.builder("signalling.flushes", stats, SignallingStats::getFlushExecuted)
+                .tag("stage", "executed")
+                .register(registry);
+        FunctionCounter.builder("signalling.frames.dropped", stats, SignallingStats::getFramesDropped)
+                .register(registry);
+        FunctionCounter.builder("signalling.players.evicted", stats, SignallingStats::getPlayersEvicted)
+                .register(registry);
+        FunctionCounter.builder("signalling.frames.forwarded", stats, SignallingStats::getFramesForwarded)
+                .register(registry);
+    }
+
+    /**
+     * 收到一条已识别类型的消息
+     */
+    public void messageReceived(MessageType type) {
+        messagesByType[type.ordinal()].increment();
+    }
+
+    /**
+     * 收到无法识别类型的消息
+     */
+    public void unknownMessageReceived() {
+        unknownMessages.increment();
+    }
+
+    public void bytesRead(int bytes) {
+        bytesIn.increment(bytes);
+    }
+
+    public void bytesWritten(int bytes) {
+        bytesOut.increment(bytes);
+    }
+
+    /**
+     * 记录一次转发耗时
+     *
+     * @param receivedNanos 读到该帧时的System.nanoTime()
+     */
+    public void forwarded(long receivedNanos) {
+        forwardLatency.record(System.nanoTime() - receivedNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * 记录一次完成的握手
+     *
+     * @param requestNanos 收到升级请求时的System.nanoTime()
+     */
+    public void handshakeCompleted(ClientType type, long requestNanos) {
+        handshakesByType[type.ordinal()].record(System.nanoTime() - requestNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void handshakeUnauthorized() {
+        handshakesUnauthorized.increment();
+    }
+
+    public void handshakeRateLimited() {
+        handshakesRateLimited.increment();
+    }
+
+    public void handshakeShed() {
+        handshakesShed.increment();
+    }
+
+    public void rateLimited(SignallingRateLimiter.Violation violation) {
+        rateLimitedByViolation[violation.ordinal()].increment();
+    }
+}
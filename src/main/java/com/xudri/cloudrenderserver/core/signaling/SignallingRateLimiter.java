@@ -0,0 +1,490 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.common.util.LogSampler;
+import com.xudri.cloudrenderserver.core.client.PlayerSessionRegistry;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import com.xudri.cloudrenderserver.domain.enums.MessageType;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.PongWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketCloseStatus;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.AttributeKey;
+import io.netty.util.NetUtil;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.Resource;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName SignallingRateLimiter
+ * @Description 信令限流：按来源IP限制握手频率；玩家连接按令牌桶限制每秒消息数、每种消息类型的频率与字节数，
+ * 同一IP的玩家共享一个消息桶，超过单帧大小上限的帧直接断开。超限的帧在解析前丢弃，只采样记录日志，
+ * 短时间内违规过多的连接以策略违规关闭。像素流实例不受握手限流，像素流实例与管理端连接不受消息限流。
+ * 来自可信代理的连接按X-Forwarded-For中最右侧的非代理地址计算来源IP
+ * @Author MaxYun
+ * @Since 2025/9/28 16:40
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class SignallingRateLimiter {
+
+    private static final AttributeKey<ChannelLimits> LIMITS = AttributeKey.valueOf("RateLimits");
+
+    /**
+     * 握手时确定的客户端来源IP，经过可信代理时取自X-Forwarded-For
+     */
+    public static final AttributeKey<InetAddress> CLIENT_ADDRESS = AttributeKey.valueOf("ClientAddress");
+
+    private static final String FORWARDED_FOR = "X-Forwarded-For";
+
+    private static final LogSampler LOG_SAMPLER = LogSampler.of("rateLimit", 256);
+
+    @Value("${signalling.rate-limit.enabled:true}")
+    private boolean enabled;
+
+    @Value("${signalling.rate-limit.burst-seconds:5}")
+    private double burstSeconds;
+
+    @Value("${signalling.rate-limit.messages-per-second:20}")
+    private double messagesPerSecond;
+
+    @Value("${signalling.rate-limit.bytes-per-second:65536}")
+    private double bytesPerSecond;
+
+    @Value("${signalling.rate-limit.max-frame-bytes:32768}")
+    private int maxFrameBytes;
+
+    /**
+     * 消息类型 -> 每秒条数，未配置的类型只受总消息数限制
+     */
+    @Value("#{${signalling.rate-limit.message-rates:{:}}}")
+    private Map<String, Integer> messageRates;
+
+    @Value("${signalling.rate-limit.ip-messages-per-second:200}")
+    private double ipMessagesPerSecond;
+
+    @Value("${signalling.rate-limit.ip-handshakes-per-second:2}")
+    private double ipHandshakesPerSecond;
+
+    @Value("${signalling.rate-limit.ip-handshake-burst:20}")
+    private double ipHandshakeBurst;
+
+    // 本机的像素流实例与压测客户端不按IP限流
+    @Value("${signalling.rate-limit.exempt-loopback:true}")
+    private boolean exemptLoopback;
+
+    // 可信反向代理的地址或网段（如 10.0.0.0/8），只有来自这些地址的X-Forwarded-For才被采信
+    @Value("${signalling.rate-limit.trusted-proxies:}")
+    private List<String> trustedProxies;
+
+    @Value("${signalling.rate-limit.max-tracked-ips:100000}")
+    private int maxTrackedIps;
+
+    @Value("${signalling.rate-limit.max-violations:200}")
+    private int maxViolations;
+
+    @Value("${signalling.rate-limit.violation-window-ms:10000}")
+    private long violationWindowMillis;
+
+    @Resource
+    private SignallingMetrics signallingMetrics;
+
+    // 按消息类型序号的每秒条数，0表示不单独限制
+    private double[] typeRates;
+
+    private final List<AddressRange> proxyRanges = new ArrayList<>();
+
+    private final Map<InetAddress, IpState> ipStates = new ConcurrentHashMap<>();
+
+    private final LongAdder[] violations = new LongAdder[Violation.values().length];
+    private final LongAdder handshakesRejected = new LongAdder();
+    private final LongAdder connectionsClosed = new LongAdder();
+
+    @PostConstruct
+    public void init() {
+        for (int i = 0; i < violations.length; i++) {
+            violations[i] = new LongAdder();
+        }
+        typeRates = new double[MessageType.values().length];
+        messageRates.forEach((type, rate) -> MessageType.fromString(type).ifPresentOrElse(
+                messageType -> typeRates[messageType.ordinal()] = rate,
+                () -> log.warn("限流配置中的消息类型 {} 不存在，已忽略", type)));
+        for (String proxy : trustedProxies) {
+            if (!proxy.isBlank()) {
+                proxyRanges.add(AddressRange.parse(proxy.trim()));
+            }
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 升级请求到达时确定来源IP并取握手令牌，像素流实例不受握手限流
+     *
+     * @param channel    升级请求所在的通道，来源IP记录在其属性上
+     * @param headers    升级请求头
+     * @param clientType 请求的客户端类型
+     * @return 超过频率时返回false，调用方应返回429
+     */
+    public boolean tryAcquireHandshake(Channel channel, HttpHeaders headers, String clientType) {
+        if (!enabled) {
+            return true;
+        }
+        InetAddress client = resolveClientAddress(channel.remoteAddress(), headers);
+        channel.attr(CLIENT_ADDRESS).set(client);
+        IpState state = ClientType.STREAMER.getValue().equals(clientType) ? null : ipStateOf(client);
+        if (state == null) {
+            return true;
+        }
+        boolean acquired;
+        synchronized (state) {
+            acquired = state.handshakes.tryAcquire(1);
+        }
+        if (!acquired) {
+            handshakesRejected.increment();
+            signallingMetrics.handshakeRateLimited();
+            if (log.isWarnEnabled() && LOG_SAMPLER.sample()) {
+                log.warn("来源 {} 握手过于频繁，已拒绝", client);
+            }
+        }
+        return acquired;
+    }
+
+    /**
+     * 为玩家连接启用消息限流，在客户端类型确定后调用
+     */
+    public void attach(Channel player) {
+        if (!enabled) {
+            return;
+        }
+        InetAddress client = player.attr(CLIENT_ADDRESS).get();
+        if (client == null) {
+            client = addressOf(player.remoteAddress());
+        }
+        IpState ip = null;
+        while (true) {
+            IpState state = ipStateOf(client);
+            if (state == null) {
+                break;
+            }
+            synchronized (state) {
+                if (!state.removed) {
+                    state.channels++;
+                    ip = state;
+                    break;
+                }
+            }
+        }
+        player.attr(LIMITS).set(new ChannelLimits(ip));
+        if (ip != null) {
+            IpState attached = ip;
+            player.closeFuture().addListener(future -> {
+                synchronized (attached) {
+                    attached.channels--;
+                }
+            });
+        }
+    }
+
+    /**
+     * 在解析前检查帧大小、字节数与消息数，在事件循环线程上调用
+     *
+     * @return 超限时返回false，调用方直接丢弃该帧
+     */
+    public boolean admitFrame(Channel channel, WebSocketFrame frame) {
+        ChannelLimits limits = channel.attr(LIMITS).get();
+        if (limits == null || frame instanceof CloseWebSocketFrame || frame instanceof PongWebSocketFrame) {
+            return true;
+        }
+        int size = frame.content().readableBytes();
+        if (size > maxFrameBytes) {
+            record(Violation.FRAME_SIZE);
+            close(channel, limits, WebSocketCloseStatus.MESSAGE_TOO_BIG);
+            return false;
+        }
+        if (!limits.bytes.tryAcquire(size)) {
+            return reject(channel, limits, Violation.BYTES);
+        }
+        if (!limits.messages.tryAcquire(1)) {
+            return reject(channel, limits, Violation.MESSAGES);
+        }
+        if (limits.ip != null) {
+            boolean acquired;
+            synchronized (limits.ip) {
+                acquired = limits.ip.messages.tryAcquire(1);
+            }
+            if (!acquired) {
+                return reject(channel, limits, Violation.IP);
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 识别出消息类型后按类型限流
+     *
+     * @return 超限时返回false，调用方直接丢弃该消息
+     */
+    public boolean admitMessage(Channel channel, MessageType type) {
+        ChannelLimits limits = channel.attr(LIMITS).get();
+        if (limits == null) {
+            return true;
+        }
+        TokenBucket bucket = limits.byType[type.ordinal()];
+        return bucket == null || bucket.tryAcquire(1) || reject(channel, limits, Violation.MESSAGE_TYPE);
+    }
+
+    /**
+     * 记录无法解析或类型未知的消息，计入连接的违规次数
+     *
+     * @param length 消息字节数，未知时传-1
+     */
+    public void malformed(Channel channel, int length) {
+        ChannelLimits limits = channel.attr(LIMITS).get();
+        if (limits != null) {
+            reject(channel, limits, Violation.MALFORMED);
+        } else {
+            record(Violation.MALFORMED);
+        }
+        if (log.isWarnEnabled() && LOG_SAMPLER.sample()) {
+            log.warn("连接 {} 发送了无法识别的消息，长度 {} 字节", channel, length);
+        }
+    }
+
+    /**
+     * 清理近期没有握手、没有消息且没有连接的IP
+     */
+    @Scheduled(fixedRateString = "${signalling.rate-limit.sweep-interval-ms:60000}")
+    public void sweep() {
+        ipStates.values().removeIf(state -> {
+            synchronized (state) {
+                if (state.channels == 0 && state.handshakes.isFull() && state.messages.isFull()) {
+                    state.removed = true;
+                }
+                return state.removed;
+            }
+        });
+    }
+
+    /**
+     * 获取限流统计
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        stats.put("trackedIps", ipStates.size());
+        stats.put("handshakesRejected", handshakesRejected.sum());
+        stats.put("connectionsClosed", connectionsClosed.sum());
+        JSONObject byViolation = new JSONObject();
+        for (Violation violation : Violation.values()) {
+            byViolation.put(violation.getValue(), violations[violation.ordinal()].sum());
+        }
+        stats.put("violations", byViolation);
+        return stats;
+    }
+
+    /**
+     * 对端是可信代理时，从X-Forwarded-For由右向左取第一个不是可信代理的地址；无法解析时退回对端地址
+     */
+    InetAddress resolveClientAddress(SocketAddress remoteAddress, HttpHeaders headers) {
+        InetAddress peer = addressOf(remoteAddress);
+        if (peer == null || !isTrustedProxy(peer)) {
+            return peer;
+        }
+        List<String> forwarded = headers.getAll(FORWARDED_FOR);
+        for (int i = forwarded.size() - 1; i >= 0; i--) {
+            String[] hops = forwarded.get(i).split(",");
+            for (int j = hops.length - 1; j >= 0; j--) {
+                InetAddress hop = parseLiteral(hops[j].trim());
+                if (hop == null) {
+                    return peer;
+                }
+                if (!isTrustedProxy(hop)) {
+                    return hop;
+                }
+            }
+        }
+        return peer;
+    }
+
+    private boolean isTrustedProxy(InetAddress address) {
+        for (AddressRange range : proxyRanges) {
+            if (range.contains(address)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 只接受IP字面量，避免对请求头中的主机名做DNS查询
+     */
+    private static InetAddress parseLiteral(String value) {
+        // 首字符为十六进制数字的主机名（如 evil.example.com）也会被InetAddress.getByName解析，改用NetUtil只识别字面量
+        return NetUtil.createInetAddressFromIpAddressString(value);
+    }
+
+    private static InetAddress addressOf(SocketAddress remoteAddress) {
+        return remoteAddress instanceof InetSocketAddress inet ? inet.getAddress() : null;
+    }
+
+    private IpState ipStateOf(InetAddress address) {
+        if (address == null || (exemptLoopback && address.isLoopbackAddress())) {
+            return null;
+        }
+        IpState state = ipStates.get(address);
+        if (state == null) {
+            if (ipStates.size() >= maxTrackedIps) {
+                // 表已满时不再跟踪新IP，退化为只有单连接限流
+                return null;
+            }
+            state = ipStates.computeIfAbsent(address, k -> new IpState());
+        }
+        return state;
+    }
+
+    private boolean reject(Channel channel, ChannelLimits limits, Violation violation) {
+        record(violation);
+        long now = System.nanoTime();
+        if (now - limits.windowStartNanos > TimeUnit.MILLISECONDS.toNanos(violationWindowMillis)) {
+            limits.windowStartNanos = now;
+            limits.violations = 0;
+        }
+        if (++limits.violations >= maxViolations) {
+            close(channel, limits, WebSocketCloseStatus.POLICY_VIOLATION);
+        } else if (log.isDebugEnabled() && LOG_SAMPLER.sample()) {
+            log.debug("连接 {} 超出限流 {}，丢弃消息", channel, violation.getValue());
+        }
+        return false;
+    }
+
+    private void record(Violation violation) {
+        violations[violation.ordinal()].increment();
+        signallingMetrics.rateLimited(violation);
+    }
+
+    private void close(Channel channel, ChannelLimits limits, WebSocketCloseStatus status) {
+        if (limits.closing) {
+            return;
+        }
+        limits.closing = true;
+        connectionsClosed.increment();
+        log.warn("连接 {} 违反限流策略（{}），断开连接", channel, status.reasonText());
+        // 主动断开的连接不保留重连会话
+        channel.attr(PlayerSessionRegistry.CLOSING).set(true);
+        channel.writeAndFlush(new CloseWebSocketFrame(status)).addListener(ChannelFutureListener.CLOSE);
+    }
+
+    /**
+     * 违规类型
+     */
+    @Getter
+    public enum Violation {
+        MESSAGES("messages"),
+        MESSAGE_TYPE("message_type"),
+        BYTES("bytes"),
+        IP("ip"),
+        FRAME_SIZE("frame_size"),
+        MALFORMED("malformed");
+
+        private final String value;
+
+        Violation(String value) {
+            this.value = value;
+        }
+    }
+
+    /**
+     * 可信代理的地址或网段
+     */
+    record AddressRange(byte[] network, int prefixLength) {
+
+        static AddressRange parse(String value) {
+            int slash = value.indexOf('/');
+            InetAddress address = parseLiteral(slash < 0 ? value : value.substring(0, slash));
+            if (address == null) {
+                throw new IllegalArgumentException("可信代理配置不是IP地址或网段：" + value);
+            }
+            byte[] network = address.getAddress();
+            int prefixLength = slash < 0 ? network.length * 8 : Integer.parseInt(value.substring(slash + 1));
+            if (prefixLength < 0 || prefixLength > network.length * 8) {
+                throw new IllegalArgumentException("可信代理网段的前缀长度无效：" + value);
+            }
+            return new AddressRange(network, prefixLength);
+        }
+
+        boolean contains(InetAddress address) {
+            byte[] bytes = address.getAddress();
+            if (bytes.length != network.length) {
+                return false;
+            }
+            int full = prefixLength / 8;
+            for (int i = 0; i < full; i++) {
+                if (bytes[i] != network[i]) {
+                    return false;
+                }
+            }
+            int rest = prefixLength % 8;
+            if (rest == 0) {
+                return true;
+            }
+            int mask = 0xFF << (8 - rest) & 0xFF;
+            return (bytes[full] & mask) == (network[full] & mask);
+        }
+    }
+
+    /**
+     * 单个来源IP的握手与消息令牌桶，由对象锁保护
+     */
+    private final class IpState {
+        private final TokenBucket handshakes = new TokenBucket(ipHandshakesPerSecond, ipHandshakeBurst);
+        private final TokenBucket messages = new TokenBucket(ipMessagesPerSecond,
+                Math.max(1, ipMessagesPerSecond * burstSeconds));
+        private int channels;
+        private boolean removed;
+    }
+
+    /**
+     * 单个玩家连接的令牌桶，只在该连接的事件循环线程上读写
+     */
+    private final class ChannelLimits {
+        private final IpState ip;
+        private final TokenBucket messages = new TokenBucket(messagesPerSecond,
+                Math.max(1, messagesPerSecond * burstSeconds));
+        private final TokenBucket bytes = new TokenBucket(bytesPerSecond,
+                Math.max(maxFrameBytes, bytesPerSecond * burstSeconds));
+        private final TokenBucket[] byType = new TokenBucket[typeRates.length];
+        private long windowStartNanos = System.nanoTime();
+        private int violations;
+        private boolean closing;
+
+        ChannelLimits(IpState ip) {
+            this.ip = ip;
+            for (int i = 0; i < byType.length; i++) {
+                if (typeRates[i] > 0) {
+                    byType[i] = new TokenBucket(typeRates[i], Math.max(1, typeRates[i] * burstSeconds));
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,103 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.alibaba.fastjson2.JSONObject;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName SignallingStats
+ * @Description 信令通道运行计数器，供监控接口查询
+ * @Author MaxYun
+ * @Since 2025/9/23 10:05
+ * @Version 1.0
+ */
+@Component
+public class SignallingStats {
+
+    // 业务代码请求的flush次数
+    private final LongAdder flushRequested = new LongAdder();
+
+    // 合并后真正下发到socket的flush次数（约等于写系统调用次数）
+    private final LongAdder flushExecuted = new LongAdder();
+
+    // 背压队列中被丢弃的帧数
+    private final LongAdder framesDropped = new LongAdder();
+
+    // 因持续不可写被断开的玩家数
+    private final LongAdder playersEvicted = new LongAdder();
+
+    // 成功转发的信令帧数
+    private final LongAdder framesForwarded = new LongAdder();
+
+    // 上次快照的时间与转发数，用于计算每秒转发量
+    private long lastSampleNanos = System.nanoTime();
+    private long lastSampleForwarded;
+
+    public void flushRequested() {
+        flushRequested.increment();
+    }
+
+    public void flushExecuted() {
+        flushExecuted.increment();
+    }
+
+    public void frameDropped() {
+        framesDropped.increment();
+    }
+
+    public void playerEvicted() {
+        playersEvicted.increment();
+    }
+
+    public void frameForwarded() {
+        framesForwarded.increment();
+    }
+
+    public long getFlushRequested() {
+        return flushRequested.sum();
+    }
+
+    public long getFlushExecuted() {
+        return flushExecuted.sum();
+    }
+
+    public long getFramesDropped() {
+        return framesDropped.sum();
+    }
+
+    public long getPlayersEvicted() {
+        return playersEvicted.sum();
+    }
+
+    public long getFramesForwarded() {
+        return framesForwarded.sum();
+    }
+
+    /**
+     * 自上次调用以来的每秒转发帧数，可在调整日志级别前后分别查询以对比日志开销
+     */
+    public synchronized double sampleForwardedPerSecond() {
+        long now = System.nanoTime();
+        long forwarded = getFramesForwarded();
+        long elapsed = now - lastSampleNanos;
+        double rate = elapsed > 0 ? (forwarded - lastSampleForwarded) * 1_000_000_000d / elapsed : 0d;
+        lastSampleNanos = now;
+        lastSampleForwarded = forwarded;
+        return rate;
+    }
+
+    /**
+     * 获取计数器快照
+     */
+    public JSONObject toJson() {
+        JSONObject stats = new JSONObject();
+        stats.put("flushRequested", getFlushRequested());
+        stats.put("flushExecuted", getFlushExecuted());
+        stats.put("framesDropped", getFramesDropped());
+        stats.put("playersEvicted", getPlayersEvicted());
+        stats.put("framesForwarded", getFramesForwarded());
+        stats.put("forwardedPerSecond", sampleForwardedPerSecond());
+        return stats;
+    }
+}
@@ -0,0 +1,28 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import lombok.Getter;
+
+import java.util.Map;
+
+/**
+ * @ClassName SignallingUpgradeEvent
+ * @Description WebSocket握手完成事件，携带连接参数，由升级处理器发出
+ * @Author MaxYun
+ * @Since 2025/9/24 14:10
+ * @Version 1.0
+ */
+@Getter
+public class SignallingUpgradeEvent {
+
+    private final Map<String, String> params;
+
+    /**
+     * 收到升级请求时的System.nanoTime()
+     */
+    private final long requestNanos;
+
+    public SignallingUpgradeEvent(Map<String, String> params, long requestNanos) {
+        this.params = params;
+        this.requestNanos = requestNanos;
+    }
+}
@@ -0,0 +1,76 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+/**
+ * @ClassName TokenBucket
+ * @Description 令牌桶：按System.nanoTime()惰性补充令牌，取令牌时不分配对象；
+ * 本身不是线程安全的，单个连接的桶只在其事件循环上使用，多连接共享的桶由调用方加锁
+ * @Author MaxYun
+ * @Since 2025/9/28 16:30
+ * @Version 1.0
+ */
+public final class TokenBucket {
+
+    private final double tokensPerNano;
+    private final double capacity;
+    private double tokens;
+    private long lastRefillNanos;
+
+    /**
+     * @param ratePerSecond 每秒补充的令牌数
+     * @param capacity      桶容量，即允许的突发量
+     */
+    public TokenBucket(double ratePerSecond, double capacity) {
+        this(ratePerSecond, capacity, System.nanoTime());
+    }
+
+    /**
+     * 以指定时刻为起点创建，供测试控制时间
+     */
+    TokenBucket(double ratePerSecond, double capacity, long nowNanos) {
+        if (ratePerSecond <= 0 || capacity <= 0) {
+            throw new IllegalArgumentException("Rate and capacity must be positive");
+        }
+        this.tokensPerNano = ratePerSecond / 1_000_000_000d;
+        this.capacity = capacity;
+        this.tokens = capacity;
+        this.lastRefillNanos = nowNanos;
+    }
+
+    /**
+     * 尝试取出指定数量的令牌
+     *
+     * @return 令牌不足时返回false，且不扣减
+     */
+    public boolean tryAcquire(double permits) {
+        return tryAcquire(permits, System.nanoTime());
+    }
+
+    boolean tryAcquire(double permits, long nowNanos) {
+        refill(nowNanos);
+        if (tokens < permits) {
+            return false;
+        }
+        tokens -= permits;
+        return true;
+    }
+
+    /**
+     * 桶是否已补满，补满说明近期没有使用
+     */
+    public boolean isFull() {
+        return isFull(System.nanoTime());
+    }
+
+    boolean isFull(long nowNanos) {
+        refill(nowNanos);
+        return tokens >= capacity;
+    }
+
+    private void refill(long now) {
+        long elapsed = now - lastRefillNanos;
+        if (elapsed > 0) {
+            tokens = Math.min(capacity, tokens + elapsed * tokensPerNano);
+            lastRefillNanos = now;
+        }
+    }
+}
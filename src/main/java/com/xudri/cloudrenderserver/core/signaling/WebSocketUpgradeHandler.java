@@ -0,0 +1,226 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import com.xudri.cloudrenderserver.common.util.LoggerUtil;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.handler.codec.http.DefaultFullHttpResponse;
+import io.netty.handler.codec.http.FullHttpRequest;
+import io.netty.handler.codec.http.FullHttpResponse;
+import io.netty.handler.codec.http.HttpHeaderNames;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpUtil;
+import io.netty.handler.codec.http.HttpVersion;
+import io.netty.handler.codec.http.QueryStringDecoder;
+import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshaker;
+import io.netty.handler.codec.http.websocketx.WebSocketServerHandshakerFactory;
+import io.netty.util.AttributeKey;
+import io.netty.util.CharsetUtil;
+import lombok.extern.log4j.Log4j2;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * @ClassName WebSocketUpgradeHandler
+ * @Description 每个连接独立的WebSocket升级处理器：校验请求、解析连接参数并完成握手，
+ * 握手后精简管道并将连接参数以事件形式交给共享的信令处理器
+ * @Author MaxYun
+ * @Since 2025/9/24 14:00
+ * @Version 1.0
+ */
+@Log4j2
+public class WebSocketUpgradeHandler extends SimpleChannelInboundHandler<FullHttpRequest> {
+
+    /**
+     * 通道级握手器，关闭帧处理时使用
+     */
+    public static final AttributeKey<WebSocketServerHandshaker> HANDSHAKER = AttributeKey.valueOf("Handshaker");
+
+    private static final String WEBSOCKET_UPGRADE_HEADER = "websocket";
+    private static final int MAX_QUERY_PARAMS = 32;
+
+    private final WebSocketServerHandshakerFactory handshakerFactory;
+    private final int maxAggregatedFrameSize;
+    private final SignallingCompression compression;
+    private final SignallingAuthenticator authenticator;
+    private final SignallingMetrics metrics;
+    private final SignallingRateLimiter rateLimiter;
+    private final SignallingLoadShedder loadShedder;
+
+    /**
+     * @param handshakerFactory      共享的握手器工厂
+     * @param maxAggregatedFrameSize 分片帧聚合后的最大字节数
+     * @param compression            压缩协商
+     * @param authenticator          连接鉴权
+     * @param metrics                握手指标
+     * @param rateLimiter            按来源IP的握手限流
+     * @param loadShedder            过载时拒绝玩家握手
+     */
+    public WebSocketUpgradeHandler(WebSocketServerHandshakerFactory handshakerFactory, int maxAggregatedFrameSize,
+                                   SignallingCompression compression, SignallingAuthenticator authenticator,
+                                   SignallingMetrics metrics, SignallingRateLimiter rateLimiter,
+                                   SignallingLoadShedder loadShedder) {
+        this.handshakerFactory = handshakerFactory;
+        this.maxAggregatedFrameSize = maxAggregatedFrameSize;
+        this.compression = compression;
+        this.authenticator = authenticator;
+        this.metrics = metrics;
+        this.rateLimiter = rateLimiter;
+        this.loadShedder = loadShedder;
+    }
+
+    @Override
+    protected void channelRead0(ChannelHandlerContext ctx, FullHttpRequest request) {
+        long requestNanos = System.nanoTime();
+        if (!isValidWebSocketRequest(request)) {
+            sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpResponseStatus.BAD_REQUEST));
+            return;
+        }
+
+        try {
+            Map<String, String> params = extractUrlParameters(request.uri());
+            if (!rateLimiter.tryAcquireHandshake(ctx.channel(), request.headers(), params.get("type"))) {
+                sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
+                        HttpVersion.HTTP_1_1, HttpResponseStatus.TOO_MANY_REQUESTS));
+                return;
+            }
+            if (loadShedder.shouldShed(params.get("type"))) {
+                // 过载时在握手与鉴权之前拒绝，尽量少占用事件循环
+                FullHttpResponse response = new DefaultFullHttpResponse(
+                        HttpVersion.HTTP_1_1, HttpResponseStatus.SERVICE_UNAVAILABLE);
+                response.headers().set(HttpHeaderNames.RETRY_AFTER, loadShedder.getRetryAfterSeconds());
+                sendHttpResponse(ctx, request, response);
+                return;
+            }
+
+            WebSocketServerHandshaker handshaker = handshakerFactory.newHandshaker(request);
+            if (handshaker == null) {
+                WebSocketServerHandshakerFactory.sendUnsupportedVersionResponse(ctx.channel());
+                return;
+            }
+            String token = SignallingAuthenticator.extractToken(params, request.headers());
+
+            if (!authenticator.isEnabled()) {
+                completeHandshake(ctx, request, handshaker, params, requestNanos);
+                return;
+            }
+
+            // 鉴权期间暂停读取，结果在本通道的事件循环上回调
+            ctx.channel().config().setAutoRead(false);
+            request.retain();
+            String type = params.get("type");
+            authenticator.authenticate(ctx.executor(), token, type, params.get("insid")).addListener(future -> {
+                try {
+                    if (!ctx.channel().isActive()) {
+                        return;
+                    }
+                    ctx.channel().config().setAutoRead(true);
+                    if (future.isSuccess()) {
+                        ctx.channel().attr(SignallingAuthenticator.PRINCIPAL)
+                                .set((SignallingAuthenticator.SignallingPrincipal) future.getNow());
+                        completeHandshake(ctx, request, handshaker, params, requestNanos);
+                    } else {
+                        rejectUnauthenticated(ctx, request, future.cause());
+                    }
+                } finally {
+                    request.release();
+                }
+            });
+        } catch (Exception e) {
+            LoggerUtil.logError(log, "WebSocket握手", "WebSocket握手过程中发生错误", e);
+            sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpResponseStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    /**
+     * 完成握手并精简管道
+     */
+    private void completeHandshake(ChannelHandlerContext ctx, FullHttpRequest request,
+                                   WebSocketServerHandshaker handshaker, Map<String, String> params,
+                                   long requestNanos) {
+        try {
+            compression.negotiate(ctx.channel(), params);
+            ctx.channel().attr(HANDSHAKER).set(handshaker);
+            handshaker.handshake(ctx.channel(), request);
+
+            // 握手后只保留WebSocket编解码、分片聚合和信令处理器
+            ctx.pipeline().addAfter(ctx.name(), "wsaggregator", new WebSocketFrameAggregator(maxAggregatedFrameSize));
+            ctx.pipeline().remove(this);
+            ctx.pipeline().fireUserEventTriggered(new SignallingUpgradeEvent(params, requestNanos));
+        } catch (Exception e) {
+            LoggerUtil.logError(log, "WebSocket握手", "WebSocket握手过程中发生错误", e);
+            sendHttpResponse(ctx, request, new DefaultFullHttpResponse(
+                    HttpVersion.HTTP_1_1, HttpResponseStatus.INTERNAL_SERVER_ERROR));
+        }
+    }
+
+    private void rejectUnauthenticated(ChannelHandlerContext ctx, FullHttpRequest request, Throwable cause) {
+        HttpResponseStatus status = HttpResponseStatus.UNAUTHORIZED;
+        if (cause instanceof SignallingAuthenticator.SignallingAuthException) {
+            status = ((SignallingAuthenticator.SignallingAuthException) cause).getStatus();
+        }
+        metrics.handshakeUnauthorized();
+        log.warn("信令连接鉴权失败 - 通道: {}, 状态: {}, 原因: {}", ctx.channel().remoteAddress(), status.code(),
+                cause.getMessage());
+        sendHttpResponse(ctx, request, new DefaultFullHttpResponse(HttpVersion.HTTP_1_1, status));
+    }
+
+    /**
+     * 验证WebSocket请求的有效性
+     */
+    private boolean isValidWebSocketRequest(FullHttpRequest request) {
+        return request.decoderResult().isSuccess() &&
+                WEBSOCKET_UPGRADE_HEADER.equalsIgnoreCase(request.headers().get(HttpHeaderNames.UPGRADE));
+    }
+
+    /**
+     * 提取URL参数，兼容 /type=streamer&insid=.. 与 /path?type=streamer&insid=.. 两种形式
+     */
+    static Map<String, String> extractUrlParameters(String uri) {
+        int queryStart = uri.indexOf('?');
+        String query;
+        if (queryStart >= 0) {
+            query = uri.substring(queryStart + 1);
+        } else {
+            query = uri.startsWith("/") ? uri.substring(1) : uri;
+        }
+
+        QueryStringDecoder decoder = new QueryStringDecoder(query, StandardCharsets.UTF_8, false, MAX_QUERY_PARAMS);
+        Map<String, String> params = new HashMap<>();
+        for (Map.Entry<String, List<String>> entry : decoder.parameters().entrySet()) {
+            if (!entry.getValue().isEmpty()) {
+                params.put(entry.getKey(), entry.getValue().get(0));
+            }
+        }
+        return params;
+    }
+
+    /**
+     * 发送HTTP响应
+     */
+    public static void sendHttpResponse(ChannelHandlerContext ctx, FullHttpRequest req, FullHttpResponse res) {
+        if (res.status().code() != HttpResponseStatus.OK.code()) {
+            ByteBuf buf = Unpooled.copiedBuffer(res.status().toString(), CharsetUtil.UTF_8);
+            res.content().writeBytes(buf);
+            buf.release();
+            HttpUtil.setContentLength(res, res.content().readableBytes());
+        }
+
+        boolean keepAlive = HttpUtil.isKeepAlive(req) && res.status().code() == HttpResponseStatus.OK.code();
+        HttpUtil.setKeepAlive(res, keepAlive);
+
+        ChannelFuture future = ctx.channel().writeAndFlush(res);
+        if (!keepAlive) {
+            future.addListener(ChannelFutureListener.CLOSE);
+        }
+    }
+}
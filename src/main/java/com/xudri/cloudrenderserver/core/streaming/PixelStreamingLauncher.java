@@ -31,6 +31,10 @@ public class PixelStreamingLauncher {
     private Process process;
     private LocalDateTime launchTime;
     private final AtomicBoolean isRunning = new AtomicBoolean(false);
+    // 最近一次启动进程时的System.nanoTime()，0表示进程不是由本启动器拉起
+    private volatile long launchNanos;
+    // 本次启动后实例是否已连上信令服务器
+    private final AtomicBoolean ready = new AtomicBoolean(false);
     private PixelStreamingConfig config;
     private String executablePath;
 
@@ -76,6 +80,8 @@ public class PixelStreamingLauncher {
             // 启动进程
             process = processBuilder.start();
             this.launchTime = LocalDateTime.now();
+            this.launchNanos = System.nanoTime();
+            ready.set(false);
             isRunning.set(true);
 
             LoggerUtil.logInstance(id, "启动成功", "进程ID：" + getProcessId());
@@ -129,6 +135,19 @@ public class PixelStreamingLauncher {
         }
     }
 
+    /**
+     * 标记实例已连上信令服务器
+     *
+     * @return 本次启动后首次标记时返回从启动进程到连上的纳秒数，否则返回-1
+     */
+    public long markReady() {
+        long launched = launchNanos;
+        if (launched == 0 || !ready.compareAndSet(false, true)) {
+            return -1;
+        }
+        return System.nanoTime() - launched;
+    }
+
     /**
      * 检查应用程序是否正在运行
      *
@@ -1,11 +1,15 @@
 package com.xudri.cloudrenderserver.core.streaming;
 
 import com.xudri.cloudrenderserver.config.PixelStreamingConfig;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.stereotype.Component;
 
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 
 /**
@@ -23,6 +27,35 @@ public class PixelStreamingLauncherManager {
     private final Map<String, PixelStreamingLauncher> launchers = new ConcurrentHashMap<>();
     private final Map<String, Set<String>> groupLaunchers = new ConcurrentHashMap<>();
 
+    // 示例程序会直接new本类，因此注册到全局注册表，Spring Boot会把应用的注册表加入其中
+    private final Timer launchSucceeded = launchTimer("success");
+    private final Timer launchFailed = launchTimer("failure");
+    private final Timer startupTimer = Timer.builder("pixelstreaming.launcher.startup")
+            .description("Time from starting the process to the instance connecting to signalling")
+            .register(Metrics.globalRegistry);
+    private final Timer stopTimer = Timer.builder("pixelstreaming.launcher.stop")
+            .description("Time to terminate an instance process")
+            .register(Metrics.globalRegistry);
+    private final Timer restartTimer = Timer.builder("pixelstreaming.launcher.restart")
+            .description("Time to terminate and start an instance process again")
+            .register(Metrics.globalRegistry);
+
+    public PixelStreamingLauncherManager() {
+        Gauge.builder("pixelstreaming.launchers", this, PixelStreamingLauncherManager::getTotalCount)
+                .description("Instances managed by this server")
+                .register(Metrics.globalRegistry);
+        Gauge.builder("pixelstreaming.launchers.running", this, PixelStreamingLauncherManager::getRunningCount)
+                .description("Managed instances whose process is alive")
+                .register(Metrics.globalRegistry);
+    }
+
+    private static Timer launchTimer(String result) {
+        return Timer.builder("pixelstreaming.launcher.launch")
+                .description("Time to start an instance process")
+                .tag("result", result)
+                .register(Metrics.globalRegistry);
+    }
+
     /**
      * 启动新的像素流实例
      *
@@ -39,7 +72,9 @@ public class PixelStreamingLauncherManager {
         }
 
         PixelStreamingLauncher launcher = new PixelStreamingLauncher(id, groupId);
+        long start = System.nanoTime();
         boolean success = launcher.launch(executablePath, config);
+        (success ? launchSucceeded : launchFailed).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
 
         if (success) {
             launchers.put(id, launcher);
@@ -86,7 +121,7 @@ public class PixelStreamingLauncherManager {
             return false;
         }
 
-        launcher.shutdown();
+        stopTimer.record(launcher::shutdown);
         launchers.remove(id);
 
         // 从组映射中移除
@@ -163,7 +198,10 @@ public class PixelStreamingLauncherManager {
             return false;
         }
 
-        return launcher.restart();
+        long start = System.nanoTime();
+        boolean success = launcher.restart();
+        restartTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        return success;
     }
 
     /**
@@ -190,6 +228,23 @@ public class PixelStreamingLauncherManager {
         return count;
     }
 
+    /**
+     * 实例连上信令服务器时调用，记录本次启动到可用的耗时
+     *
+     * @param id 实例ID
+     */
+    public void markReady(String id) {
+        PixelStreamingLauncher launcher = id == null ? null : launchers.get(id);
+        if (launcher == null) {
+            return;
+        }
+        long startupNanos = launcher.markReady();
+        if (startupNanos >= 0) {
+            startupTimer.record(startupNanos, TimeUnit.NANOSECONDS);
+            log.info("实例 {} 启动后 {} 毫秒连上信令服务器", id, TimeUnit.NANOSECONDS.toMillis(startupNanos));
+        }
+    }
+
     /**
      * 获取指定实例
      *
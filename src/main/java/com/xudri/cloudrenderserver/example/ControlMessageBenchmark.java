@@ -0,0 +1,111 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.alibaba.fastjson2.JSONArray;
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.client.MessageHelper;
+import com.xudri.cloudrenderserver.core.client.PlayerSeat;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName ControlMessageBenchmark
+ * @Description 控制消息编码测试：通过MessageHelper向带WebSocket帧编码器的EmbeddedChannel发送配置、
+ * playerConnected、playerDisconnected与pong消息，比较预编码/模板写入与原先每次构建JSONObject再toString
+ * 的单条耗时和每条消息在发送线程上分配的字节数
+ * @Author MaxYun
+ * @Since 2025/9/30 11:00
+ * @Version 1.0
+ */
+public class ControlMessageBenchmark {
+
+    private static final int WARMUP_MESSAGES = 500_000;
+    private static final int MESSAGES = 2_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(SignallingStats.class);
+            context.registerBean(MessageHelper.class);
+            context.refresh();
+            MessageHelper messageHelper = context.getBean(MessageHelper.class);
+
+            EmbeddedChannel channel = new EmbeddedChannel(new WebSocket13FrameEncoder(false));
+            System.out.printf("%-20s %-12s %12s %14s%n", "message", "encoding", "ns/op", "alloc(B)/op");
+            compare(channel, "config",
+                    messageHelper::sendConfigMessage,
+                    ch -> {
+                        JSONObject clientConfig = new JSONObject();
+                        clientConfig.put("type", "config");
+                        JSONObject peerConnectionOptions = new JSONObject();
+                        peerConnectionOptions.put("iceServers", new JSONArray());
+                        clientConfig.put("peerConnectionOptions", peerConnectionOptions);
+                        messageHelper.sendMessage(ch, clientConfig.toString());
+                    });
+            compare(channel, "playerConnected",
+                    ch -> messageHelper.subscribeToStreamer("1024", ch, PlayerSeat.CONTROLLER),
+                    ch -> {
+                        JSONObject message = new JSONObject();
+                        message.put("type", "playerConnected");
+                        message.put("playerId", "1024");
+                        message.put("dataChannel", true);
+                        message.put("sfu", false);
+                        message.put("sendOffer", true);
+                        messageHelper.sendMessage(ch, message.toString());
+                    });
+            compare(channel, "playerDisconnected",
+                    ch -> messageHelper.unsubscribeStreamer(ch, "1024"),
+                    ch -> {
+                        JSONObject message = new JSONObject();
+                        message.put("type", "playerDisconnected");
+                        message.put("playerId", "1024");
+                        messageHelper.sendMessage(ch, message.toString());
+                    });
+            compare(channel, "pong",
+                    messageHelper::sendPong,
+                    ch -> {
+                        JSONObject message = new JSONObject();
+                        message.put("type", "pong");
+                        message.put("time", System.currentTimeMillis());
+                        messageHelper.sendMessage(ch, message.toString());
+                    });
+            channel.finishAndReleaseAll();
+        }
+    }
+
+    private static void compare(EmbeddedChannel channel, String name, Consumer<EmbeddedChannel> preEncoded,
+                                Consumer<EmbeddedChannel> jsonObject) {
+        run(channel, name, "pre-encoded", preEncoded, WARMUP_MESSAGES, false);
+        run(channel, name, "pre-encoded", preEncoded, MESSAGES, true);
+        run(channel, name, "JSONObject", jsonObject, WARMUP_MESSAGES, false);
+        run(channel, name, "JSONObject", jsonObject, MESSAGES, true);
+    }
+
+    private static void run(EmbeddedChannel channel, String name, String encoding, Consumer<EmbeddedChannel> send,
+                            int messages, boolean print) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            send.accept(channel);
+            // 编码后的帧在出站队列中，取出释放，模拟写入套接字
+            Object encoded;
+            while ((encoded = channel.readOutbound()) != null) {
+                ReferenceCountUtil.release(encoded);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (print) {
+            System.out.printf("%-20s %-12s %12.1f %14.1f%n", name, encoding, (double) elapsed / messages,
+                    (double) allocated / messages);
+        }
+    }
+}
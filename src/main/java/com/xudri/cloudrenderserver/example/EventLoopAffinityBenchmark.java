@@ -0,0 +1,275 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import com.xudri.cloudrenderserver.core.signaling.EventLoopAffinity;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.FixedLengthFrameDecoder;
+import io.netty.util.AttributeKey;
+import io.netty.util.concurrent.EventExecutor;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @ClassName EventLoopAffinityBenchmark
+ * @Description 事件循环亲和转发测试：本机回环上建立若干对实例/玩家TCP连接，服务端把实例发来的消息转发给对应玩家，
+ * 比较玩家与实例处于不同事件循环（跨线程）和同一事件循环（EventLoopAffinity.migrate迁移后）时的吞吐量、
+ * 端到端时延与每条消息的进程CPU时间。每个会话同时只有固定条数的消息在途，收到后立即发出下一条
+ * @Author MaxYun
+ * @Since 2025/9/29 11:00
+ * @Version 1.0
+ */
+public class EventLoopAffinityBenchmark {
+
+    private static final int FRAME_LENGTH = 16;
+    private static final int SERVER_LOOPS = 4;
+    private static final int IN_FLIGHT = 2;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    private static final AttributeKey<Channel> PEER = AttributeKey.valueOf("benchPeer");
+
+    public static void main(String[] args) throws Exception {
+        int[] sessionCounts = args.length > 0 ? parse(args) : new int[]{200, 1000};
+        System.out.printf("%-10s %8s %12s %10s %10s %12s%n", "placement", "sessions", "msgs/s", "p50(us)", "p99(us)",
+                "cpu(us)/msg");
+        for (int sessions : sessionCounts) {
+            run(false, sessions);
+            run(true, sessions);
+        }
+    }
+
+    private static int[] parse(String[] args) {
+        int[] values = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = Integer.parseInt(args[i]);
+        }
+        return values;
+    }
+
+    private static void run(boolean colocated, int sessions) throws Exception {
+        EventLoopGroup bossGroup = new NioEventLoopGroup(1);
+        EventLoopGroup serverGroup = new NioEventLoopGroup(SERVER_LOOPS);
+        EventLoopGroup clientGroup = new NioEventLoopGroup(2);
+        try {
+            List<EventLoop> serverLoops = new ArrayList<>();
+            for (EventExecutor executor : serverGroup) {
+                serverLoops.add((EventLoop) executor);
+            }
+            Session[] table = new Session[sessions];
+            for (int i = 0; i < sessions; i++) {
+                table[i] = new Session();
+            }
+            CountDownLatch placed = new CountDownLatch(sessions);
+            ServerForwarder forwarder = new ServerForwarder(table, serverLoops, colocated, placed);
+
+            Channel server = new ServerBootstrap()
+                    .group(bossGroup, serverGroup)
+                    .channel(NioServerSocketChannel.class)
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<SocketChannel>() {
+                        @Override
+                        protected void initChannel(SocketChannel ch) {
+                            ch.pipeline().addLast(new FixedLengthFrameDecoder(FRAME_LENGTH), forwarder);
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            InetSocketAddress address = (InetSocketAddress) server.localAddress();
+
+            Recorder recorder = new Recorder();
+            Bootstrap client = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true);
+            Channel[] streamers = new Channel[sessions];
+            for (int i = 0; i < sessions; i++) {
+                streamers[i] = connect(client, address, new ClientStreamer(), 0, i);
+            }
+            for (int i = 0; i < sessions; i++) {
+                // 客户端的一对连接放在同一事件循环，两种模式下客户端开销相同
+                connect(client.clone(streamers[i].eventLoop()), address, new ClientPlayer(streamers[i], recorder), 1, i);
+            }
+            if (!placed.await(60, TimeUnit.SECONDS)) {
+                throw new IllegalStateException("会话建立超时");
+            }
+
+            for (Channel streamer : streamers) {
+                streamer.eventLoop().execute(() -> {
+                    for (int k = 0; k < IN_FLIGHT; k++) {
+                        send(streamer);
+                    }
+                });
+            }
+            Thread.sleep(WARMUP_MILLIS);
+            recorder.reset();
+            long cpuStart = processCpuNanos();
+            long start = System.nanoTime();
+            Thread.sleep(MEASURE_MILLIS);
+            long elapsed = System.nanoTime() - start;
+            long cpu = processCpuNanos() - cpuStart;
+            ValueHistogram latency = recorder.latency;
+            long messages = latency.getCount();
+            recorder.stopped.set(true);
+
+            System.out.printf("%-10s %8d %12.0f %10.1f %10.1f %12.2f%n",
+                    colocated ? "colocated" : "cross-loop", sessions,
+                    messages * 1e9 / elapsed,
+                    latency.getValueAtPercentile(50) / 1000d,
+                    latency.getValueAtPercentile(99) / 1000d,
+                    messages == 0 ? 0d : cpu / 1000d / messages);
+            server.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static Channel connect(Bootstrap client, InetSocketAddress address, ChannelHandler handler,
+                                   long role, long session) throws InterruptedException {
+        Channel channel = client.clone()
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new FixedLengthFrameDecoder(FRAME_LENGTH), handler);
+                    }
+                })
+                .connect(address).sync().channel();
+        ByteBuf hello = channel.alloc().buffer(FRAME_LENGTH);
+        hello.writeLong(role).writeLong(session);
+        channel.writeAndFlush(hello).sync();
+        return channel;
+    }
+
+    private static void send(Channel streamer) {
+        ByteBuf frame = streamer.alloc().buffer(FRAME_LENGTH);
+        frame.writeLong(System.nanoTime()).writeLong(0);
+        streamer.writeAndFlush(frame);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    private static final class Session {
+        volatile Channel streamer;
+        volatile Channel player;
+        final AtomicBoolean paired = new AtomicBoolean();
+    }
+
+    /**
+     * 服务端：第一帧为握手（角色、会话号），之后实例发来的帧原样转发给同一会话的玩家
+     */
+    @ChannelHandler.Sharable
+    private static final class ServerForwarder extends ChannelInboundHandlerAdapter {
+        private final Session[] table;
+        private final List<EventLoop> loops;
+        private final boolean colocated;
+        private final CountDownLatch placed;
+
+        ServerForwarder(Session[] table, List<EventLoop> loops, boolean colocated, CountDownLatch placed) {
+            this.table = table;
+            this.loops = loops;
+            this.colocated = colocated;
+            this.placed = placed;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf frame = (ByteBuf) msg;
+            Channel peer = ctx.channel().attr(PEER).get();
+            if (peer != null) {
+                peer.writeAndFlush(frame);
+                return;
+            }
+            long role = frame.readLong();
+            Session session = table[(int) frame.readLong()];
+            frame.release();
+            if (role == 0) {
+                session.streamer = ctx.channel();
+            } else {
+                session.player = ctx.channel();
+            }
+            if (session.streamer != null && session.player != null && session.paired.compareAndSet(false, true)) {
+                place(session);
+            }
+        }
+
+        private void place(Session session) {
+            // 两种模式都迁移一次玩家通道，区别只在目标事件循环
+            EventLoop streamerLoop = session.streamer.eventLoop();
+            EventLoop target = colocated ? streamerLoop : loops.get((loops.indexOf(streamerLoop) + 1) % loops.size());
+            EventLoopAffinity.migrate(session.player, target).addListener(future -> {
+                if (!future.isSuccess()) {
+                    future.cause().printStackTrace();
+                    return;
+                }
+                session.streamer.attr(PEER).set(session.player);
+                placed.countDown();
+            });
+        }
+    }
+
+    /**
+     * 客户端实例连接，只发送
+     */
+    private static final class ClientStreamer extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ((ByteBuf) msg).release();
+        }
+    }
+
+    /**
+     * 客户端玩家连接：记录端到端时延，并让对应的实例连接发出下一条消息
+     */
+    private static final class ClientPlayer extends ChannelInboundHandlerAdapter {
+        private final Channel streamer;
+        private final Recorder recorder;
+
+        ClientPlayer(Channel streamer, Recorder recorder) {
+            this.streamer = streamer;
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf frame = (ByteBuf) msg;
+            long sentNanos = frame.readLong();
+            frame.release();
+            recorder.latency.record(System.nanoTime() - sentNanos);
+            if (!recorder.stopped.get()) {
+                send(streamer);
+            }
+        }
+    }
+
+    private static final class Recorder {
+        volatile ValueHistogram latency = new ValueHistogram();
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        void reset() {
+            latency = new ValueHistogram();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.MessageHelper;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.WebSocket13FrameEncoder;
+import io.netty.util.ReferenceCountUtil;
+import org.apache.logging.log4j.Level;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.core.LoggerContext;
+import org.apache.logging.log4j.core.config.Configurator;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.management.ManagementFactory;
+
+/**
+ * @ClassName ForwardLoggingBenchmark
+ * @Description 转发日志开销测试：按项目的log4j2.xml（信令包使用AsyncLogger）通过MessageHelper.forwardMessage
+ * 把实例的OFFER与ICE候选转发给玩家，比较信令包日志级别为INFO（转发日志关闭）与DEBUG（转发日志开启，ICE按采样记录）时
+ * 的单条耗时和发送线程上每条消息分配的字节数。DEBUG日志写入logs/debug.log，队列满时按配置丢弃
+ * @Author MaxYun
+ * @Since 2025/9/30 16:00
+ * @Version 1.0
+ */
+public class ForwardLoggingBenchmark {
+
+    private static final String SIGNALLING_LOGGER = "com.xudri.cloudrenderserver.core";
+    private static final int WARMUP_MESSAGES = 300_000;
+    private static final int MESSAGES = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    public static void main(String[] args) {
+        JSONObject offer = JSONObject.of("type", "offer", "playerId", "1024",
+                "sdp", "v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\n");
+        JSONObject ice = JSONObject.of("type", "iceCandidate", "playerId", "1024",
+                "candidate", JSONObject.of("candidate",
+                        "candidate:1 1 udp 2122260223 192.168.1.20 50000 typ host generation 0",
+                        "sdpMid", "0", "sdpMLineIndex", 0));
+
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(SignallingStats.class);
+            context.registerBean(MessageHelper.class);
+            context.refresh();
+            MessageHelper messageHelper = context.getBean(MessageHelper.class);
+
+            EmbeddedChannel streamer = newChannel(ClientType.STREAMER);
+            EmbeddedChannel player = newChannel(ClientType.PLAYER);
+            System.out.printf("%-14s %-8s %12s %14s%n", "message", "logging", "ns/op", "alloc(B)/op");
+            for (JSONObject message : new JSONObject[]{offer, ice}) {
+                for (Level level : new Level[]{Level.INFO, Level.DEBUG}) {
+                    Configurator.setLevel(SIGNALLING_LOGGER, level);
+                    run(messageHelper, streamer, player, message, level, WARMUP_MESSAGES, false);
+                    run(messageHelper, streamer, player, message, level, MESSAGES, true);
+                }
+            }
+            streamer.finishAndReleaseAll();
+            player.finishAndReleaseAll();
+        } finally {
+            // 等待后台线程写完队列中的日志
+            ((LoggerContext) LogManager.getContext(false)).stop();
+        }
+    }
+
+    private static void run(MessageHelper messageHelper, EmbeddedChannel streamer, EmbeddedChannel player,
+                            JSONObject message, Level level, int messages, boolean print) {
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            // forwardMessage会剔除playerId，每次转发一份副本
+            messageHelper.forwardMessage(streamer, player, message.clone());
+            Object encoded;
+            while ((encoded = player.readOutbound()) != null) {
+                ReferenceCountUtil.release(encoded);
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        if (print) {
+            System.out.printf("%-14s %-8s %12.1f %14.1f%n", message.getString("type"),
+                    level == Level.DEBUG ? "on" : "off", (double) elapsed / messages, (double) allocated / messages);
+        }
+    }
+
+    private static EmbeddedChannel newChannel(ClientType type) {
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance(), new WebSocket13FrameEncoder(false));
+        channel.attr(ClientManager.TYPE).set(type.getValue());
+        return channel;
+    }
+}
@@ -0,0 +1,118 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.xudri.cloudrenderserver.core.client.PlayerIdBitmap;
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName PlayerIdPoolBenchmark
+ * @Description 玩家号码分配并发测试：多个线程模拟事件循环反复分配与释放号码，
+ * 比较位图分配器与原先基于ConcurrentLinkedQueue的回收队列的吞吐量与号码上界
+ * @Author MaxYun
+ * @Since 2025/9/27 15:10
+ * @Version 1.0
+ */
+public class PlayerIdPoolBenchmark {
+
+    private static final int CAPACITY = 65536;
+    private static final int HELD_PER_THREAD = 64;
+    private static final int ROUNDS = 2_000_000;
+    private static final int WARMUP_ROUNDS = 500_000;
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.printf("%-8s %8s %16s %12s%n", "pool", "threads", "ops/s", "maxId");
+        for (int threads : new int[]{1, 2, 4, 8}) {
+            run("bitmap", threads, WARMUP_ROUNDS, false);
+            run("bitmap", threads, ROUNDS, true);
+            run("queue", threads, WARMUP_ROUNDS, false);
+            run("queue", threads, ROUNDS, true);
+        }
+    }
+
+    private static void run(String name, int threads, int rounds, boolean print) throws InterruptedException {
+        IdAllocator allocator = "bitmap".equals(name) ? new BitmapAllocator() : new QueueAllocator();
+        AtomicInteger maxId = new AtomicInteger();
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(() -> {
+                Channel owner = new EmbeddedChannel();
+                int[] held = new int[HELD_PER_THREAD];
+                for (int i = 0; i < held.length; i++) {
+                    held[i] = allocator.acquire(owner);
+                }
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                int localMax = 0;
+                for (int i = 0; i < rounds; i++) {
+                    int slot = i % held.length;
+                    allocator.release(held[slot], owner);
+                    held[slot] = allocator.acquire(owner);
+                    localMax = Math.max(localMax, held[slot]);
+                }
+                maxId.accumulateAndGet(localMax, Math::max);
+                done.countDown();
+            });
+            worker.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - begin;
+
+        if (print) {
+            double opsPerSecond = (double) rounds * threads * 2 / elapsed * 1_000_000_000L;
+            System.out.printf("%-8s %8d %16.0f %12d%n", name, threads, opsPerSecond, maxId.get());
+        }
+    }
+
+    private interface IdAllocator {
+        int acquire(Channel owner);
+
+        void release(int id, Channel owner);
+    }
+
+    private static final class BitmapAllocator implements IdAllocator {
+        private final PlayerIdBitmap bitmap = new PlayerIdBitmap(101, CAPACITY);
+
+        @Override
+        public int acquire(Channel owner) {
+            return bitmap.acquire(owner);
+        }
+
+        @Override
+        public void release(int id, Channel owner) {
+            bitmap.release(id, owner.id());
+        }
+    }
+
+    /**
+     * 原先的实现：自增号码加装箱回收队列
+     */
+    private static final class QueueAllocator implements IdAllocator {
+        private final AtomicInteger nextNumber = new AtomicInteger(101);
+        private final Queue<Integer> availableNumbers = new ConcurrentLinkedQueue<>();
+
+        @Override
+        public int acquire(Channel owner) {
+            Integer recycledId = availableNumbers.poll();
+            return recycledId != null ? recycledId : nextNumber.getAndIncrement();
+        }
+
+        @Override
+        public void release(int id, Channel owner) {
+            availableNumbers.offer(id);
+        }
+    }
+}
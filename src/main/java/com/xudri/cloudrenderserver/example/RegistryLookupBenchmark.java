@@ -0,0 +1,144 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.GpuLoadSource;
+import com.xudri.cloudrenderserver.core.client.SeatPolicy;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.IntFunction;
+
+/**
+ * @ClassName RegistryLookupBenchmark
+ * @Description 通道注册表查找测试：按连接数注册若干对实例/玩家，比较索引查找（getStreamerByInsId、
+ * getPlayerByPlayerId、findTargetChannel）与原先遍历全部通道按属性匹配（getChannelByAttribute）的单次耗时。
+ * 实例转发ICE给玩家时的查找即streamer->player一行
+ * @Author MaxYun
+ * @Since 2025/9/30 10:00
+ * @Version 1.0
+ */
+public class RegistryLookupBenchmark {
+
+    private static final String PROJECT_ID = "bench";
+    private static final long WARMUP_LOOKUPS = 200_000;
+    private static final long MEASURE_NANOS = 1_000_000_000L;
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        int[] pairCounts = args.length > 0 ? parse(args) : new int[]{100, 1000, 10000};
+        System.out.printf("%-16s %8s %14s %14s%n", "lookup", "channels", "index(ns/op)", "scan(ns/op)");
+        for (int pairs : pairCounts) {
+            run(pairs);
+        }
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static int[] parse(String[] args) {
+        int[] values = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = Integer.parseInt(args[i]);
+        }
+        return values;
+    }
+
+    private static void run(int pairs) {
+        try (AnnotationConfigApplicationContext context = newContext()) {
+            ClientManager clientManager = context.getBean(ClientManager.class);
+            Channel[] streamers = new Channel[pairs];
+            Channel[] players = new Channel[pairs];
+            for (int i = 0; i < pairs; i++) {
+                streamers[i] = newChannel(ClientType.STREAMER);
+                streamers[i].attr(ClientManager.INS_ID).set("ins-" + i);
+                clientManager.addChannel(streamers[i]);
+
+                players[i] = newChannel(ClientType.PLAYER);
+                players[i].attr(ClientManager.PLAYERID).set(String.valueOf(101 + i));
+                clientManager.addChannel(players[i]);
+                clientManager.subscribeRelation(players[i].id(), streamers[i].id());
+            }
+
+            int channels = pairs * 2;
+            compare("insId", channels, pairs,
+                    i -> clientManager.getStreamerByInsId("ins-" + i),
+                    i -> clientManager.getChannelByAttribute(ClientManager.INS_ID, "ins-" + i));
+            compare("playerId", channels, pairs,
+                    i -> clientManager.getPlayerByPlayerId(String.valueOf(101 + i)),
+                    i -> clientManager.getChannelByAttribute(ClientManager.PLAYERID, String.valueOf(101 + i)));
+            compare("streamer->player", channels, pairs,
+                    i -> Optional.ofNullable(clientManager.findTargetChannel(streamers[i], String.valueOf(101 + i))),
+                    i -> clientManager.getChannelByAttribute(ClientManager.PLAYERID, String.valueOf(101 + i))
+                            .filter(player -> clientManager.getSubscribedStreamer(player.id())
+                                    .map(streamer -> streamer == streamers[i]).orElse(false)));
+
+            for (int i = 0; i < pairs; i++) {
+                players[i].close();
+                streamers[i].close();
+            }
+        }
+    }
+
+    private static void compare(String name, int channels, int keys, IntFunction<Optional<Channel>> index,
+                                IntFunction<Optional<Channel>> scan) {
+        measure(index, keys, WARMUP_LOOKUPS, 0);
+        double indexNanos = measure(index, keys, Long.MAX_VALUE, MEASURE_NANOS);
+        // 遍历的开销与连接数成正比，预热次数按连接数缩减
+        measure(scan, keys, Math.max(1000, WARMUP_LOOKUPS * 100 / channels), 0);
+        double scanNanos = measure(scan, keys, Long.MAX_VALUE, MEASURE_NANOS);
+        System.out.printf("%-16s %8d %14.1f %14.1f%n", name, channels, indexNanos, scanNanos);
+    }
+
+    /**
+     * 轮流查找各个键，达到次数或时长后停止，返回平均每次耗时
+     */
+    private static double measure(IntFunction<Optional<Channel>> lookup, int keys, long maxLookups, long maxNanos) {
+        long begin = System.nanoTime();
+        long deadline = maxNanos > 0 ? begin + maxNanos : Long.MAX_VALUE;
+        long lookups = 0;
+        long found = 0;
+        while (lookups < maxLookups) {
+            for (int i = 0; i < keys && lookups < maxLookups; i++, lookups++) {
+                found += lookup.apply(i).isPresent() ? 1 : 0;
+            }
+            if (System.nanoTime() >= deadline) {
+                break;
+            }
+        }
+        long elapsed = System.nanoTime() - begin;
+        if (found != lookups) {
+            throw new IllegalStateException("lookup missed " + (lookups - found) + " of " + lookups);
+        }
+        sink += found;
+        return (double) elapsed / lookups;
+    }
+
+    private static Channel newChannel(ClientType type) {
+        // EmbeddedChannel默认共用同一个ChannelId，注册表以ChannelId为键，需要各自生成
+        Channel channel = new EmbeddedChannel(DefaultChannelId.newInstance());
+        channel.attr(ClientManager.TYPE).set(type.getValue());
+        channel.attr(ClientManager.PROJECT_ID).set(PROJECT_ID);
+        return channel;
+    }
+
+    /**
+     * 只装配ClientManager及其依赖，席位与选择策略使用默认配置
+     */
+    private static AnnotationConfigApplicationContext newContext() {
+        AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext();
+        context.getEnvironment().getPropertySources().addFirst(new MapPropertySource("benchmark",
+                Map.of("signalling.seats.default-max-players", 1)));
+        context.registerBean(GpuLoadSource.class, () -> gpuIndex -> 0d);
+        context.registerBean(SeatPolicy.class);
+        context.registerBean(ClientManager.class);
+        context.refresh();
+        return context;
+    }
+}
@@ -0,0 +1,173 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.alibaba.fastjson2.JSONB;
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.MessageHelper;
+import com.xudri.cloudrenderserver.core.client.PlayerSeat;
+import com.xudri.cloudrenderserver.core.signaling.FrameFieldScanner;
+import com.xudri.cloudrenderserver.core.signaling.JsonbFrameTranscoder;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.WebSocketFrame;
+import io.netty.util.ReferenceCountUtil;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.util.function.Consumer;
+import java.util.function.IntSupplier;
+
+/**
+ * @ClassName SignallingCodecBenchmark
+ * @Description 信令编解码对比测试：实例发往玩家的OFFER/ANSWER/ICE分别以文本与JSONB到达时，
+ * 比较转发路径（文本零拷贝字段扫描、JSONB流式转码为文本）与完整解析后重新序列化的单条耗时、帧大小和分配字节数；
+ * 服务端下发的控制消息比较文本与JSONB两种编码的单条耗时与帧大小
+ * @Author MaxYun
+ * @Since 2025/10/2 14:00
+ * @Version 1.0
+ */
+public class SignallingCodecBenchmark {
+
+    private static final int WARMUP_MESSAGES = 200_000;
+    private static final int MESSAGES = 1_000_000;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private static long sink;
+
+    public static void main(String[] args) {
+        System.out.printf("%-20s %-6s %-8s %10s %10s %14s%n", "message", "codec", "path", "bytes", "ns/op",
+                "alloc(B)/op");
+        for (JSONObject message : new JSONObject[]{sdp("offer", 40), sdp("answer", 20), ice()}) {
+            compareInbound(message);
+        }
+        compareControlMessages();
+        if (sink == 42) {
+            System.out.println();
+        }
+    }
+
+    private static void compareInbound(JSONObject message) {
+        String name = message.getString("type");
+        byte[] textBytes = message.toString().getBytes(StandardCharsets.UTF_8);
+        byte[] jsonbBytes = JSONB.toBytes(message);
+        // 帧内容通常在直接内存中，JSONB转码前需要复制出字节数组
+        ByteBuf text = Unpooled.directBuffer(textBytes.length).writeBytes(textBytes);
+        ByteBuf jsonb = Unpooled.directBuffer(jsonbBytes.length).writeBytes(jsonbBytes);
+
+        // 转码结果应与去掉playerId后的原消息一致
+        JSONObject expected = message.clone();
+        expected.remove("playerId");
+        String converted = new String(JsonbFrameTranscoder.transcode(jsonbBytes).getJson(), StandardCharsets.UTF_8);
+        if (!expected.equals(JSONObject.parseObject(converted))) {
+            throw new IllegalStateException("JSONB转码结果不一致：" + converted);
+        }
+
+        run(name, "text", "forward", textBytes.length, () -> {
+            FrameFieldScanner.Fields fields = FrameFieldScanner.scan(text);
+            return fields.getPlayerId().length();
+        });
+        run(name, "jsonb", "forward", jsonbBytes.length, () -> {
+            JsonbFrameTranscoder.Transcoded transcoded = JsonbFrameTranscoder.transcode(ByteBufUtil.getBytes(jsonb));
+            return transcoded.getJson().length;
+        });
+        run(name, "text", "parse", textBytes.length, () -> {
+            JSONObject parsed = JSONObject.parseObject(text.toString(StandardCharsets.UTF_8));
+            parsed.remove("playerId");
+            return parsed.toString().length();
+        });
+        run(name, "jsonb", "parse", jsonbBytes.length, () -> {
+            JSONObject parsed = JSONB.parseObject(ByteBufUtil.getBytes(jsonb));
+            parsed.remove("playerId");
+            return parsed.toString().length();
+        });
+        text.release();
+        jsonb.release();
+    }
+
+    private static void compareControlMessages() {
+        try (AnnotationConfigApplicationContext context = new AnnotationConfigApplicationContext()) {
+            context.registerBean(SignallingStats.class);
+            context.registerBean(MessageHelper.class);
+            context.refresh();
+            MessageHelper messageHelper = context.getBean(MessageHelper.class);
+
+            for (boolean binary : new boolean[]{false, true}) {
+                EmbeddedChannel streamer = new EmbeddedChannel(DefaultChannelId.newInstance());
+                streamer.attr(ClientManager.TYPE).set(ClientType.STREAMER.getValue());
+                streamer.attr(ClientManager.JSONB).set(binary);
+                String codec = binary ? "jsonb" : "text";
+                runControl("config", codec, streamer, messageHelper::sendConfigMessage);
+                runControl("identify", codec, streamer, messageHelper::sendIdentifyMessage);
+                runControl("playerConnected", codec, streamer,
+                        ch -> messageHelper.subscribeToStreamer("1024", ch, PlayerSeat.CONTROLLER));
+                runControl("playerDisconnected", codec, streamer, ch -> messageHelper.unsubscribeStreamer(ch, "1024"));
+                runControl("pong", codec, streamer, messageHelper::sendPong);
+                streamer.finishAndReleaseAll();
+            }
+        }
+    }
+
+    private static void runControl(String name, String codec, EmbeddedChannel channel,
+                                   Consumer<EmbeddedChannel> send) {
+        send.accept(channel);
+        WebSocketFrame sample = channel.readOutbound();
+        int bytes = sample.content().readableBytes();
+        sample.release();
+        run(name, codec, "encode", bytes, () -> {
+            send.accept(channel);
+            Object frame = channel.readOutbound();
+            ReferenceCountUtil.release(frame);
+            return 1;
+        });
+    }
+
+    private static void run(String name, String codec, String path, int bytes, IntSupplier op) {
+        sink += loop(op, WARMUP_MESSAGES);
+        long threadId = Thread.currentThread().getId();
+        long allocatedBefore = THREADS.getThreadAllocatedBytes(threadId);
+        long begin = System.nanoTime();
+        sink += loop(op, MESSAGES);
+        long elapsed = System.nanoTime() - begin;
+        long allocated = THREADS.getThreadAllocatedBytes(threadId) - allocatedBefore;
+        System.out.printf("%-20s %-6s %-8s %10d %10.1f %14.1f%n", name, codec, path, bytes,
+                (double) elapsed / MESSAGES, (double) allocated / MESSAGES);
+    }
+
+    private static long loop(IntSupplier op, int count) {
+        long total = 0;
+        for (int i = 0; i < count; i++) {
+            total += op.getAsInt();
+        }
+        return total;
+    }
+
+    /**
+     * 构造与UE实例发出的SDP规模相近的OFFER/ANSWER
+     */
+    private static JSONObject sdp(String type, int candidateLines) {
+        StringBuilder sdp = new StringBuilder("v=0\r\no=- 4611731400430051336 2 IN IP4 127.0.0.1\r\ns=-\r\nt=0 0\r\n")
+                .append("a=group:BUNDLE 0 1 2\r\na=msid-semantic: WMS pixelstreaming\r\n");
+        for (int i = 0; i < candidateLines; i++) {
+            sdp.append("a=rtpmap:").append(96 + i).append(" H264/90000\r\n")
+                    .append("a=fmtp:").append(96 + i)
+                    .append(" level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n")
+                    .append("a=rtcp-fb:").append(96 + i).append(" nack pli\r\n");
+        }
+        return JSONObject.of("type", type, "playerId", "1024", "sdp", sdp.toString());
+    }
+
+    private static JSONObject ice() {
+        return JSONObject.of("type", "iceCandidate", "playerId", "1024",
+                "candidate", JSONObject.of(
+                        "candidate", "candidate:1 1 udp 2122260223 192.168.1.20 50000 typ host generation 0",
+                        "sdpMid", "0", "sdpMLineIndex", 0));
+    }
+}
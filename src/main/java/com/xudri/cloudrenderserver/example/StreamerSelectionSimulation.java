@@ -0,0 +1,127 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.xudri.cloudrenderserver.core.client.GpuLoadSource;
+import com.xudri.cloudrenderserver.core.client.IdleStreamerPool;
+import com.xudri.cloudrenderserver.core.client.StreamerSelectionStrategy;
+import io.netty.channel.ChannelId;
+import io.netty.channel.DefaultChannelId;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * @ClassName StreamerSelectionSimulation
+ * @Description 实例选择策略仿真：多块GPU上分布不均的实例，玩家随机到达与离开，
+ * GPU负载按固定间隔采样（模拟后台采样的滞后），比较各策略的GPU负载均衡程度与单次选择耗时
+ * @Author MaxYun
+ * @Since 2025/9/26 16:00
+ * @Version 1.0
+ */
+public class StreamerSelectionSimulation {
+
+    private static final int[] STREAMERS_PER_GPU = {12, 6, 6, 4};
+    // 单个会话占用的GPU利用率，模拟不同型号的GPU
+    private static final double[] SESSION_COST = {0.06, 0.10, 0.10, 0.15};
+    private static final int STEPS = 200_000;
+    private static final int SAMPLE_EVERY = 50;
+    private static final double DEPARTURE_PROBABILITY = 0.45;
+
+    public static void main(String[] args) {
+        System.out.printf("%-18s %12s %12s %14s%n", "strategy", "avgMaxLoad", "avgSpread", "select(ns/op)");
+        for (String name : new String[]{"lru", "least-loaded-gpu", "p2c"}) {
+            run(name, 42L);
+        }
+    }
+
+    private static void run(String name, long seed) {
+        Random random = new Random(seed);
+        SimulatedLoad load = new SimulatedLoad(STREAMERS_PER_GPU.length);
+        StreamerSelectionStrategy strategy = StreamerSelectionStrategy.of(name, load);
+
+        IdleStreamerPool pool = new IdleStreamerPool();
+        Map<ChannelId, Integer> gpuOf = new HashMap<>();
+        for (int gpu = 0; gpu < STREAMERS_PER_GPU.length; gpu++) {
+            for (int i = 0; i < STREAMERS_PER_GPU[gpu]; i++) {
+                ChannelId id = DefaultChannelId.newInstance();
+                gpuOf.put(id, gpu);
+                pool.add(id, gpu);
+            }
+        }
+
+        List<ChannelId> busy = new ArrayList<>();
+        double sumMax = 0;
+        double sumSpread = 0;
+        long selectNanos = 0;
+        long selections = 0;
+
+        for (int step = 0; step < STEPS; step++) {
+            boolean depart = !busy.isEmpty() && (pool.isEmpty() || random.nextDouble() < DEPARTURE_PROBABILITY);
+            if (depart) {
+                ChannelId released = busy.remove(random.nextInt(busy.size()));
+                int gpu = gpuOf.get(released);
+                load.actual[gpu] -= SESSION_COST[gpu];
+                pool.add(released, gpu);
+            } else if (!pool.isEmpty()) {
+                long start = System.nanoTime();
+                ChannelId selected = strategy.select(pool);
+                selectNanos += System.nanoTime() - start;
+                selections++;
+
+                pool.remove(selected);
+                busy.add(selected);
+                int gpu = gpuOf.get(selected);
+                load.actual[gpu] += SESSION_COST[gpu];
+            }
+
+            if (step % SAMPLE_EVERY == 0) {
+                load.sample();
+            }
+
+            double max = 0;
+            double min = Double.MAX_VALUE;
+            for (double value : load.actual) {
+                max = Math.max(max, value);
+                min = Math.min(min, value);
+            }
+            sumMax += max;
+            sumSpread += max - min;
+        }
+
+        System.out.printf("%-18s %12.4f %12.4f %14.1f%n", name, sumMax / STEPS, sumSpread / STEPS,
+                selections == 0 ? 0d : (double) selectNanos / selections);
+    }
+
+    /**
+     * 模拟的GPU负载：选择策略只能看到最近一次采样值与采样后的分配次数
+     */
+    private static final class SimulatedLoad implements GpuLoadSource {
+        private final double[] actual;
+        private final double[] sampled;
+        private final int[] pending;
+
+        SimulatedLoad(int gpus) {
+            actual = new double[gpus];
+            sampled = new double[gpus];
+            pending = new int[gpus];
+        }
+
+        void sample() {
+            System.arraycopy(actual, 0, sampled, 0, actual.length);
+            Arrays.fill(pending, 0);
+        }
+
+        @Override
+        public double getLoad(int gpuIndex) {
+            return sampled[gpuIndex] + pending[gpuIndex] * 0.1;
+        }
+
+        @Override
+        public void onAssigned(int gpuIndex) {
+            pending[gpuIndex]++;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.xudri.cloudrenderserver.example;
+
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import com.xudri.cloudrenderserver.infrastructure.network.SignallingTransport;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandler;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.FixedLengthFrameDecoder;
+
+import java.lang.management.ManagementFactory;
+import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * @ClassName TransportBenchmark
+ * @Description 传输层对比测试：服务端分别使用SignallingTransport的epoll与NIO事件循环组，
+ * 本机回环上建立若干条连接做固定长度消息的回显，客户端固定使用NIO，
+ * 比较两种传输层的吞吐量、往返时延与每条消息的进程CPU时间。每条连接同时只有固定条数的消息在途
+ * @Author MaxYun
+ * @Since 2025/9/30 14:00
+ * @Version 1.0
+ */
+public class TransportBenchmark {
+
+    private static final int FRAME_LENGTH = 64;
+    private static final int SERVER_LOOPS = 4;
+    private static final int CLIENT_LOOPS = 2;
+    private static final int IN_FLIGHT = 2;
+    private static final long WARMUP_MILLIS = 2000;
+    private static final long MEASURE_MILLIS = 5000;
+
+    public static void main(String[] args) throws Exception {
+        int[] connectionCounts = args.length > 0 ? parse(args) : new int[]{200, 2000};
+        if (!Epoll.isAvailable()) {
+            System.out.println("原生epoll不可用，只测试NIO：" + Epoll.unavailabilityCause().getMessage());
+        }
+        System.out.printf("%-8s %12s %12s %10s %10s %12s%n", "server", "connections", "msgs/s", "p50(us)",
+                "p99(us)", "cpu(us)/msg");
+        for (int connections : connectionCounts) {
+            run(SignallingTransport.NIO, connections);
+            if (Epoll.isAvailable()) {
+                run(SignallingTransport.EPOLL, connections);
+            }
+        }
+    }
+
+    private static int[] parse(String[] args) {
+        int[] values = new int[args.length];
+        for (int i = 0; i < args.length; i++) {
+            values[i] = Integer.parseInt(args[i]);
+        }
+        return values;
+    }
+
+    private static void run(SignallingTransport transport, int connections) throws Exception {
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(1, "bench-boss");
+        EventLoopGroup serverGroup = transport.newEventLoopGroup(SERVER_LOOPS, "bench-server");
+        EventLoopGroup clientGroup = new NioEventLoopGroup(CLIENT_LOOPS);
+        try {
+            Channel server = new ServerBootstrap()
+                    .group(bossGroup, serverGroup)
+                    .channel(transport.serverChannelClass())
+                    .childOption(ChannelOption.TCP_NODELAY, true)
+                    .childHandler(new ChannelInitializer<>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new FixedLengthFrameDecoder(FRAME_LENGTH), new Echo());
+                        }
+                    })
+                    .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+            InetSocketAddress address = (InetSocketAddress) server.localAddress();
+
+            Recorder recorder = new Recorder();
+            Bootstrap client = new Bootstrap()
+                    .group(clientGroup)
+                    .channel(NioSocketChannel.class)
+                    .option(ChannelOption.TCP_NODELAY, true)
+                    .handler(new ChannelInitializer<>() {
+                        @Override
+                        protected void initChannel(Channel ch) {
+                            ch.pipeline().addLast(new FixedLengthFrameDecoder(FRAME_LENGTH), new Pinger(recorder));
+                        }
+                    });
+            Channel[] clients = new Channel[connections];
+            for (int i = 0; i < connections; i++) {
+                clients[i] = client.connect(address).sync().channel();
+            }
+
+            for (Channel channel : clients) {
+                channel.eventLoop().execute(() -> {
+                    for (int k = 0; k < IN_FLIGHT; k++) {
+                        send(channel);
+                    }
+                });
+            }
+            Thread.sleep(WARMUP_MILLIS);
+            recorder.reset();
+            long cpuStart = processCpuNanos();
+            long start = System.nanoTime();
+            Thread.sleep(MEASURE_MILLIS);
+            long elapsed = System.nanoTime() - start;
+            long cpu = processCpuNanos() - cpuStart;
+            ValueHistogram latency = recorder.latency;
+            long messages = latency.getCount();
+            recorder.stopped.set(true);
+
+            System.out.printf("%-8s %12d %12.0f %10.1f %10.1f %12.2f%n",
+                    transport.getValue(), connections,
+                    messages * 1e9 / elapsed,
+                    latency.getValueAtPercentile(50) / 1000d,
+                    latency.getValueAtPercentile(99) / 1000d,
+                    messages == 0 ? 0d : cpu / 1000d / messages);
+            for (Channel channel : clients) {
+                channel.close();
+            }
+            server.close().sync();
+        } finally {
+            clientGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            serverGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+            bossGroup.shutdownGracefully(0, 1, TimeUnit.SECONDS).sync();
+        }
+    }
+
+    private static void send(Channel channel) {
+        ByteBuf frame = channel.alloc().buffer(FRAME_LENGTH);
+        frame.writeLong(System.nanoTime()).writeZero(FRAME_LENGTH - Long.BYTES);
+        channel.writeAndFlush(frame);
+    }
+
+    private static long processCpuNanos() {
+        return ((com.sun.management.OperatingSystemMXBean) ManagementFactory.getOperatingSystemMXBean())
+                .getProcessCpuTime();
+    }
+
+    /**
+     * 服务端：收到的帧原样写回
+     */
+    @ChannelHandler.Sharable
+    private static final class Echo extends ChannelInboundHandlerAdapter {
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ctx.write(msg);
+        }
+
+        @Override
+        public void channelReadComplete(ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+    }
+
+    /**
+     * 客户端：记录往返时延并立即发出下一条消息
+     */
+    private static final class Pinger extends ChannelInboundHandlerAdapter {
+        private final Recorder recorder;
+
+        Pinger(Recorder recorder) {
+            this.recorder = recorder;
+        }
+
+        @Override
+        public void channelRead(ChannelHandlerContext ctx, Object msg) {
+            ByteBuf frame = (ByteBuf) msg;
+            long sentNanos = frame.readLong();
+            frame.release();
+            recorder.latency.record(System.nanoTime() - sentNanos);
+            if (!recorder.stopped.get()) {
+                send(ctx.channel());
+            }
+        }
+    }
+
+    private static final class Recorder {
+        volatile ValueHistogram latency = new ValueHistogram();
+        final AtomicBoolean stopped = new AtomicBoolean();
+
+        void reset() {
+            latency = new ValueHistogram();
+        }
+    }
+}
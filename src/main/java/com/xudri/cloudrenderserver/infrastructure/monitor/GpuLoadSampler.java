@@ -0,0 +1,137 @@
+package com.xudri.cloudrenderserver.infrastructure.monitor;
+
+import com.xudri.cloudrenderserver.core.client.GpuLoadSource;
+import com.xudri.cloudrenderserver.domain.entity.Gpu;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.Consumer;
+
+/**
+ * @ClassName GpuLoadSampler
+ * @Description 后台定时采样GPU（nvidia-smi），供实例选择策略在事件循环上无阻塞读取利用率，
+ * 主机GPU指标也读取这里最近一次的采样结果，不再单独调用nvidia-smi
+ * @Author MaxYun
+ * @Since 2025/9/26 14:30
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class GpuLoadSampler implements GpuLoadSource {
+
+    private static final int MAX_GPUS = 64;
+
+    @Value("${signalling.selection.strategy:lru}")
+    private String strategy;
+
+    // 两次采样之间每次分配实例对负载估计的修正量（利用率为0-1）
+    @Value("${signalling.selection.assignment-penalty:0.1}")
+    private double assignmentPenalty;
+
+    // 各GPU最近一次采样的利用率，未采样到的GPU为-1
+    private volatile double[] utilization = new double[0];
+
+    // 最近一次采样的平均利用率，用于未知GPU
+    private volatile double averageUtilization;
+
+    // 自上次采样以来分配到各GPU的实例数
+    private final AtomicIntegerArray pendingAssignments = new AtomicIntegerArray(MAX_GPUS + 1);
+
+    // 各GPU最近一次的完整采样结果，供主机指标读取
+    private final Map<Integer, Gpu> lastSample = new ConcurrentHashMap<>();
+
+    // 首次采样未发现GPU时停止采样，避免在无GPU的主机上反复调用nvidia-smi
+    private volatile boolean sampling = true;
+
+    // 每次采样完成后回调，参数为本次采样到的GPU
+    private volatile Consumer<Collection<Gpu>> sampleListener = gpus -> {
+    };
+
+    public void setSampleListener(Consumer<Collection<Gpu>> sampleListener) {
+        this.sampleListener = sampleListener;
+    }
+
+    /**
+     * 最近一次采样到的GPU，尚未采样到时返回null
+     */
+    public Gpu getLastSample(int deviceId) {
+        return lastSample.get(deviceId);
+    }
+
+    /**
+     * 定时采样；lru策略不使用利用率，但主机GPU指标仍依赖采样结果，因此始终采样
+     */
+    @Scheduled(fixedRateString = "${signalling.selection.sample-interval-ms:5000}")
+    public void sample() {
+        if (!sampling) {
+            return;
+        }
+        try {
+            List<Gpu> gpus = SystemInfoUtil.getGPUs();
+            if (gpus.isEmpty() && lastSample.isEmpty()) {
+                log.info("未检测到GPU，停止采样GPU负载与指标");
+                sampling = false;
+                return;
+            }
+            for (Gpu gpu : gpus) {
+                lastSample.put(gpu.getDeviceId(), gpu);
+            }
+            sampleListener.accept(gpus);
+            if ("lru".equals(strategy)) {
+                return;
+            }
+            int size = 0;
+            for (Gpu gpu : gpus) {
+                size = Math.max(size, Math.min(MAX_GPUS, gpu.getDeviceId() + 1));
+            }
+            double[] sampled = new double[size];
+            Arrays.fill(sampled, -1d);
+            double total = 0;
+            int counted = 0;
+            for (Gpu gpu : gpus) {
+                if (gpu.getDeviceId() >= 0 && gpu.getDeviceId() < size && gpu.getGpuUtil() >= 0) {
+                    sampled[gpu.getDeviceId()] = gpu.getGpuUtil();
+                    total += gpu.getGpuUtil();
+                    counted++;
+                }
+            }
+            // 只按读到利用率的GPU求平均，读取失败的GPU不计入，避免拉低平均值
+            averageUtilization = counted == 0 ? 0d : total / counted;
+            utilization = sampled;
+            for (int i = 0; i < pendingAssignments.length(); i++) {
+                pendingAssignments.set(i, 0);
+            }
+        } catch (Exception e) {
+            log.error("Error sampling GPU load", e);
+        }
+    }
+
+    @Override
+    public double getLoad(int gpuIndex) {
+        double[] current = utilization;
+        double base = gpuIndex >= 0 && gpuIndex < current.length && current[gpuIndex] >= 0
+                ? current[gpuIndex]
+                : averageUtilization;
+        return base + pendingAssignments.get(slotOf(gpuIndex)) * assignmentPenalty;
+    }
+
+    @Override
+    public void onAssigned(int gpuIndex) {
+        pendingAssignments.incrementAndGet(slotOf(gpuIndex));
+    }
+
+    /**
+     * 未知GPU使用最后一个槽位
+     */
+    private static int slotOf(int gpuIndex) {
+        return gpuIndex >= 0 && gpuIndex < MAX_GPUS ? gpuIndex : MAX_GPUS;
+    }
+}
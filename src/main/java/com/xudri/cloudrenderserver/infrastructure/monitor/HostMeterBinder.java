@@ -0,0 +1,74 @@
+package com.xudri.cloudrenderserver.infrastructure.monitor;
+
+import com.xudri.cloudrenderserver.domain.entity.Gpu;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.Resource;
+import org.springframework.stereotype.Component;
+import oshi.hardware.GlobalMemory;
+
+import java.util.Collection;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * @ClassName HostMeterBinder
+ * @Description 主机仪表：内存在抓取时直接读取；GPU仪表读取GpuLoadSampler最近一次的采样结果，
+ * 新出现的GPU在首次被采样到时注册。CPU使用率由Spring Boot自带的system.cpu.usage提供
+ * @Author MaxYun
+ * @Since 2025/9/28 15:10
+ * @Version 1.0
+ */
+@Component
+public class HostMeterBinder implements MeterBinder {
+
+    private static final double GB = 1024d * 1024 * 1024;
+
+    @Resource
+    private GpuLoadSampler gpuLoadSampler;
+
+    // 已注册仪表的GPU
+    private final Set<Integer> registeredGpus = ConcurrentHashMap.newKeySet();
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        GlobalMemory memory = SystemInfoUtil.getMemory();
+        Gauge.builder("host.memory.total", memory, GlobalMemory::getTotal)
+                .description("Physical memory of the host")
+                .baseUnit("bytes")
+                .register(registry);
+        Gauge.builder("host.memory.used", memory, m -> m.getTotal() - m.getAvailable())
+                .description("Physical memory in use on the host")
+                .baseUnit("bytes")
+                .register(registry);
+        gpuLoadSampler.setSampleListener(gpus -> registerNewGpus(registry, gpus));
+    }
+
+    private void registerNewGpus(MeterRegistry registry, Collection<Gpu> gpus) {
+        for (Gpu gpu : gpus) {
+            if (registeredGpus.add(gpu.getDeviceId())) {
+                registerGpu(registry, gpu.getDeviceId());
+            }
+        }
+    }
+
+    private void registerGpu(MeterRegistry registry, int deviceId) {
+        registerGpuGauge(registry, "host.gpu.utilization", deviceId, null, Gpu::getGpuUtil);
+        registerGpuGauge(registry, "host.gpu.memory.total", deviceId, "bytes", gpu -> gpu.getMemTotal() * GB);
+        registerGpuGauge(registry, "host.gpu.memory.used", deviceId, "bytes", gpu -> gpu.getMemUsed() * GB);
+        registerGpuGauge(registry, "host.gpu.temperature", deviceId, "celsius", Gpu::getTempGpu);
+    }
+
+    private void registerGpuGauge(MeterRegistry registry, String name, int deviceId, String baseUnit,
+                                  ToDoubleFunction<Gpu> value) {
+        Gauge.builder(name, gpuLoadSampler, sampler -> {
+                    Gpu gpu = sampler.getLastSample(deviceId);
+                    return gpu == null ? Double.NaN : value.applyAsDouble(gpu);
+                })
+                .tag("gpu", String.valueOf(deviceId))
+                .baseUnit(baseUnit)
+                .register(registry);
+    }
+}
@@ -0,0 +1,86 @@
+package com.xudri.cloudrenderserver.infrastructure.monitor;
+
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.PlayerAdmissionQueue;
+import com.xudri.cloudrenderserver.core.client.PlayerIdPool;
+import com.xudri.cloudrenderserver.core.client.PlayerSessionRegistry;
+import com.xudri.cloudrenderserver.core.signaling.HeartbeatManager;
+import com.xudri.cloudrenderserver.core.signaling.SignallingEventLoops;
+import com.xudri.cloudrenderserver.core.signaling.SignallingLoadShedder;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+/**
+ * @ClassName SignallingMeterBinder
+ * @Description 信令服务器状态仪表：各类型在线连接数、排队人数、宽限期会话数、玩家号码占用、心跳跟踪数
+ * 与各类型事件循环组的利用率，均在抓取指标时读取，不影响事件循环
+ * @Author MaxYun
+ * @Since 2025/9/28 14:50
+ * @Version 1.0
+ */
+@Component
+@RequiredArgsConstructor
+public class SignallingMeterBinder implements MeterBinder {
+
+    private final ClientManager clientManager;
+
+    private final PlayerAdmissionQueue playerAdmissionQueue;
+
+    private final PlayerSessionRegistry playerSessionRegistry;
+
+    private final PlayerIdPool playerIdPool;
+
+    private final HeartbeatManager heartbeatManager;
+
+    private final SignallingLoadShedder signallingLoadShedder;
+
+    private final SignallingEventLoops signallingEventLoops;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        for (ClientType type : ClientType.values()) {
+            String value = type.getValue();
+            Gauge.builder("signalling.clients", clientManager, manager -> manager.countByType(value))
+                    .description("Connected signalling clients, by client type")
+                    .tag("client", value)
+                    .register(registry);
+            Gauge.builder("signalling.eventloop.utilization", signallingEventLoops,
+                            loops -> loops.getUtilization(type))
+                    .description("Average CPU utilization of the worker event loops serving this client type")
+                    .tag("client", value)
+                    .register(registry);
+            Gauge.builder("signalling.eventloop.threads", signallingEventLoops,
+                            loops -> loops.getThreadCount(type))
+                    .description("Worker event loop threads serving this client type")
+                    .tag("client", value)
+                    .register(registry);
+        }
+        Gauge.builder("signalling.admission.queued", playerAdmissionQueue, PlayerAdmissionQueue::getTotalQueuedCount)
+                .description("Players waiting in admission queues")
+                .register(registry);
+        Gauge.builder("signalling.sessions.suspended", playerSessionRegistry, PlayerSessionRegistry::getSuspendedCount)
+                .description("Dropped players whose seat is held for a reconnect")
+                .register(registry);
+        Gauge.builder("signalling.player.ids.available", playerIdPool, PlayerIdPool::getAvailableIdsCount)
+                .description("Player ids left in the pool")
+                .register(registry);
+        Gauge.builder("signalling.heartbeat.tracked", heartbeatManager, HeartbeatManager::getTrackedCount)
+                .description("Connections with an active heartbeat")
+                .register(registry);
+        Gauge.builder("signalling.eventloop.lag", signallingLoadShedder, SignallingLoadShedder::getMaxLagMillis)
+                .description("Smoothed task queueing delay of the slowest worker event loop")
+                .baseUnit("milliseconds")
+                .register(registry);
+        Gauge.builder("signalling.eventloop.pending.tasks", signallingLoadShedder,
+                        SignallingLoadShedder::getMaxPendingTasks)
+                .description("Pending tasks on the busiest worker event loop")
+                .register(registry);
+        Gauge.builder("signalling.load.shedding", signallingLoadShedder, shedder -> shedder.isShedding() ? 1 : 0)
+                .description("1 while player handshakes are being rejected because of overload")
+                .register(registry);
+    }
+}
@@ -75,6 +75,13 @@ public class SystemInfoUtil {
         return hostInfo;
     }
 
+    /**
+     * 获取主机内存，返回的对象每次读取都会查询当前值
+     */
+    public static GlobalMemory getMemory() {
+        return hardware.getMemory();
+    }
+
     public static List<Gpu> getGPUs() {
         List<Gpu> gpus = new ArrayList<>();
 
@@ -0,0 +1,232 @@
+package com.xudri.cloudrenderserver.infrastructure.monitor;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.application.service.InstanceService;
+import com.xudri.cloudrenderserver.common.util.LoggerUtil;
+import com.xudri.cloudrenderserver.core.client.ClientManager;
+import com.xudri.cloudrenderserver.core.client.PlayerAdmissionQueue;
+import com.xudri.cloudrenderserver.core.streaming.PixelStreamingLauncherManager;
+import com.xudri.cloudrenderserver.domain.entity.Instance;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelId;
+import jakarta.annotation.Resource;
+import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * @ClassName WarmPoolJob
+ * @Description 项目预热池：为每个项目保持一定数量已启动并连接到信令服务器的空闲实例，
+ * 玩家分配后补足，需求下降后回收到目标数量
+ * @Author MaxYun
+ * @Since 2025/9/26 09:40
+ * @Version 1.0
+ */
+@Log4j2
+@Component
+public class WarmPoolJob {
+
+    @Value("${signalling.warm-pool.enabled:false}")
+    private boolean enabled;
+
+    /**
+     * 项目ID -> 最少空闲实例数
+     */
+    @Value("#{${signalling.warm-pool.min-idle:{:}}}")
+    private Map<String, Integer> minIdleByProject;
+
+    @Value("${signalling.warm-pool.max-idle-extra:0}")
+    private int maxIdleExtra;
+
+    @Value("${signalling.warm-pool.launch-timeout-ms:120000}")
+    private long launchTimeoutMillis;
+
+    @Value("${signalling.warm-pool.trim-delay-ms:60000}")
+    private long trimDelayMillis;
+
+    @Resource
+    private InstanceService instanceService;
+
+    @Resource
+    private ClientManager clientManager;
+
+    @Resource
+    private PixelStreamingLauncherManager pixelStreamingLauncherManager;
+
+    @Resource
+    private PlayerAdmissionQueue playerAdmissionQueue;
+
+    // 由预热池启动、尚未连接信令服务器的实例
+    private final Map<String, Launch> launching = new ConcurrentHashMap<>();
+
+    // 由预热池启动的实例，只回收这些实例，不影响手动启动的实例
+    private final Set<String> pooled = ConcurrentHashMap.newKeySet();
+
+    // 项目ID -> 空闲数开始超过上限的时间
+    private final Map<String, Long> surplusSince = new ConcurrentHashMap<>();
+
+    @Scheduled(fixedRateString = "${signalling.warm-pool.check-interval-ms:2000}")
+    public void check() {
+        if (!enabled || minIdleByProject.isEmpty()) {
+            return;
+        }
+        try {
+            expireLaunching();
+            minIdleByProject.forEach(this::balance);
+        } catch (Exception e) {
+            log.error("Error in warm pool check", e);
+        }
+    }
+
+    /**
+     * 获取预热池状态
+     */
+    public JSONObject getStatistics() {
+        JSONObject stats = new JSONObject();
+        stats.put("enabled", enabled);
+        JSONObject projects = new JSONObject();
+        minIdleByProject.forEach((projectId, minIdle) -> {
+            JSONObject project = new JSONObject();
+            project.put("minIdle", minIdle);
+            project.put("idle", clientManager.getIdleStreamers(projectId).size());
+            project.put("launching", countLaunching(projectId));
+            project.put("queued", playerAdmissionQueue.getQueuedCount(projectId));
+            projects.put(projectId, project);
+        });
+        stats.put("projects", projects);
+        stats.put("pooled", pooled.size());
+        return stats;
+    }
+
+    private void balance(String projectId, Integer minIdle) {
+        int idle = clientManager.getIdleStreamers(projectId).size();
+        int queued = playerAdmissionQueue.getQueuedCount(projectId);
+        // 排队中的玩家各需要一个实例，加上常备空闲数
+        int target = minIdle + queued;
+        int deficit = target - idle - countLaunching(projectId);
+
+        if (deficit > 0) {
+            surplusSince.remove(projectId);
+            topUp(projectId, deficit);
+        } else if (idle > minIdle + maxIdleExtra && queued == 0) {
+            long now = System.currentTimeMillis();
+            long since = surplusSince.computeIfAbsent(projectId, k -> now);
+            if (now - since >= trimDelayMillis) {
+                trim(projectId, idle - minIdle - maxIdleExtra);
+                surplusSince.remove(projectId);
+            }
+        } else {
+            surplusSince.remove(projectId);
+        }
+    }
+
+    /**
+     * 启动项目下尚未运行的实例补足空闲数，只启动进程不等待连接
+     */
+    private void topUp(String projectId, int count) {
+        List<Instance> instances = instanceService.getInstancesByProject(projectId);
+        int started = 0;
+        for (Instance instance : instances) {
+            if (started >= count) {
+                break;
+            }
+            String insId = instance.getId();
+            if (launching.containsKey(insId) || clientManager.getStreamerByInsId(insId).isPresent()
+                    || pixelStreamingLauncherManager.isRunning(insId)) {
+                continue;
+            }
+
+            Map<String, Object> result = instanceService.launchInstance(insId);
+            if (Boolean.TRUE.equals(result.get("result"))) {
+                launching.put(insId, new Launch(projectId, System.currentTimeMillis()));
+                pooled.add(insId);
+                started++;
+                LoggerUtil.logInstance(insId, "预热启动", "项目ID：" + projectId);
+            } else {
+                log.warn("预热池启动实例 {} 失败: {}", insId, result.get("resultMsg"));
+            }
+        }
+        if (started < count) {
+            log.warn("项目 {} 可用实例不足，预热池缺少 {} 个实例", projectId, count - started);
+        }
+    }
+
+    /**
+     * 停止由预热池启动的多余空闲实例
+     */
+    private void trim(String projectId, int count) {
+        int stopped = 0;
+        for (ChannelId streamerId : clientManager.getIdleStreamers(projectId)) {
+            if (stopped >= count) {
+                break;
+            }
+            Channel streamer = clientManager.getChannel(streamerId).orElse(null);
+            if (streamer == null) {
+                continue;
+            }
+            String insId = streamer.attr(ClientManager.INS_ID).get();
+            if (insId == null || !pooled.contains(insId)) {
+                continue;
+            }
+            // 快照之后实例可能已分配给玩家，只停止认领成功的实例
+            if (!clientManager.claimIdleStreamer(streamer)) {
+                continue;
+            }
+
+            pooled.remove(insId);
+            pixelStreamingLauncherManager.stop(insId);
+            streamer.close();
+            stopped++;
+            LoggerUtil.logInstance(insId, "预热回收", "项目ID：" + projectId);
+        }
+    }
+
+    /**
+     * 已连接的实例移出启动中列表，超时未连接的实例停止并放弃
+     */
+    private void expireLaunching() {
+        long now = System.currentTimeMillis();
+        launching.entrySet().removeIf(entry -> {
+            String insId = entry.getKey();
+            if (clientManager.getStreamerByInsId(insId).isPresent()) {
+                return true;
+            }
+            if (now - entry.getValue().startedAt > launchTimeoutMillis) {
+                log.warn("预热实例 {} 启动超时，停止该实例", insId);
+                pooled.remove(insId);
+                pixelStreamingLauncherManager.stop(insId);
+                return true;
+            }
+            return false;
+        });
+        pooled.removeIf(insId -> !launching.containsKey(insId)
+                && clientManager.getStreamerByInsId(insId).isEmpty()
+                && !pixelStreamingLauncherManager.isRunning(insId));
+    }
+
+    private int countLaunching(String projectId) {
+        int count = 0;
+        for (Launch launch : launching.values()) {
+            if (projectId.equals(launch.projectId)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    private static final class Launch {
+        private final String projectId;
+        private final long startedAt;
+
+        Launch(String projectId, long startedAt) {
+            this.projectId = projectId;
+            this.startedAt = startedAt;
+        }
+    }
+}
@@ -1,21 +1,29 @@
 package com.xudri.cloudrenderserver.infrastructure.network;
 
 import com.xudri.cloudrenderserver.core.signaling.SignallingChannelInitializer;
+import com.xudri.cloudrenderserver.core.signaling.SignallingEventLoops;
+import com.xudri.cloudrenderserver.core.signaling.SignallingLoadShedder;
 import com.xudri.cloudrenderserver.common.util.LoggerUtil;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
 import io.netty.bootstrap.ServerBootstrap;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.channel.WriteBufferWaterMark;
-import io.netty.channel.nio.NioEventLoopGroup;
-import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.channel.epoll.EpollChannelOption;
 import jakarta.annotation.Resource;
 import lombok.Getter;
 import lombok.Setter;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Component;
 
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
 /**
  * @ClassName SignallingServer
  * @Description 信令服务
@@ -31,38 +39,109 @@ public class SignallingServer {
     @Resource
     private SignallingChannelInitializer signallingChannelInitializer;
 
+    @Resource
+    private SignallingLoadShedder signallingLoadShedder;
+
+    @Resource
+    private SignallingEventLoops signallingEventLoops;
+
+    @Value("${signalling.backpressure.low-water-mark:524288}")
+    private int writeBufferLowWaterMark;
+
+    @Value("${signalling.backpressure.high-water-mark:1048576}")
+    private int writeBufferHighWaterMark;
+
+    @Value("${signalling.transport.type:auto}")
+    private String transportType;
+
+    @Value("${signalling.transport.acceptors:1}")
+    private int acceptors;
+
+    @Value("${signalling.transport.worker-threads:0}")
+    private int workerThreads;
+
+    @Value("${signalling.transport.isolate-client-types:true}")
+    private boolean isolateClientTypes;
+
+    @Value("${signalling.transport.streamer-threads:0}")
+    private int streamerThreads;
+
+    @Value("${signalling.transport.admin-threads:1}")
+    private int adminThreads;
+
+    @Value("${signalling.transport.tcp-no-delay:true}")
+    private boolean tcpNoDelay;
+
+    @Value("${signalling.transport.keep-alive:true}")
+    private boolean keepAlive;
+
     @Setter
     @Getter
     private int servicePort = 9999;
 
-    private Channel channel;
+    private final List<Channel> channels = new CopyOnWriteArrayList<>();
 
     @Getter
     private volatile boolean isRunning = false;
 
     @Async
     public void run() {
-        EventLoopGroup bossGroup = new NioEventLoopGroup();
-        EventLoopGroup workerGroup = new NioEventLoopGroup();
+        SignallingTransport transport = SignallingTransport.select(transportType);
+        int acceptorCount = transport.supportsReusePort() ? Math.max(1, acceptors) : 1;
+        EventLoopGroup bossGroup = transport.newEventLoopGroup(acceptorCount, "signalling-boss");
+        EventLoopGroup workerGroup = transport.newEventLoopGroup(workerThreads, "signalling-worker");
+        // 所有连接在工作组上握手，玩家留在工作组；像素流实例与管理端连接确定类型后移交到各自的组
+        EventLoopGroup streamerGroup = isolateClientTypes
+                ? transport.newEventLoopGroup(streamerThreads, "signalling-streamer") : workerGroup;
+        EventLoopGroup adminGroup = isolateClientTypes
+                ? transport.newEventLoopGroup(adminThreads, "signalling-admin") : workerGroup;
+        Map<ClientType, EventLoopGroup> groups = new EnumMap<>(ClientType.class);
+        groups.put(ClientType.PLAYER, workerGroup);
+        groups.put(ClientType.STREAMER, streamerGroup);
+        groups.put(ClientType.ADMIN, adminGroup);
+        signallingEventLoops.bind(groups);
+        signallingLoadShedder.watch(isolateClientTypes ? new EventLoopGroup[]{workerGroup, streamerGroup}
+                : new EventLoopGroup[]{workerGroup});
         try {
             ServerBootstrap bootstrap = new ServerBootstrap();
             bootstrap
                     .group(bossGroup, workerGroup)
-                    .channel(NioServerSocketChannel.class)
-                    .option(ChannelOption.WRITE_BUFFER_WATER_MARK, new WriteBufferWaterMark(512 * 1024, 1024 * 1024))
+                    .channel(transport.serverChannelClass())
+                    .childOption(ChannelOption.TCP_NODELAY, tcpNoDelay)
+                    .childOption(ChannelOption.SO_KEEPALIVE, keepAlive)
+                    .childOption(ChannelOption.WRITE_BUFFER_WATER_MARK,
+                            new WriteBufferWaterMark(writeBufferLowWaterMark, writeBufferHighWaterMark))
                     .childHandler(signallingChannelInitializer);
+            if (acceptorCount > 1) {
+                // 多个监听通道共享端口，由内核在各accept线程间分发连接
+                bootstrap.option(EpollChannelOption.SO_REUSEPORT, true);
+            }
 
-            channel = bootstrap.bind(servicePort).sync().channel();
-            LoggerUtil.logServiceStartup("信令服务器", "启动成功", "端口：" + servicePort);
-            log.info("信令服务器已在端口 {} 上启动", servicePort);
+            for (int i = 0; i < acceptorCount; i++) {
+                channels.add(bootstrap.bind(servicePort).sync().channel());
+            }
+            LoggerUtil.logServiceStartup("信令服务器", "启动成功", "端口：" + servicePort
+                    + "，传输层：" + transport.getValue() + "，监听通道数：" + acceptorCount
+                    + "，按客户端类型隔离事件循环：" + isolateClientTypes);
+            log.info("信令服务器已在端口 {} 上启动，传输层：{}，监听通道数：{}", servicePort, transport.getValue(), acceptorCount);
             isRunning = true;
-            channel.closeFuture().sync();
+            for (Channel channel : channels) {
+                channel.closeFuture().sync();
+            }
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             LoggerUtil.logError(log, "信令服务器启动", "信令服务器启动过程被中断", e);
         } catch (Exception e) {
             LoggerUtil.logError(log, "信令服务器启动", "启动信令服务器时发生异常", e);
         } finally {
+            channels.forEach(Channel::close);
+            channels.clear();
+            signallingLoadShedder.watch();
+            signallingEventLoops.bind(Map.of());
+            if (isolateClientTypes) {
+                adminGroup.shutdownGracefully();
+                streamerGroup.shutdownGracefully();
+            }
             workerGroup.shutdownGracefully();
             bossGroup.shutdownGracefully();
             isRunning = false;
@@ -72,9 +151,8 @@ public class SignallingServer {
     }
 
     public boolean stop() {
-        if (channel != null) {
-            channel.close();
-            channel = null;
+        if (!channels.isEmpty()) {
+            channels.forEach(Channel::close);
             isRunning = false;
             LoggerUtil.logServiceStartup("信令服务器", "停止成功", "");
             log.info("信令服务器已停止");
@@ -0,0 +1,75 @@
+package com.xudri.cloudrenderserver.infrastructure.network;
+
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.ServerChannel;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollEventLoopGroup;
+import io.netty.channel.epoll.EpollServerSocketChannel;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import lombok.Getter;
+import lombok.extern.log4j.Log4j2;
+
+/**
+ * @ClassName SignallingTransport
+ * @Description 信令服务传输层选择：Linux下优先使用原生epoll，不可用时回退到NIO
+ * @Author MaxYun
+ * @Since 2025/9/24 09:50
+ * @Version 1.0
+ */
+@Log4j2
+@Getter
+public enum SignallingTransport {
+    NIO("nio"),
+    EPOLL("epoll");
+
+    private final String value;
+
+    SignallingTransport(String value) {
+        this.value = value;
+    }
+
+    /**
+     * 根据配置选择传输层，auto表示自动选择；指定的原生传输不可用时回退到NIO
+     *
+     * @param configured 配置值：auto / epoll / nio
+     * @return 实际使用的传输层
+     */
+    public static SignallingTransport select(String configured) {
+        if (NIO.value.equalsIgnoreCase(configured)) {
+            return NIO;
+        }
+        if (Epoll.isAvailable()) {
+            return EPOLL;
+        }
+        if (EPOLL.value.equalsIgnoreCase(configured)) {
+            log.warn("原生epoll不可用，回退到NIO。原因：{}", Epoll.unavailabilityCause().getMessage());
+        }
+        return NIO;
+    }
+
+    /**
+     * 创建事件循环组
+     *
+     * @param threads 线程数，0表示使用Netty默认值（CPU核数*2）
+     * @param name    线程名前缀
+     */
+    public EventLoopGroup newEventLoopGroup(int threads, String name) {
+        DefaultThreadFactory threadFactory = new DefaultThreadFactory(name, true);
+        return this == EPOLL
+                ? new EpollEventLoopGroup(threads, threadFactory)
+                : new NioEventLoopGroup(threads, threadFactory);
+    }
+
+    public Class<? extends ServerChannel> serverChannelClass() {
+        return this == EPOLL ? EpollServerSocketChannel.class : NioServerSocketChannel.class;
+    }
+
+    /**
+     * 是否支持SO_REUSEPORT多监听通道
+     */
+    public boolean supportsReusePort() {
+        return this == EPOLL;
+    }
+}
@@ -45,7 +45,8 @@ public class JwtAuthenticationFilter extends OncePerRequestFilter {
                 String username = jwtUtil.getUsernameFromToken(token);
                 
                 if (StringUtils.hasText(username) && SecurityContextHolder.getContext().getAuthentication() == null) {
-                    if (jwtUtil.validateToken(token, username)) {
+                    // 实例服务令牌有效期较长且随启动参数下发，只用于信令连接，不接受为接口凭证
+                    if (jwtUtil.validateToken(token, username) && !jwtUtil.isStreamerToken(token)) {
                         // 从token中获取角色信息
                         String roles = jwtUtil.getRolesFromToken(token);
                         List<SimpleGrantedAuthority> authorities = Arrays.stream(roles.split(","))
@@ -25,6 +25,21 @@ import java.util.Map;
 @Log4j2
 public class JwtUtil {
 
+    /**
+     * 像素流实例服务令牌的角色
+     */
+    public static final String STREAMER_ROLE = "STREAMER";
+
+    /**
+     * 像素流实例服务令牌的类型声明，主题为 "streamer:&lt;实例ID&gt;"
+     */
+    public static final String STREAMER_TOKEN_TYPE = "streamer";
+
+    /**
+     * 像素流实例服务令牌的主题前缀
+     */
+    public static final String STREAMER_SUBJECT_PREFIX = "streamer:";
+
     @Value("${jwt.secret:cloudRenderServerJwtSecretKey2024ForAuthenticationAndAuthorization}")
     private String secret;
 
@@ -34,6 +49,9 @@ public class JwtUtil {
     @Value("${jwt.refresh-expiration:604800000}") // 7天，单位毫秒
     private Long refreshExpiration;
 
+    @Value("${jwt.streamer-expiration:2592000000}") // 30天，单位毫秒
+    private Long streamerExpiration;
+
     /**
      * 获取签名密钥
      */
@@ -70,6 +88,21 @@ public class JwtUtil {
         return generateToken(claims, username, refreshExpiration);
     }
 
+    /**
+     * 生成像素流实例连接信令服务器使用的服务令牌。令牌随启动参数交给实例，
+     * 实例运行期间断线重连都使用同一个令牌，因此有效期独立于用户令牌；
+     * 令牌只能以对应实例的身份连接，实例每次启动都会签发新令牌
+     *
+     * @param instanceId 实例ID
+     * @return JWT令牌
+     */
+    public String generateStreamerToken(String instanceId) {
+        Map<String, Object> claims = new HashMap<>();
+        claims.put("roles", STREAMER_ROLE);
+        claims.put("type", STREAMER_TOKEN_TYPE);
+        return generateToken(claims, STREAMER_SUBJECT_PREFIX + instanceId, streamerExpiration);
+    }
+
     /**
      * 生成令牌
      *
@@ -211,6 +244,31 @@ public class JwtUtil {
         }
     }
 
+    /**
+     * 判断是否为像素流实例服务令牌
+     *
+     * @param token JWT令牌
+     * @return 是否为实例服务令牌
+     */
+    public boolean isStreamerToken(String token) {
+        try {
+            Claims claims = getClaimsFromToken(token);
+            return STREAMER_TOKEN_TYPE.equals(claims.get("type"));
+        } catch (Exception e) {
+            return false;
+        }
+    }
+
+    /**
+     * 校验签名与有效期并返回声明，校验失败时抛出JwtException
+     *
+     * @param token JWT令牌
+     * @return 声明
+     */
+    public Claims verifyToken(String token) {
+        return getClaimsFromToken(token);
+    }
+
     /**
      * 从令牌中获取声明
      *
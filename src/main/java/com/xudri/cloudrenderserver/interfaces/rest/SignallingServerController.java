@@ -74,4 +74,16 @@ public class SignallingServerController {
     public Result getDetail() {
         return Result.ok(clientManagerService.getDetails());
     }
+
+    @Operation(summary = "连接统计")
+    @RequestMapping(value = "/getStats", method = RequestMethod.GET)
+    public Result getStats() {
+        return Result.ok(clientManagerService.getStatistics());
+    }
+
+    @Operation(summary = "玩家会话启动耗时")
+    @RequestMapping(value = "/getSessionTimeline", method = RequestMethod.GET)
+    public Result getSessionTimeline() {
+        return Result.ok(clientManagerService.getSessionTimeline());
+    }
 }
@@ -0,0 +1,113 @@
+package com.xudri.cloudrenderserver.common.util;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 对数线性分桶直方图：分桶边界、百分位取子桶上界且不超过最大值、相对误差与统计量
+ *
+ * @author MaxYun
+ * @version 1.0
+ * @since 2025-10-03
+ */
+class ValueHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        ValueHistogram histogram = new ValueHistogram();
+
+        assertThat(histogram.getCount()).isZero();
+        assertThat(histogram.getMean()).isZero();
+        assertThat(histogram.getValueAtPercentile(99)).isZero();
+    }
+
+    @Test
+    void valuesBelowSubBucketCountAreExact() {
+        ValueHistogram histogram = new ValueHistogram();
+        for (long v = 0; v < 64; v++) {
+            histogram.record(v);
+        }
+
+        // 0-63各占一个桶，百分位精确
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(31);
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(63);
+        assertThat(histogram.getValueAtPercentile(1d / 64 * 100)).isZero();
+    }
+
+    @ParameterizedTest
+    @CsvSource({
+            // 值, 所在子桶的上界
+            "64, 65",
+            "65, 65",
+            "66, 67",
+            "127, 127",
+            "128, 131",
+            "131, 131",
+            "132, 135",
+            "1000, 1007",
+            "1024, 1055"
+    })
+    void percentileReturnsUpperBoundOfSubBucket(long value, long upperBound) {
+        ValueHistogram histogram = new ValueHistogram();
+        histogram.record(value);
+        // 更大的值使上界不被最大值截断
+        histogram.record(Long.MAX_VALUE / 2);
+
+        assertThat(histogram.getValueAtPercentile(50)).isEqualTo(upperBound);
+    }
+
+    @Test
+    void percentileIsCappedAtMaxRecordedValue() {
+        ValueHistogram histogram = new ValueHistogram();
+        histogram.record(1000);
+
+        assertThat(histogram.getValueAtPercentile(99)).isEqualTo(1000);
+        assertThat(histogram.getValueAtPercentile(150)).isEqualTo(1000);
+    }
+
+    @Test
+    void handlesExtremeValues() {
+        ValueHistogram histogram = new ValueHistogram();
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        assertThat(histogram.getValueAtPercentile(50)).isZero();
+        assertThat(histogram.getValueAtPercentile(100)).isEqualTo(Long.MAX_VALUE);
+        assertThat(histogram.getMax()).isEqualTo(Long.MAX_VALUE);
+    }
+
+    @Test
+    void percentilesOfUniformValuesStayWithinRelativeError() {
+        ValueHistogram histogram = new ValueHistogram();
+        for (long v = 1; v <= 100_000; v++) {
+            histogram.record(v);
+        }
+
+        for (double percentile : new double[]{10, 50, 90, 99, 99.9}) {
+            long exact = (long) Math.ceil(100_000 * percentile / 100);
+            long reported = histogram.getValueAtPercentile(percentile);
+            // 返回子桶上界，不低于真实值，偏高不超过1/32
+            assertThat(reported).isGreaterThanOrEqualTo(exact);
+            assertThat((double) (reported - exact) / exact).isLessThanOrEqualTo(1d / 32);
+        }
+        assertThat(histogram.getCount()).isEqualTo(100_000);
+        assertThat(histogram.getMean()).isEqualTo(50_000.5);
+        assertThat(histogram.getMax()).isEqualTo(100_000);
+    }
+
+    @Test
+    void toJsonContainsSummary() {
+        ValueHistogram histogram = new ValueHistogram();
+        histogram.record(10);
+        histogram.record(20);
+
+        assertThat(histogram.toJson())
+                .containsEntry("count", 2L)
+                .containsEntry("max", 20L)
+                .containsEntry("mean", 15.0)
+                .containsEntry("p50", 10L);
+    }
+}
@@ -0,0 +1,156 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import com.alibaba.fastjson2.JSONObject;
+import com.xudri.cloudrenderserver.core.signaling.FrameFieldScanner;
+import com.xudri.cloudrenderserver.core.signaling.SignallingStats;
+import com.xudri.cloudrenderserver.domain.enums.ClientType;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName MessageHelperTest
+ * @Description 零拷贝转发：实例发往玩家时剔除playerId，玩家发往实例时插入玩家自己的playerId，
+ * 宽限期缓存的文本与下发给玩家的内容一致
+ * @Author MaxYun
+ * @Since 2025/10/3 10:30
+ * @Version 1.0
+ */
+class MessageHelperTest {
+
+    private final SignallingStats signallingStats = new SignallingStats();
+    private final MessageHelper messageHelper = new MessageHelper();
+
+    private EmbeddedChannel streamer;
+    private EmbeddedChannel player;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(messageHelper, "signallingStats", signallingStats);
+        streamer = newChannel(ClientType.STREAMER);
+        player = newChannel(ClientType.PLAYER);
+        player.attr(ClientManager.PLAYERID).set("1024");
+    }
+
+    @AfterEach
+    void tearDown() {
+        streamer.finishAndReleaseAll();
+        player.finishAndReleaseAll();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"playerId\":\"1024\",\"type\":\"offer\",\"sdp\":\"v=0\"}",
+            "{\"type\":\"offer\",\"playerId\":\"1024\",\"sdp\":\"v=0\"}",
+            "{\"type\":\"offer\",\"sdp\":\"v=0\",\"playerId\":\"1024\"}",
+            "{ \"type\" : \"offer\" , \"sdp\" : \"v=0\" , \"playerId\" : 1024 }"
+    })
+    void stripsPlayerIdWhenForwardingToPlayer(String frame) {
+        String forwarded = forward(streamer, player, frame);
+
+        assertThat(JSONObject.parseObject(forwarded))
+                .isEqualTo(JSONObject.of("type", "offer", "sdp", "v=0"));
+        assertThat(signallingStats.getFramesForwarded()).isEqualTo(1);
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "{\"playerId\":\"1024\",\"type\":\"offer\",\"sdp\":\"v=0\"}",
+            "{\"type\":\"offer\",\"playerId\":\"1024\",\"sdp\":\"v=0\"}",
+            "{\"type\":\"offer\",\"sdp\":\"v=0\",\"playerId\":\"1024\"}",
+            "{\"type\":\"offer\",\"playerId\":\"1024\"}"
+    })
+    void strippedTextMatchesForwardedFrame(String frame) {
+        ByteBuf content = buffer(frame);
+        FrameFieldScanner.Fields fields = FrameFieldScanner.scan(content);
+
+        String buffered = MessageHelper.stripPlayerIdText(content, fields);
+
+        assertThat(buffered).isEqualTo(forward(streamer, player, frame));
+        assertThat(JSONObject.parseObject(buffered)).doesNotContainKey("playerId");
+        content.release();
+    }
+
+    @Test
+    void stripPlayerIdTextKeepsFrameWithoutPlayerId() {
+        String frame = "{\"type\":\"answer\",\"sdp\":\"v=0\"}";
+        ByteBuf content = buffer(frame);
+
+        assertThat(MessageHelper.stripPlayerIdText(content, FrameFieldScanner.scan(content))).isEqualTo(frame);
+        content.release();
+    }
+
+    @Test
+    void insertsOwnPlayerIdWhenForwardingToStreamer() {
+        String forwarded = forward(player, streamer, "{\"type\":\"answer\",\"sdp\":\"v=0\"}");
+
+        assertThat(JSONObject.parseObject(forwarded))
+                .isEqualTo(JSONObject.of("playerId", "1024", "type", "answer", "sdp", "v=0"));
+    }
+
+    @Test
+    void forwardsFrameUnchangedWithoutPlayerId() {
+        String frame = "{\"type\":\"iceCandidate\",\"candidate\":{\"sdpMid\":\"0\"}}";
+
+        assertThat(forward(streamer, player, frame)).isEqualTo(frame);
+    }
+
+    @Test
+    void releasesSourceFrameOnlyOnce() {
+        ByteBuf content = buffer("{\"type\":\"offer\",\"playerId\":\"1024\",\"sdp\":\"v=0\"}");
+
+        messageHelper.forwardFrame(streamer, player, content, FrameFieldScanner.scan(content));
+        TextWebSocketFrame frame = player.readOutbound();
+        frame.release();
+
+        assertThat(content.refCnt()).isEqualTo(1);
+        content.release();
+    }
+
+    @Test
+    void dropsFrameForInactiveTarget() {
+        ByteBuf content = buffer("{\"type\":\"offer\",\"playerId\":\"1024\"}");
+        player.close();
+
+        messageHelper.forwardFrame(streamer, player, content, FrameFieldScanner.scan(content));
+
+        assertThat((Object) player.readOutbound()).isNull();
+        assertThat(signallingStats.getFramesForwarded()).isZero();
+        assertThat(content.refCnt()).isEqualTo(1);
+        content.release();
+    }
+
+    private String forward(EmbeddedChannel from, EmbeddedChannel to, String frame) {
+        ByteBuf content = buffer(frame);
+        messageHelper.forwardFrame(from, to, content, FrameFieldScanner.scan(content));
+        TextWebSocketFrame forwarded = to.readOutbound();
+        try {
+            return forwarded.text();
+        } finally {
+            forwarded.release();
+            content.release();
+        }
+    }
+
+    private static EmbeddedChannel newChannel(ClientType type) {
+        EmbeddedChannel channel = new EmbeddedChannel(DefaultChannelId.newInstance());
+        channel.attr(ClientManager.TYPE).set(type.getValue());
+        return channel;
+    }
+
+    private static ByteBuf buffer(String frame) {
+        return Unpooled.copiedBuffer(frame, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,160 @@
+package com.xudri.cloudrenderserver.core.client;
+
+import io.netty.channel.Channel;
+import io.netty.channel.DefaultChannelId;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @ClassName PlayerIdBitmapTest
+ * @Description 位图ID分配：最小空闲ID优先、容量耗尽、按持有者释放与转移、并发分配不重复
+ * @Author MaxYun
+ * @Since 2025/10/3 11:00
+ * @Version 1.0
+ */
+class PlayerIdBitmapTest {
+
+    @Test
+    void allocatesLowestFreeIdFromBase() {
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(100, 10);
+        Channel first = newChannel();
+        Channel second = newChannel();
+
+        assertThat(bitmap.acquire(first)).isEqualTo(100);
+        assertThat(bitmap.acquire(second)).isEqualTo(101);
+        assertThat(bitmap.ownerOf(101)).isSameAs(second);
+        assertThat(bitmap.getAllocated()).isEqualTo(2);
+
+        assertThat(bitmap.release(100, first.id())).isTrue();
+        assertThat(bitmap.isAllocated(100)).isFalse();
+        assertThat(bitmap.acquire(newChannel())).isEqualTo(100);
+    }
+
+    @Test
+    void returnsMinusOneWhenExhausted() {
+        // 容量不是64的整数倍，末字多余的位不能被分配
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(1, 70);
+        Channel owner = newChannel();
+        for (int i = 0; i < 70; i++) {
+            assertThat(bitmap.acquire(owner)).isEqualTo(1 + i);
+        }
+
+        assertThat(bitmap.acquire(owner)).isEqualTo(-1);
+        assertThat(bitmap.getAllocated()).isEqualTo(70);
+
+        assertThat(bitmap.release(5, owner.id())).isTrue();
+        assertThat(bitmap.acquire(owner)).isEqualTo(5);
+    }
+
+    @Test
+    void reusesIdReleasedBeforeAFullWord() {
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(0, 128);
+        Channel owner = newChannel();
+        for (int i = 0; i < 65; i++) {
+            bitmap.acquire(owner);
+        }
+
+        assertThat(bitmap.release(3, owner.id())).isTrue();
+        assertThat(bitmap.acquire(owner)).isEqualTo(3);
+        assertThat(bitmap.acquire(owner)).isEqualTo(65);
+    }
+
+    @Test
+    void rejectsDoubleReleaseAndReleaseByOtherChannel() {
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(1, 4);
+        Channel owner = newChannel();
+        Channel other = newChannel();
+        int id = bitmap.acquire(owner);
+
+        assertThat(bitmap.release(id, other.id())).isFalse();
+        assertThat(bitmap.isAllocated(id)).isTrue();
+        assertThat(bitmap.release(id, owner.id())).isTrue();
+        assertThat(bitmap.release(id, owner.id())).isFalse();
+        assertThat(bitmap.getRejectedReleases()).isEqualTo(2);
+        assertThat(bitmap.getAllocated()).isZero();
+    }
+
+    @Test
+    void transfersOwnershipToReconnectedChannel() {
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(1, 4);
+        Channel previous = newChannel();
+        Channel reconnected = newChannel();
+        int id = bitmap.acquire(previous);
+
+        assertThat(bitmap.transfer(id, reconnected.id(), previous)).isFalse();
+        assertThat(bitmap.transfer(id, previous.id(), reconnected)).isTrue();
+        assertThat(bitmap.ownerOf(id)).isSameAs(reconnected);
+
+        // 旧通道关闭时不能再释放已转移的ID
+        assertThat(bitmap.release(id, previous.id())).isFalse();
+        assertThat(bitmap.release(id, reconnected.id())).isTrue();
+        assertThat(bitmap.transfer(id, reconnected.id(), previous)).isFalse();
+    }
+
+    @Test
+    void rejectsIdsOutOfRange() {
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(1, 4);
+
+        assertThatThrownBy(() -> bitmap.isAllocated(0)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> bitmap.release(5, newChannel().id())).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new PlayerIdBitmap(1, 0)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentAcquireAndReleaseNeverHandsOutAnIdTwice() throws Exception {
+        int threads = 8;
+        int capacity = 200;
+        PlayerIdBitmap bitmap = new PlayerIdBitmap(1, capacity);
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Callable<Set<Integer>>> tasks = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                tasks.add(() -> {
+                    Channel owner = newChannel();
+                    // 反复分配释放制造CAS竞争，最后保留分配到的ID
+                    for (int i = 0; i < 2000; i++) {
+                        int id = bitmap.acquire(owner);
+                        if (id > 0 && !bitmap.release(id, owner.id())) {
+                            throw new AssertionError("ID " + id + " released by another thread");
+                        }
+                    }
+                    Set<Integer> kept = new HashSet<>();
+                    int id;
+                    while ((id = bitmap.acquire(owner)) > 0) {
+                        kept.add(id);
+                    }
+                    return kept;
+                });
+            }
+
+            Set<Integer> all = new HashSet<>();
+            int total = 0;
+            for (Future<Set<Integer>> future : executor.invokeAll(tasks)) {
+                Set<Integer> kept = future.get();
+                total += kept.size();
+                all.addAll(kept);
+            }
+            assertThat(total).isEqualTo(capacity);
+            assertThat(all).hasSize(capacity);
+            assertThat(bitmap.getAllocated()).isEqualTo(capacity);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static Channel newChannel() {
+        return new EmbeddedChannel(DefaultChannelId.newInstance());
+    }
+}
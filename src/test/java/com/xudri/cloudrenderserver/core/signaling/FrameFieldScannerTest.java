@@ -0,0 +1,133 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * @ClassName FrameFieldScannerTest
+ * @Description 信令帧字段扫描：合法帧取出type与playerId，不合法或有歧义的帧返回null交给完整解析
+ * @Author MaxYun
+ * @Since 2025/10/3 10:00
+ * @Version 1.0
+ */
+class FrameFieldScannerTest {
+
+    @Test
+    void scansTopLevelTypeAndPlayerId() {
+        FrameFieldScanner.Fields fields = scan("{\"type\":\"offer\",\"playerId\":\"1024\",\"sdp\":\"v=0\\r\\n\"}");
+
+        assertThat(fields).isNotNull();
+        assertThat(fields.getType()).isEqualTo("offer");
+        assertThat(fields.getPlayerId()).isEqualTo("1024");
+        assertThat(fields.hasPlayerId()).isTrue();
+        assertThat(fields.getObjectStart()).isZero();
+    }
+
+    @Test
+    void ignoresFieldsOfNestedObjects() {
+        FrameFieldScanner.Fields fields = scan(
+                " {\"candidate\":{\"type\":\"host\",\"playerId\":\"1\"},\"type\":\"iceCandidate\",\"playerId\":7}\n");
+
+        assertThat(fields).isNotNull();
+        assertThat(fields.getType()).isEqualTo("iceCandidate");
+        assertThat(fields.getPlayerId()).isEqualTo("7");
+        assertThat(fields.getObjectStart()).isEqualTo(1);
+    }
+
+    @Test
+    void acceptsEveryJsonValueKind() {
+        FrameFieldScanner.Fields fields = scan("{\"type\":\"answer\",\"a\":[1,-2.5e3,0.1,true,false,null,{}],"
+                + "\"b\":{\"c\":[[]],\"d\":\"\\u00e9\\\"\"},\"e\":\"中文\"}");
+
+        assertThat(fields).isNotNull();
+        assertThat(fields.getType()).isEqualTo("answer");
+        assertThat(fields.hasPlayerId()).isFalse();
+    }
+
+    @Test
+    void reportsEscapedPlayerIdAsPresentButUnread() {
+        FrameFieldScanner.Fields fields = scan("{\"type\":\"offer\",\"playerId\":\"10\\u0032\"}");
+
+        assertThat(fields).isNotNull();
+        assertThat(fields.hasPlayerId()).isTrue();
+        assertThat(fields.getPlayerId()).isNull();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            // 对象之后的多余内容
+            "{\"type\":\"offer\",\"playerId\":\"1\"}x",
+            "{\"type\":\"offer\"} {}",
+            "{}]",
+            // 非法字面量与数字
+            "{\"type\":\"offer\",\"flag\":tru}",
+            "{\"type\":\"offer\",\"flag\":nul}",
+            "{\"type\":\"offer\",\"flag\":truex}",
+            "{\"type\":\"offer\",\"n\":01}",
+            "{\"type\":\"offer\",\"n\":1.}",
+            "{\"type\":\"offer\",\"n\":-}",
+            "{\"type\":\"offer\",\"n\":1e}",
+            "{\"type\":\"offer\",\"a\":[1,]}",
+            "{\"type\":\"offer\",\"o\":{\"k\" 1}}",
+            "{\"type\":\"offer\",\"o\":{\"k\":undefined}}",
+            // 非法转义与未转义的控制字符
+            "{\"type\":\"offer\",\"s\":\"\\q\"}",
+            "{\"type\":\"offer\",\"s\":\"\\u12\"}",
+            "{\"type\":\"offer\",\"s\":\"a\nb\"}",
+            // playerId为null或非字符串/数字
+            "{\"type\":\"offer\",\"playerId\":null}",
+            "{\"type\":\"offer\",\"playerId\":true}",
+            "{\"type\":\"offer\",\"playerId\":{\"id\":1}}",
+            "{\"type\":null,\"playerId\":\"1\"}",
+            // 重复的type或playerId
+            "{\"type\":\"offer\",\"playerId\":\"1\",\"playerId\":\"2\"}",
+            "{\"type\":\"offer\",\"type\":\"answer\"}",
+            // 结构不完整
+            "{\"type\":\"offer\"",
+            "[{\"type\":\"offer\"}]",
+            ""
+    })
+    void rejectsInvalidOrAmbiguousFrames(String frame) {
+        assertThat(scan(frame)).isNull();
+    }
+
+    @Test
+    void rejectsTooDeeplyNestedValues() {
+        String nested = "[".repeat(100) + "]".repeat(100);
+
+        assertThat(scan("{\"type\":\"offer\",\"a\":" + nested + "}")).isNull();
+    }
+
+    @Test
+    void leavesBufferIndexesUntouched() {
+        ByteBuf buf = buffer("{\"type\":\"offer\",\"playerId\":\"1\"}");
+        int readerIndex = buf.readerIndex();
+        int writerIndex = buf.writerIndex();
+
+        FrameFieldScanner.scan(buf);
+
+        assertThat(buf.readerIndex()).isEqualTo(readerIndex);
+        assertThat(buf.writerIndex()).isEqualTo(writerIndex);
+        buf.release();
+    }
+
+    private static FrameFieldScanner.Fields scan(String frame) {
+        ByteBuf buf = buffer(frame);
+        try {
+            return FrameFieldScanner.scan(buf);
+        } finally {
+            buf.release();
+        }
+    }
+
+    private static ByteBuf buffer(String frame) {
+        return Unpooled.copiedBuffer(frame, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,159 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @ClassName SignallingRateLimiterTest
+ * @Description 可信代理网段匹配与X-Forwarded-For来源IP解析：只采信可信代理转发的请求头，
+ * 取最右侧的非代理地址，无法解析的内容退回对端地址
+ * @Author MaxYun
+ * @Since 2025/10/3 12:00
+ * @Version 1.0
+ */
+class SignallingRateLimiterTest {
+
+    @Test
+    void singleAddressMatchesOnlyItself() throws Exception {
+        SignallingRateLimiter.AddressRange range = SignallingRateLimiter.AddressRange.parse("192.168.1.10");
+
+        assertThat(range.contains(ip("192.168.1.10"))).isTrue();
+        assertThat(range.contains(ip("192.168.1.11"))).isFalse();
+    }
+
+    @Test
+    void cidrMatchesOnByteBoundary() throws Exception {
+        SignallingRateLimiter.AddressRange range = SignallingRateLimiter.AddressRange.parse("10.0.0.0/8");
+
+        assertThat(range.contains(ip("10.0.0.1"))).isTrue();
+        assertThat(range.contains(ip("10.255.255.255"))).isTrue();
+        assertThat(range.contains(ip("11.0.0.1"))).isFalse();
+    }
+
+    @Test
+    void cidrMatchesInsideAByte() throws Exception {
+        SignallingRateLimiter.AddressRange range = SignallingRateLimiter.AddressRange.parse("172.16.0.0/12");
+
+        assertThat(range.contains(ip("172.16.0.1"))).isTrue();
+        assertThat(range.contains(ip("172.31.255.254"))).isTrue();
+        assertThat(range.contains(ip("172.32.0.1"))).isFalse();
+        assertThat(range.contains(ip("172.15.255.255"))).isFalse();
+    }
+
+    @Test
+    void zeroPrefixMatchesWholeFamilyOnly() throws Exception {
+        SignallingRateLimiter.AddressRange range = SignallingRateLimiter.AddressRange.parse("0.0.0.0/0");
+
+        assertThat(range.contains(ip("8.8.8.8"))).isTrue();
+        assertThat(range.contains(ip("2001:db8::1"))).isFalse();
+    }
+
+    @Test
+    void ipv6RangeDoesNotMatchIpv4() throws Exception {
+        SignallingRateLimiter.AddressRange range = SignallingRateLimiter.AddressRange.parse("2001:db8::/32");
+
+        assertThat(range.contains(ip("2001:db8:1::5"))).isTrue();
+        assertThat(range.contains(ip("2001:db9::5"))).isFalse();
+        assertThat(range.contains(ip("10.0.0.1"))).isFalse();
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"proxy.example.com", "10.0.0.0/33", "10.0.0.0/-1", "10.0.0.0/x", "2001:db8::/129"})
+    void rejectsInvalidRanges(String value) {
+        assertThatThrownBy(() -> SignallingRateLimiter.AddressRange.parse(value))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void ignoresForwardedForFromUntrustedPeer() throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8");
+
+        InetAddress client = limiter.resolveClientAddress(peer("203.0.113.7"), forwardedFor("198.51.100.1"));
+
+        assertThat(client).isEqualTo(ip("203.0.113.7"));
+    }
+
+    @Test
+    void takesRightMostHopThatIsNotATrustedProxy() throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8");
+
+        // 最左侧的地址由客户端自行填写，不能采信
+        InetAddress client = limiter.resolveClientAddress(peer("10.0.0.5"),
+                forwardedFor("1.1.1.1, 203.0.113.7, 10.0.0.9"));
+
+        assertThat(client).isEqualTo(ip("203.0.113.7"));
+    }
+
+    @Test
+    void readsRepeatedHeadersFromTheLastOne() throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8");
+        HttpHeaders headers = new DefaultHttpHeaders()
+                .add("X-Forwarded-For", "198.51.100.1")
+                .add("X-Forwarded-For", "10.0.0.8");
+
+        InetAddress client = limiter.resolveClientAddress(peer("10.0.0.5"), headers);
+
+        assertThat(client).isEqualTo(ip("198.51.100.1"));
+    }
+
+    @Test
+    void fallsBackToPeerWhenEveryHopIsTrustedOrHeaderMissing() throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8");
+
+        assertThat(limiter.resolveClientAddress(peer("10.0.0.5"), forwardedFor("10.1.1.1, 10.2.2.2")))
+                .isEqualTo(ip("10.0.0.5"));
+        assertThat(limiter.resolveClientAddress(peer("10.0.0.5"), new DefaultHttpHeaders()))
+                .isEqualTo(ip("10.0.0.5"));
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"unknown", "evil.example.com", "203.0.113.7, _hidden", ""})
+    void fallsBackToPeerOnUnparsableHop(String header) throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8");
+
+        assertThat(limiter.resolveClientAddress(peer("10.0.0.5"), forwardedFor(header))).isEqualTo(ip("10.0.0.5"));
+    }
+
+    @Test
+    void resolvesIpv6ClientBehindProxy() throws Exception {
+        SignallingRateLimiter limiter = limiter("10.0.0.0/8", "fd00::/8");
+
+        InetAddress client = limiter.resolveClientAddress(peer("fd00::1"), forwardedFor("2001:db8::42, 10.0.0.3"));
+
+        assertThat(client).isEqualTo(ip("2001:db8::42"));
+    }
+
+    private static SignallingRateLimiter limiter(String... trustedProxies) {
+        SignallingRateLimiter limiter = new SignallingRateLimiter();
+        ReflectionTestUtils.setField(limiter, "enabled", true);
+        ReflectionTestUtils.setField(limiter, "messageRates", Map.of());
+        ReflectionTestUtils.setField(limiter, "trustedProxies", List.of(trustedProxies));
+        limiter.init();
+        return limiter;
+    }
+
+    private static HttpHeaders forwardedFor(String value) {
+        return new DefaultHttpHeaders().add("X-Forwarded-For", value);
+    }
+
+    private static InetSocketAddress peer(String address) throws UnknownHostException {
+        return new InetSocketAddress(ip(address), 40000);
+    }
+
+    private static InetAddress ip(String address) throws UnknownHostException {
+        return InetAddress.getByName(address);
+    }
+}
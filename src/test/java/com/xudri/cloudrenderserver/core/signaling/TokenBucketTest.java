@@ -0,0 +1,82 @@
+package com.xudri.cloudrenderserver.core.signaling;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * @ClassName TokenBucketTest
+ * @Description 令牌桶：初始满桶允许突发、按时间补充、补充不超过容量、令牌不足时不扣减
+ * @Author MaxYun
+ * @Since 2025/10/3 11:30
+ * @Version 1.0
+ */
+class TokenBucketTest {
+
+    private static final long START = 1_000_000_000L;
+
+    @Test
+    void startsFullAndAllowsBurstUpToCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+
+        assertThat(bucket.isFull(START)).isTrue();
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(1, START)).isTrue();
+        }
+        assertThat(bucket.tryAcquire(1, START)).isFalse();
+        assertThat(bucket.isFull(START)).isFalse();
+    }
+
+    @Test
+    void refillsAtConfiguredRate() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        assertThat(bucket.tryAcquire(5, START)).isTrue();
+
+        // 每秒10个，100毫秒补充1个
+        long later = START + TimeUnit.MILLISECONDS.toNanos(100);
+        assertThat(bucket.tryAcquire(1, later)).isTrue();
+        assertThat(bucket.tryAcquire(1, later)).isFalse();
+
+        long evenLater = later + TimeUnit.MILLISECONDS.toNanos(250);
+        assertThat(bucket.tryAcquire(2, evenLater)).isTrue();
+        assertThat(bucket.tryAcquire(0.5, evenLater)).isTrue();
+        assertThat(bucket.tryAcquire(0.5, evenLater)).isFalse();
+    }
+
+    @Test
+    void refillIsCappedAtCapacity() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        assertThat(bucket.tryAcquire(5, START)).isTrue();
+
+        long muchLater = START + TimeUnit.MINUTES.toNanos(10);
+        assertThat(bucket.isFull(muchLater)).isTrue();
+        assertThat(bucket.tryAcquire(5, muchLater)).isTrue();
+        assertThat(bucket.tryAcquire(1, muchLater)).isFalse();
+    }
+
+    @Test
+    void failedAcquireDoesNotConsumeTokens() {
+        TokenBucket bucket = new TokenBucket(1, 3, START);
+
+        assertThat(bucket.tryAcquire(4, START)).isFalse();
+        assertThat(bucket.tryAcquire(3, START)).isTrue();
+    }
+
+    @Test
+    void ignoresClockGoingBackwards() {
+        TokenBucket bucket = new TokenBucket(10, 5, START);
+        assertThat(bucket.tryAcquire(5, START)).isTrue();
+
+        assertThat(bucket.tryAcquire(1, START - TimeUnit.SECONDS.toNanos(1))).isFalse();
+        assertThat(bucket.tryAcquire(1, START + TimeUnit.MILLISECONDS.toNanos(100))).isTrue();
+    }
+
+    @Test
+    void rejectsNonPositiveRateOrCapacity() {
+        assertThatThrownBy(() -> new TokenBucket(0, 5)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new TokenBucket(5, -1)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,43 @@
+package com.xudri.cloudrenderserver.loadtest;
+
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * @ClassName LoadTestStats
+ * @Description 压测统计：握手、会话建立与转发时延直方图及各类计数，按阶段整体替换，记录时不加锁
+ * @Author MaxYun
+ * @Since 2025/9/30 10:10
+ * @Version 1.0
+ */
+final class LoadTestStats {
+
+    final ValueHistogram handshakeNanos = new ValueHistogram();
+    final ValueHistogram setupNanos = new ValueHistogram();
+    final ValueHistogram forwardNanos = new ValueHistogram();
+
+    final LongAdder handshakes = new LongAdder();
+    final LongAdder rejected = new LongAdder();
+    final LongAdder failures = new LongAdder();
+    final LongAdder queued = new LongAdder();
+    final LongAdder sessionsCompleted = new LongAdder();
+    final LongAdder messagesSent = new LongAdder();
+    final LongAdder messagesReceived = new LongAdder();
+    final LongAdder bytesSent = new LongAdder();
+
+    /**
+     * 记录一条收到的转发消息
+     *
+     * @param sentNanos 发送方写入消息的System.nanoTime()
+     */
+    void forwarded(long sentNanos) {
+        messagesReceived.increment();
+        forwardNanos.record(System.nanoTime() - sentNanos);
+    }
+
+    void sent(int bytes) {
+        messagesSent.increment();
+        bytesSent.add(bytes);
+    }
+}
@@ -0,0 +1,195 @@
+package com.xudri.cloudrenderserver.loadtest;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * @ClassName SdpFixtures
+ * @Description 模拟像素流实例与浏览器的SDP与ICE候选：按虚幻引擎像素流的典型协商内容生成，
+ * OFFER约6KB（多个H264档次、VP8/VP9/AV1、Opus与数据通道），ANSWER约2.5KB，ufrag、pwd与指纹每个会话随机
+ * @Author MaxYun
+ * @Since 2025/9/30 10:20
+ * @Version 1.0
+ */
+final class SdpFixtures {
+
+    private static final String[] H264_PROFILES = {"42001f", "42e01f", "4d001f", "64001f", "640c1f"};
+
+    private SdpFixtures() {
+    }
+
+    /**
+     * 像素流实例发出的OFFER
+     */
+    static String offer() {
+        StringBuilder sdp = new StringBuilder(6400);
+        header(sdp, "0 1 2");
+        int payloadType = 96;
+        StringBuilder video = new StringBuilder(2048);
+        StringBuilder payloads = new StringBuilder();
+        for (String profile : H264_PROFILES) {
+            for (int mode = 0; mode <= 1; mode++) {
+                payloads.append(' ').append(payloadType).append(' ').append(payloadType + 1);
+                video.append("a=rtpmap:").append(payloadType).append(" H264/90000\r\n");
+                rtcpFeedback(video, payloadType);
+                video.append("a=fmtp:").append(payloadType)
+                        .append(" level-asymmetry-allowed=1;packetization-mode=").append(mode)
+                        .append(";profile-level-id=").append(profile).append("\r\n");
+                rtx(video, payloadType + 1, payloadType);
+                payloadType += 2;
+            }
+        }
+        for (String codec : new String[]{"VP8", "VP9", "AV1"}) {
+            payloads.append(' ').append(payloadType).append(' ').append(payloadType + 1);
+            video.append("a=rtpmap:").append(payloadType).append(' ').append(codec).append("/90000\r\n");
+            rtcpFeedback(video, payloadType);
+            rtx(video, payloadType + 1, payloadType);
+            payloadType += 2;
+        }
+        sdp.append("m=video 9 UDP/TLS/RTP/SAVPF").append(payloads).append("\r\n");
+        media(sdp, "0", "sendonly");
+        sdp.append("a=extmap:1 urn:ietf:params:rtp-hdrext:toffset\r\n")
+                .append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:3 urn:3gpp:video-orientation\r\n")
+                .append("a=extmap:4 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=extmap:5 http://www.webrtc.org/experiments/rtp-hdrext/playout-delay\r\n")
+                .append("a=extmap:6 http://www.webrtc.org/experiments/rtp-hdrext/video-content-type\r\n")
+                .append("a=extmap:7 http://www.webrtc.org/experiments/rtp-hdrext/video-timing\r\n")
+                .append("a=extmap:8 http://www.webrtc.org/experiments/rtp-hdrext/color-space\r\n")
+                .append("a=msid:pixelstreaming_video_stream_id pixelstreaming_video_track_label\r\n")
+                .append(video);
+        long videoSsrc = ssrc();
+        long rtxSsrc = ssrc();
+        sdp.append("a=ssrc-group:FID ").append(videoSsrc).append(' ').append(rtxSsrc).append("\r\n")
+                .append("a=ssrc:").append(videoSsrc).append(" cname:pixelstreaming\r\n")
+                .append("a=ssrc:").append(rtxSsrc).append(" cname:pixelstreaming\r\n");
+        audio(sdp, "1", "sendrecv");
+        dataChannel(sdp, "2");
+        return sdp.toString();
+    }
+
+    /**
+     * 浏览器回复的ANSWER，只保留一个H264档次
+     */
+    static String answer() {
+        StringBuilder sdp = new StringBuilder(2800);
+        header(sdp, "0 1 2");
+        sdp.append("m=video 9 UDP/TLS/RTP/SAVPF 96 97\r\n");
+        media(sdp, "0", "recvonly");
+        sdp.append("a=extmap:2 http://www.webrtc.org/experiments/rtp-hdrext/abs-send-time\r\n")
+                .append("a=extmap:4 http://www.ietf.org/id/draft-holmer-rmcat-transport-wide-cc-extensions-01\r\n")
+                .append("a=rtpmap:96 H264/90000\r\n");
+        rtcpFeedback(sdp, 96);
+        sdp.append("a=fmtp:96 level-asymmetry-allowed=1;packetization-mode=1;profile-level-id=42e01f\r\n");
+        rtx(sdp, 97, 96);
+        audio(sdp, "1", "sendrecv");
+        dataChannel(sdp, "2");
+        return sdp.toString();
+    }
+
+    /**
+     * trickle ICE候选
+     *
+     * @param index 候选序号，决定类型与端口
+     */
+    static String candidate(int index) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        String type = index % 3 == 0 ? "host" : index % 3 == 1 ? "srflx" : "relay";
+        int port = 50000 + random.nextInt(10000);
+        StringBuilder candidate = new StringBuilder(160);
+        candidate.append("candidate:").append(random.nextLong(1L << 32)).append(" 1 udp ")
+                .append(2122260223L - index * 100L).append(' ')
+                .append(index % 3 == 0 ? "192.168.1." + (2 + random.nextInt(250)) : "203.0.113." + random.nextInt(255))
+                .append(' ').append(port).append(" typ ").append(type);
+        if (!"host".equals(type)) {
+            candidate.append(" raddr 192.168.1.10 rport ").append(port);
+        }
+        candidate.append(" generation 0 ufrag ").append(token(4)).append(" network-id 1 network-cost 10");
+        return candidate.toString();
+    }
+
+    private static void header(StringBuilder sdp, String bundle) {
+        sdp.append("v=0\r\n")
+                .append("o=- ").append(ThreadLocalRandom.current().nextLong(Long.MAX_VALUE)).append(" 2 IN IP4 127.0.0.1\r\n")
+                .append("s=-\r\nt=0 0\r\n")
+                .append("a=group:BUNDLE ").append(bundle).append("\r\n")
+                .append("a=extmap-allow-mixed\r\n")
+                .append("a=msid-semantic: WMS pixelstreaming_video_stream_id\r\n");
+    }
+
+    private static void media(StringBuilder sdp, String mid, String direction) {
+        sdp.append("c=IN IP4 0.0.0.0\r\n")
+                .append("a=rtcp:9 IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:").append(token(4)).append("\r\n")
+                .append("a=ice-pwd:").append(token(24)).append("\r\n")
+                .append("a=ice-options:trickle\r\n")
+                .append("a=fingerprint:sha-256 ").append(fingerprint()).append("\r\n")
+                .append("a=setup:actpass\r\n")
+                .append("a=mid:").append(mid).append("\r\n")
+                .append("a=").append(direction).append("\r\n")
+                .append("a=rtcp-mux\r\na=rtcp-rsize\r\n");
+    }
+
+    private static void audio(StringBuilder sdp, String mid, String direction) {
+        sdp.append("m=audio 9 UDP/TLS/RTP/SAVPF 111 63 9 0 8 13 110 126\r\n");
+        media(sdp, mid, direction);
+        sdp.append("a=extmap:14 urn:ietf:params:rtp-hdrext:ssrc-audio-level\r\n")
+                .append("a=rtpmap:111 opus/48000/2\r\n")
+                .append("a=rtcp-fb:111 transport-cc\r\n")
+                .append("a=fmtp:111 maxaveragebitrate=510000;maxplaybackrate=48000;minptime=3;sprop-stereo=1;"
+                        + "stereo=1;usedtx=0;useinbandfec=1\r\n")
+                .append("a=rtpmap:63 red/48000/2\r\na=fmtp:63 111/111\r\n")
+                .append("a=rtpmap:9 G722/8000\r\na=rtpmap:0 PCMU/8000\r\na=rtpmap:8 PCMA/8000\r\n")
+                .append("a=rtpmap:13 CN/8000\r\na=rtpmap:110 telephone-event/48000\r\n")
+                .append("a=rtpmap:126 telephone-event/8000\r\n");
+    }
+
+    private static void dataChannel(StringBuilder sdp, String mid) {
+        sdp.append("m=application 9 UDP/DTLS/SCTP webrtc-datachannel\r\n")
+                .append("c=IN IP4 0.0.0.0\r\n")
+                .append("a=ice-ufrag:").append(token(4)).append("\r\n")
+                .append("a=ice-pwd:").append(token(24)).append("\r\n")
+                .append("a=ice-options:trickle\r\n")
+                .append("a=fingerprint:sha-256 ").append(fingerprint()).append("\r\n")
+                .append("a=setup:actpass\r\n")
+                .append("a=mid:").append(mid).append("\r\n")
+                .append("a=sctp-port:5000\r\n")
+                .append("a=max-message-size:262144\r\n");
+    }
+
+    private static void rtcpFeedback(StringBuilder sdp, int payloadType) {
+        for (String feedback : new String[]{"goog-remb", "transport-cc", "ccm fir", "nack", "nack pli"}) {
+            sdp.append("a=rtcp-fb:").append(payloadType).append(' ').append(feedback).append("\r\n");
+        }
+    }
+
+    private static void rtx(StringBuilder sdp, int payloadType, int apt) {
+        sdp.append("a=rtpmap:").append(payloadType).append(" rtx/90000\r\n")
+                .append("a=fmtp:").append(payloadType).append(" apt=").append(apt).append("\r\n");
+    }
+
+    private static long ssrc() {
+        return ThreadLocalRandom.current().nextLong(1L << 32);
+    }
+
+    private static String fingerprint() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder fingerprint = new StringBuilder(95);
+        for (int i = 0; i < 32; i++) {
+            if (i > 0) {
+                fingerprint.append(':');
+            }
+            fingerprint.append(String.format("%02X", random.nextInt(256)));
+        }
+        return fingerprint.toString();
+    }
+
+    private static String token(int length) {
+        String alphabet = "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789+/";
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        StringBuilder token = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            token.append(alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+        return token.toString();
+    }
+}
@@ -0,0 +1,229 @@
+package com.xudri.cloudrenderserver.loadtest;
+
+import com.xudri.cloudrenderserver.CloudRenderServerApplication;
+import com.xudri.cloudrenderserver.application.service.InstanceService;
+import com.xudri.cloudrenderserver.common.util.ValueHistogram;
+import com.xudri.cloudrenderserver.domain.entity.Instance;
+import com.xudri.cloudrenderserver.infrastructure.network.SignallingServer;
+import org.springframework.boot.SpringApplication;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * @ClassName SignallingLoadTest
+ * @Description 信令服务器回环压测入口：默认在本进程内启动完整应用（临时数据库），用模拟实例与玩家压测信令端口，
+ * 报告握手速率、会话建立与转发时延分位数、信令线程的CPU占用与内存分配速率。
+ * 指定step时按阶梯增加在线会话数，找出CPU预算与时延阈值内可持续的最大会话数。
+ * 参数以key=value传入，例如：streamers=20 players=200 step=100 cpu-budget=1.0；
+ * 玩家默认只携带projectid，经过席位分配与排队（seats为内嵌服务器每个实例的席位数），addressing=insid时按实例ID直连；
+ * embedded=false时连接已运行的服务器（host=127.0.0.1 port=9999），此时不统计服务端CPU与分配
+ * @Author MaxYun
+ * @Since 2025/9/30 11:20
+ * @Version 1.0
+ */
+public class SignallingLoadTest {
+
+    // 服务端线程名前缀：工作、实例、管理端、accept、鉴权与负载探测线程
+    private static final String SERVER_THREAD_PREFIX = "signalling-";
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = parse(args);
+        boolean embedded = Boolean.parseBoolean(options.getOrDefault("embedded", "true"));
+        int port = Integer.parseInt(options.getOrDefault("port", embedded ? "19999" : "9999"));
+        int streamers = Integer.parseInt(options.getOrDefault("streamers", "20"));
+        int players = Integer.parseInt(options.getOrDefault("players", "200"));
+        int step = Integer.parseInt(options.getOrDefault("step", "0"));
+        int maxPlayers = Integer.parseInt(options.getOrDefault("max-players", "5000"));
+        int ice = Integer.parseInt(options.getOrDefault("ice", "8"));
+        long lifetimeMillis = Long.parseLong(options.getOrDefault("lifetime-ms", "10000"));
+        long stageMillis = Long.parseLong(options.getOrDefault("duration-s", "20")) * 1000;
+        long warmupMillis = Long.parseLong(options.getOrDefault("warmup-s", "5")) * 1000;
+        double cpuBudget = Double.parseDouble(options.getOrDefault("cpu-budget", "1.0"));
+        double maxP99Millis = Double.parseDouble(options.getOrDefault("max-p99-ms", "50"));
+        int clientThreads = Integer.parseInt(options.getOrDefault("client-threads", "2"));
+        int seats = Integer.parseInt(options.getOrDefault("seats", "10"));
+        boolean byInstance = "insid".equals(options.getOrDefault("addressing", "project"));
+        InetAddress host = InetAddress.getByName(options.getOrDefault("host", "127.0.0.1"));
+
+        ConfigurableApplicationContext context = embedded ? startServer(port, streamers, seats) : null;
+        ServerThreadMeter meter = embedded ? new ServerThreadMeter() : null;
+        try (SignallingSimulator simulator = new SignallingSimulator(new InetSocketAddress(host, port),
+                clientThreads, ice, lifetimeMillis, byInstance)) {
+            System.out.printf("目标 %s:%d，实例 %d，每方ICE %d，OFFER %d字节，ANSWER %d字节，会话保持约 %d 毫秒%n",
+                    host.getHostAddress(), port, streamers, ice, simulator.getOfferSize(), simulator.getAnswerSize(),
+                    lifetimeMillis);
+            simulator.startStreamers(streamers);
+            System.out.printf("%8s %9s %8s %8s %9s %9s %9s %9s %9s %7s %9s %7s %7s %6s%n", "players", "sessions",
+                    "hs/s", "setup/s", "hs-p99", "setup-p50", "setup-p99", "fwd-p50", "fwd-p99", "cpu", "alloc/s",
+                    "queued", "reject", "fail");
+
+            int sustainable = 0;
+            int target = step > 0 ? step : players;
+            while (true) {
+                simulator.setPlayers(target);
+                Thread.sleep(warmupMillis);
+                simulator.resetStats();
+                if (meter != null) {
+                    meter.reset();
+                }
+                long start = System.nanoTime();
+                Thread.sleep(stageMillis);
+                double seconds = (System.nanoTime() - start) / 1e9;
+                LoadTestStats stats = simulator.resetStats();
+                double cpuCores = meter != null ? meter.cpuNanos() / 1e9 / seconds : Double.NaN;
+                double allocPerSecond = meter != null ? meter.allocatedBytes() / seconds : Double.NaN;
+
+                long failures = stats.failures.sum() + stats.rejected.sum();
+                double fwdP99Millis = millis(stats.forwardNanos, 99);
+                System.out.printf("%8d %9d %8.1f %8.1f %9.2f %9.2f %9.2f %9.2f %9.2f %7s %9s %7d %7d %6d%n",
+                        target, simulator.getEstablishedSessions(), stats.handshakes.sum() / seconds,
+                        stats.sessionsCompleted.sum() / seconds, millis(stats.handshakeNanos, 99),
+                        millis(stats.setupNanos, 50), millis(stats.setupNanos, 99),
+                        millis(stats.forwardNanos, 50), fwdP99Millis,
+                        Double.isNaN(cpuCores) ? "n/a" : String.format("%.2f", cpuCores),
+                        Double.isNaN(allocPerSecond) ? "n/a" : String.format("%.1fMB", allocPerSecond / 1048576),
+                        stats.queued.sum(), stats.rejected.sum(), stats.failures.sum());
+
+                if (step <= 0) {
+                    break;
+                }
+                // 出现排队说明在线玩家已超过实例席位，不再算作可持续
+                boolean withinBudget = failures == 0 && stats.queued.sum() == 0 && fwdP99Millis <= maxP99Millis
+                        && (Double.isNaN(cpuCores) || cpuCores <= cpuBudget);
+                if (!withinBudget || target + step > maxPlayers) {
+                    if (withinBudget) {
+                        sustainable = target;
+                    }
+                    break;
+                }
+                sustainable = target;
+                target += step;
+            }
+            if (step > 0) {
+                System.out.printf("CPU预算 %.2f 核、转发p99不超过 %.0f 毫秒时可持续的最大在线玩家数：%d%n",
+                        cpuBudget, maxP99Millis, sustainable);
+            }
+        } finally {
+            if (context != null) {
+                context.close();
+            }
+        }
+    }
+
+    private static Map<String, String> parse(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int split = arg.indexOf('=');
+            if (split <= 0) {
+                throw new IllegalArgumentException("参数格式应为key=value：" + arg);
+            }
+            options.put(arg.substring(0, split), arg.substring(split + 1));
+        }
+        return options;
+    }
+
+    private static double millis(ValueHistogram histogram, double percentile) {
+        return histogram.getValueAtPercentile(percentile) / 1e6;
+    }
+
+    /**
+     * 在本进程内启动应用，使用临时数据库与随机Web端口，信令服务器监听指定端口，每个实例seats个席位；
+     * 模拟实例预先写入实例表，避免被实例巡检当作不存在的实例断开
+     */
+    private static ConfigurableApplicationContext startServer(int port, int streamers, int seats)
+            throws InterruptedException {
+        File database = new File(System.getProperty("java.io.tmpdir"), "cloudrender-loadtest.db");
+        ConfigurableApplicationContext context = SpringApplication.run(CloudRenderServerApplication.class,
+                "--server.port=0",
+                "--spring.datasource.url=jdbc:sqlite:" + database.getAbsolutePath(),
+                "--logging.level.root=WARN",
+                "--signalling.seats.default-max-players=" + seats);
+        InstanceService instanceService = context.getBean(InstanceService.class);
+        for (int i = 0; i < streamers; i++) {
+            Instance instance = new Instance();
+            instance.setId(SignallingSimulator.instanceId(i));
+            instance.setProjectid(SignallingSimulator.PROJECT_ID);
+            instance.setState(0);
+            instanceService.saveOrUpdate(instance);
+        }
+        SignallingServer server = context.getBean(SignallingServer.class);
+        // 数据库配置了自动启动时信令服务器已在默认端口上启动，先停止再按压测端口启动
+        for (int i = 0; i < 20 && !server.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+        if (server.isRunning()) {
+            server.stop();
+            Thread.sleep(500);
+        }
+        server.setServicePort(port);
+        server.run();
+        for (int i = 0; i < 100 && !server.isRunning(); i++) {
+            Thread.sleep(100);
+        }
+        if (!server.isRunning()) {
+            throw new IllegalStateException("信令服务器未能在端口 " + port + " 上启动");
+        }
+        return context;
+    }
+
+    /**
+     * 按线程名统计服务端线程的CPU时间与分配字节数，新建的线程从0开始计算
+     */
+    private static final class ServerThreadMeter {
+        private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        private final Map<Long, long[]> baseline = new HashMap<>();
+
+        ServerThreadMeter() {
+            if (threads instanceof com.sun.management.ThreadMXBean extended) {
+                extended.setThreadAllocatedMemoryEnabled(true);
+            }
+            threads.setThreadCpuTimeEnabled(true);
+        }
+
+        void reset() {
+            baseline.clear();
+            for (ThreadInfo info : serverThreads()) {
+                baseline.put(info.getThreadId(), sample(info.getThreadId()));
+            }
+        }
+
+        long cpuNanos() {
+            return delta(0);
+        }
+
+        long allocatedBytes() {
+            return delta(1);
+        }
+
+        private long delta(int index) {
+            long total = 0;
+            for (ThreadInfo info : serverThreads()) {
+                long[] now = sample(info.getThreadId());
+                long[] before = baseline.getOrDefault(info.getThreadId(), new long[2]);
+                total += Math.max(0, now[index] - before[index]);
+            }
+            return total;
+        }
+
+        private long[] sample(long threadId) {
+            long allocated = threads instanceof com.sun.management.ThreadMXBean extended
+                    ? extended.getThreadAllocatedBytes(threadId) : 0;
+            return new long[]{Math.max(0, threads.getThreadCpuTime(threadId)), Math.max(0, allocated)};
+        }
+
+        private ThreadInfo[] serverThreads() {
+            return Arrays.stream(threads.getThreadInfo(threads.getAllThreadIds()))
+                    .filter(info -> info != null && info.getThreadName().startsWith(SERVER_THREAD_PREFIX))
+                    .toArray(ThreadInfo[]::new);
+        }
+    }
+}
@@ -0,0 +1,436 @@
+package com.xudri.cloudrenderserver.loadtest;
+
+import com.alibaba.fastjson2.JSONObject;
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.http.HttpClientCodec;
+import io.netty.handler.codec.http.HttpObjectAggregator;
+import io.netty.handler.codec.http.websocketx.CloseWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.TextWebSocketFrame;
+import io.netty.handler.codec.http.websocketx.WebSocketClientHandshakeException;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolConfig;
+import io.netty.handler.codec.http.websocketx.WebSocketClientProtocolHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * @ClassName SignallingSimulator
+ * @Description 模拟像素流实例与浏览器玩家：实例连接后回复endpointId，收到playerConnected时发送OFFER与ICE候选；
+ * 玩家收到OFFER后回复ANSWER与ICE候选。双方收齐对端消息即为一次会话建立，玩家保持一段时间后断开并以新会话重连，
+ * 使信令负载与在线会话数成正比。每条转发消息携带发送时刻，接收方据此计算端到端转发时延。
+ * 玩家默认只携带projectid，经过服务端的席位分配与排队；也可以按insid直接指定实例
+ * @Author MaxYun
+ * @Since 2025/9/30 10:40
+ * @Version 1.0
+ */
+final class SignallingSimulator implements AutoCloseable {
+
+    static final String PROJECT_ID = "loadtest";
+    private static final int FIXTURES = 64;
+    private static final long SETUP_TIMEOUT_MILLIS = 10_000;
+    private static final long RETRY_MILLIS = 1000;
+
+    private final InetSocketAddress address;
+    private final int iceCandidates;
+    private final long lifetimeMillis;
+    private final boolean byInstance;
+    private final EventLoopGroup group;
+    private final Bootstrap bootstrap;
+
+    private final String[] offers = new String[FIXTURES];
+    private final String[] answers = new String[FIXTURES];
+    private final String[] candidates = new String[FIXTURES];
+
+    private final List<String> streamerIds = new ArrayList<>();
+    private final Map<Integer, Session> sessions = new ConcurrentHashMap<>();
+    private final AtomicInteger nextSessionId = new AtomicInteger();
+    private final AtomicInteger activeSlots = new AtomicInteger();
+
+    private volatile LoadTestStats stats = new LoadTestStats();
+    private volatile int targetPlayers;
+    private volatile boolean closed;
+
+    /**
+     * @param address        信令服务器地址，必须是回环地址
+     * @param clientThreads  模拟客户端的事件循环线程数
+     * @param iceCandidates  每一方发送的ICE候选数
+     * @param lifetimeMillis 会话建立后保持多久再断开重连，实际值在0.5到1.5倍之间随机
+     * @param byInstance     玩家是否按insid指定实例，否则只携带projectid由服务端分配
+     */
+    SignallingSimulator(InetSocketAddress address, int clientThreads, int iceCandidates, long lifetimeMillis,
+                        boolean byInstance) {
+        if (!address.getAddress().isLoopbackAddress()) {
+            throw new IllegalArgumentException("压测只允许连接回环地址：" + address);
+        }
+        this.address = address;
+        this.iceCandidates = iceCandidates;
+        this.lifetimeMillis = lifetimeMillis;
+        this.byInstance = byInstance;
+        this.group = new NioEventLoopGroup(clientThreads, new DefaultThreadFactory("loadtest-client", true));
+        this.bootstrap = new Bootstrap()
+                .group(group)
+                .channel(NioSocketChannel.class)
+                .option(ChannelOption.TCP_NODELAY, true)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, 5000);
+        // 预先生成SDP，避免客户端拼装字符串的开销计入压测
+        for (int i = 0; i < FIXTURES; i++) {
+            offers[i] = SdpFixtures.offer();
+            answers[i] = SdpFixtures.answer();
+            candidates[i] = SdpFixtures.candidate(i);
+        }
+    }
+
+    /**
+     * 开始新的统计阶段，返回上一阶段的统计
+     */
+    LoadTestStats resetStats() {
+        LoadTestStats previous = stats;
+        stats = new LoadTestStats();
+        return previous;
+    }
+
+    int getOfferSize() {
+        return offers[0].length();
+    }
+
+    int getAnswerSize() {
+        return answers[0].length();
+    }
+
+    /**
+     * 连接像素流实例，等待全部收到identify
+     */
+    void startStreamers(int count) throws InterruptedException {
+        CountDownLatch identified = new CountDownLatch(count);
+        for (int i = 0; i < count; i++) {
+            String insId = instanceId(streamerIds.size());
+            streamerIds.add(insId);
+            connect("type=streamer&insid=" + insId + "&projectid=" + PROJECT_ID + "&oneself=1",
+                    new StreamerHandler(insId, identified));
+        }
+        if (!identified.await(30, TimeUnit.SECONDS)) {
+            throw new IllegalStateException("像素流实例连接超时，剩余 " + identified.getCount());
+        }
+    }
+
+    /**
+     * 调整在线玩家数：增加时立即启动新的玩家，减少时多余的玩家在当前会话结束后不再重连
+     */
+    void setPlayers(int target) {
+        targetPlayers = target;
+        while (true) {
+            int slot = activeSlots.get();
+            if (slot >= target) {
+                return;
+            }
+            if (activeSlots.compareAndSet(slot, slot + 1)) {
+                startPlayer(slot);
+            }
+        }
+    }
+
+    /**
+     * 当前已建立且尚未断开的会话数
+     */
+    int getEstablishedSessions() {
+        int established = 0;
+        for (Session session : sessions.values()) {
+            if (session.remaining.get() == 0) {
+                established++;
+            }
+        }
+        return established;
+    }
+
+    /**
+     * 第index个模拟实例的实例ID
+     */
+    static String instanceId(int index) {
+        return PROJECT_ID + "-" + index;
+    }
+
+    private void startPlayer(int slot) {
+        if (closed || slot >= targetPlayers) {
+            activeSlots.decrementAndGet();
+            return;
+        }
+        Session session = new Session(nextSessionId.getAndIncrement(), slot, 2 + 2 * iceCandidates);
+        sessions.put(session.id, session);
+        String query = "type=player&projectid=" + PROJECT_ID;
+        if (byInstance) {
+            query += "&insid=" + streamerIds.get(slot % streamerIds.size());
+        }
+        connect(query, new PlayerHandler(session));
+    }
+
+    private void endSession(Session session, boolean retryLater) {
+        if (sessions.remove(session.id) == null || closed) {
+            return;
+        }
+        if (retryLater) {
+            group.schedule(() -> startPlayer(session.slot), RETRY_MILLIS + ThreadLocalRandom.current().nextLong(RETRY_MILLIS),
+                    TimeUnit.MILLISECONDS);
+        } else {
+            group.execute(() -> startPlayer(session.slot));
+        }
+    }
+
+    private void connect(String query, ClientHandler handler) {
+        URI uri = URI.create("ws://" + address.getHostString() + ":" + address.getPort() + "/?" + query);
+        WebSocketClientProtocolConfig config = WebSocketClientProtocolConfig.newBuilder()
+                .webSocketUri(uri)
+                .maxFramePayloadLength(65536)
+                .handshakeTimeoutMillis(SETUP_TIMEOUT_MILLIS)
+                .build();
+        handler.connectNanos = System.nanoTime();
+        bootstrap.clone()
+                .handler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(SocketChannel ch) {
+                        ch.pipeline().addLast(new HttpClientCodec(), new HttpObjectAggregator(8192),
+                                new WebSocketClientProtocolHandler(config), handler);
+                    }
+                })
+                .connect(address)
+                .addListener((ChannelFutureListener) future -> {
+                    if (!future.isSuccess()) {
+                        stats.failures.increment();
+                        handler.connectFailed();
+                    }
+                });
+    }
+
+    private void send(Channel channel, JSONObject message) {
+        String text = message.toString();
+        stats.sent(text.length());
+        channel.writeAndFlush(new TextWebSocketFrame(text));
+    }
+
+    private JSONObject candidateMessage(int index) {
+        JSONObject candidate = new JSONObject();
+        candidate.put("candidate", candidates[index % FIXTURES]);
+        candidate.put("sdpMid", "0");
+        candidate.put("sdpMLineIndex", 0);
+        JSONObject message = new JSONObject();
+        message.put("type", "iceCandidate");
+        message.put("candidate", candidate);
+        return message;
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        group.shutdownGracefully(0, 2, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * 一次玩家会话，remaining为双方尚未收到的消息数
+     */
+    private static final class Session {
+        private final int id;
+        private final int slot;
+        private final AtomicInteger remaining;
+        private final long startNanos = System.nanoTime();
+        private volatile Channel player;
+        private volatile boolean queued;
+
+        Session(int id, int slot, int expectedMessages) {
+            this.id = id;
+            this.slot = slot;
+            this.remaining = new AtomicInteger(expectedMessages);
+        }
+    }
+
+    private void received(Session session) {
+        if (session.remaining.decrementAndGet() != 0) {
+            return;
+        }
+        stats.setupNanos.record(System.nanoTime() - session.startNanos);
+        stats.sessionsCompleted.increment();
+        Channel player = session.player;
+        long lifetime = lifetimeMillis / 2 + ThreadLocalRandom.current().nextLong(lifetimeMillis + 1);
+        player.eventLoop().schedule(() -> {
+            player.writeAndFlush(new CloseWebSocketFrame()).addListener(ChannelFutureListener.CLOSE);
+        }, lifetime, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * WebSocket客户端公共处理：握手计时、拒绝与异常计数
+     */
+    private abstract class ClientHandler extends SimpleChannelInboundHandler<TextWebSocketFrame> {
+        long connectNanos;
+
+        @Override
+        public void userEventTriggered(ChannelHandlerContext ctx, Object evt) throws Exception {
+            if (evt == WebSocketClientProtocolHandler.ClientHandshakeStateEvent.HANDSHAKE_COMPLETE) {
+                stats.handshakes.increment();
+                stats.handshakeNanos.record(System.nanoTime() - connectNanos);
+                opened(ctx.channel());
+            }
+            super.userEventTriggered(ctx, evt);
+        }
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, TextWebSocketFrame frame) {
+            received(ctx.channel(), JSONObject.parseObject(frame.text()));
+        }
+
+        @Override
+        public void exceptionCaught(ChannelHandlerContext ctx, Throwable cause) {
+            String message = String.valueOf(cause.getMessage());
+            if (cause instanceof WebSocketClientHandshakeException
+                    && (message.contains("503") || message.contains("429"))) {
+                stats.rejected.increment();
+            } else {
+                stats.failures.increment();
+            }
+            ctx.close();
+        }
+
+        void opened(Channel channel) {
+        }
+
+        void connectFailed() {
+        }
+
+        abstract void received(Channel channel, JSONObject message);
+    }
+
+    /**
+     * 模拟像素流实例
+     */
+    private final class StreamerHandler extends ClientHandler {
+        private final String insId;
+        private final CountDownLatch identified;
+
+        StreamerHandler(String insId, CountDownLatch identified) {
+            this.insId = insId;
+            this.identified = identified;
+        }
+
+        @Override
+        void received(Channel channel, JSONObject message) {
+            String type = message.getString("type");
+            if ("identify".equals(type)) {
+                JSONObject endpoint = new JSONObject();
+                endpoint.put("type", "endpointId");
+                endpoint.put("id", insId);
+                send(channel, endpoint);
+                identified.countDown();
+            } else if ("playerConnected".equals(type)) {
+                String playerId = message.getString("playerId");
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                JSONObject offer = new JSONObject();
+                offer.put("type", "offer");
+                offer.put("playerId", playerId);
+                offer.put("sdp", offers[random.nextInt(FIXTURES)]);
+                offer.put("t", System.nanoTime());
+                send(channel, offer);
+                for (int i = 0; i < iceCandidates; i++) {
+                    JSONObject candidate = candidateMessage(i);
+                    candidate.put("playerId", playerId);
+                    candidate.put("t", System.nanoTime());
+                    send(channel, candidate);
+                }
+            } else if ("answer".equals(type) || "iceCandidate".equals(type)) {
+                stats.forwarded(message.getLongValue("t"));
+                Session session = sessions.get(message.getIntValue("sid", -1));
+                if (session != null) {
+                    SignallingSimulator.this.received(session);
+                }
+            }
+        }
+    }
+
+    /**
+     * 模拟浏览器玩家，断开后以新会话重连同一席位
+     */
+    private final class PlayerHandler extends ClientHandler {
+        private final Session session;
+        private boolean opened;
+
+        PlayerHandler(Session session) {
+            this.session = session;
+        }
+
+        @Override
+        void opened(Channel channel) {
+            opened = true;
+            session.player = channel;
+            // 会话建立后正常结束的立即重连，未建立就被断开的（实例不可用、席位已满或超时）记为失败并稍后重试
+            channel.closeFuture().addListener(future -> {
+                boolean incomplete = session.remaining.get() > 0;
+                if (incomplete && !closed) {
+                    stats.failures.increment();
+                }
+                endSession(session, incomplete);
+            });
+            // 排队中的玩家不受建立超时限制，等待时间计入会话建立耗时
+            channel.eventLoop().schedule(() -> {
+                if (session.remaining.get() > 0 && !session.queued && channel.isActive()) {
+                    channel.close();
+                }
+            }, SETUP_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public void channelInactive(ChannelHandlerContext ctx) throws Exception {
+            if (!opened) {
+                // 握手被拒绝或连接中断，稍后重试
+                endSession(session, true);
+            }
+            super.channelInactive(ctx);
+        }
+
+        @Override
+        void connectFailed() {
+            endSession(session, true);
+        }
+
+        @Override
+        void received(Channel channel, JSONObject message) {
+            String type = message.getString("type");
+            if ("offer".equals(type)) {
+                stats.forwarded(message.getLongValue("t"));
+                JSONObject answer = new JSONObject();
+                answer.put("type", "answer");
+                answer.put("sdp", answers[ThreadLocalRandom.current().nextInt(FIXTURES)]);
+                answer.put("sid", session.id);
+                answer.put("t", System.nanoTime());
+                send(channel, answer);
+                for (int i = 0; i < iceCandidates; i++) {
+                    JSONObject candidate = candidateMessage(i);
+                    candidate.put("sid", session.id);
+                    candidate.put("t", System.nanoTime());
+                    send(channel, candidate);
+                }
+                SignallingSimulator.this.received(session);
+            } else if ("iceCandidate".equals(type)) {
+                stats.forwarded(message.getLongValue("t"));
+                SignallingSimulator.this.received(session);
+            } else if ("queueStatus".equals(type) && !session.queued) {
+                session.queued = true;
+                stats.queued.increment();
+            }
+        }
+    }
+}